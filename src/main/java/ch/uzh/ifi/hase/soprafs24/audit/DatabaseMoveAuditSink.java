@@ -0,0 +1,42 @@
+package ch.uzh.ifi.hase.soprafs24.audit;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Moves;
+import ch.uzh.ifi.hase.soprafs24.repository.MovesRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Database Move Audit Sink
+ * Saves every event as a row of the MOVES table, one insert batch per call.
+ */
+public class DatabaseMoveAuditSink implements MoveAuditSink {
+
+    private final MovesRepository movesRepository;
+    private final ObjectMapper objectMapper;
+
+    public DatabaseMoveAuditSink(MovesRepository movesRepository, ObjectMapper objectMapper) {
+        this.movesRepository = movesRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void write(List<MoveAuditEvent> events) throws IOException {
+        List<Moves> moves = new ArrayList<>(events.size());
+        for (MoveAuditEvent event : events) {
+            Moves move = new Moves();
+            move.setGameId(event.getGameId());
+            move.setPlayerId(event.getPlayerId());
+            move.setScore(event.getScore());
+            move.setPlayedAt(Instant.ofEpochMilli(event.getPlayedAt()));
+            move.setDetails(objectMapper.writeValueAsString(
+                    Map.of("placements", event.getPlacements(), "words", event.getWords())));
+            moves.add(move);
+        }
+        movesRepository.saveAll(moves);
+    }
+}
@@ -0,0 +1,63 @@
+package ch.uzh.ifi.hase.soprafs24.audit;
+
+import ch.uzh.ifi.hase.soprafs24.repository.MovesRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Paths;
+
+/**
+ * Move Audit Config
+ * Chooses where accepted moves are recorded.
+ * move-audit.sink=file appends JSON lines to move-audit.file.path and rolls it over at move-audit.file.max-size,
+ * move-audit.sink=db stores them in the MOVES table, move-audit.sink=none discards them.
+ */
+@Configuration
+public class MoveAuditConfig {
+
+    private final Logger log = LoggerFactory.getLogger(MoveAuditConfig.class);
+
+    @Value("${move-audit.sink:none}")
+    private String sink;
+
+    @Value("${move-audit.file.path:logs/moves.log}")
+    private String filePath;
+
+    @Value("${move-audit.file.max-size:10MB}")
+    private DataSize fileMaxSize;
+
+    @Value("${move-audit.file.max-history:5}")
+    private int fileMaxHistory;
+
+    // closed by the writer thread of the log once it is done with it
+    @Bean(destroyMethod = "")
+    public MoveAuditSink moveAuditSink(ObjectMapper objectMapper, MovesRepository movesRepository) {
+        if ("file".equalsIgnoreCase(sink)) {
+            log.info("Writing the move audit trail to {}", filePath);
+            return new RollingFileMoveAuditSink(Paths.get(filePath), fileMaxSize.toBytes(), fileMaxHistory, objectMapper);
+        }
+        if ("db".equalsIgnoreCase(sink)) {
+            log.info("Writing the move audit trail to the database");
+            return new DatabaseMoveAuditSink(movesRepository, objectMapper);
+        }
+        if (!"none".equalsIgnoreCase(sink)) {
+            throw new IllegalArgumentException("Unknown move audit sink: " + sink);
+        }
+        return MoveAuditSink.NONE;
+    }
+
+    /**
+     * Closed with the application context, writing out the moves still queued
+     */
+    @Bean
+    public MoveAuditLog moveAuditLog(MoveAuditSink moveAuditSink,
+                                     @Value("${move-audit.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${move-audit.batch-size:256}") int batchSize) {
+        return new MoveAuditLog(moveAuditSink, queueCapacity, batchSize);
+    }
+}
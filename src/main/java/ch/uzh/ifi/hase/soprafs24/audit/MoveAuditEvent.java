@@ -0,0 +1,53 @@
+package ch.uzh.ifi.hase.soprafs24.audit;
+
+import ch.uzh.ifi.hase.soprafs24.game.FormedWord;
+import ch.uzh.ifi.hase.soprafs24.game.MoveResult;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PlacementDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Move Audit Event
+ * An accepted move as written to the audit trail: who played it in which game, the tiles placed,
+ * every word formed with its score and the total. Serialized as JSON by the sinks.
+ */
+public final class MoveAuditEvent {
+
+    private final long gameId;
+    private final Long playerId;
+    private final List<PlacementDTO> placements;
+    private final List<FormedWord> words;
+    private final int score;
+    // epoch milliseconds
+    private final long playedAt;
+
+    public MoveAuditEvent(long gameId, Long playerId, List<PlacementDTO> placements, List<FormedWord> words,
+                          int score, long playedAt) {
+        this.gameId = gameId;
+        this.playerId = playerId;
+        this.placements = List.copyOf(placements);
+        this.words = List.copyOf(words);
+        this.score = score;
+        this.playedAt = playedAt;
+    }
+
+    public static MoveAuditEvent of(long gameId, Long playerId, MoveResult move) {
+        List<PlacementDTO> placements = new ArrayList<>(move.getPlacements().size());
+        move.getPlacements().forEach(placement -> placements.add(PlacementDTO.of(placement)));
+        return new MoveAuditEvent(gameId, playerId, placements, move.getFormedWords(), move.getScore(),
+                System.currentTimeMillis());
+    }
+
+    public long getGameId() { return gameId; }
+
+    public Long getPlayerId() { return playerId; }
+
+    public List<PlacementDTO> getPlacements() { return placements; }
+
+    public List<FormedWord> getWords() { return words; }
+
+    public int getScore() { return score; }
+
+    public long getPlayedAt() { return playedAt; }
+}
@@ -0,0 +1,150 @@
+package ch.uzh.ifi.hase.soprafs24.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Move Audit Log
+ * Hands accepted moves to a {@link MoveAuditSink} on a single background thread. Publishing
+ * never blocks and takes no lock: the events go into a lock-free queue bounded by a counter,
+ * and when the queue is full the event is dropped and counted instead of waiting for the sink.
+ * The writer drains the queue in batches, closing the log writes out what is still queued.
+ */
+public class MoveAuditLog implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MoveAuditLog.class);
+
+    // how long the writer sleeps when there is nothing to write, publishing wakes it up earlier
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final MoveAuditSink sink;
+    private final int capacity;
+    private final int batchSize;
+
+    private final ConcurrentLinkedQueue<MoveAuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public MoveAuditLog(MoveAuditSink sink, int capacity, int batchSize) {
+        this.sink = sink;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.writer = new Thread(this::drain, "move-audit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues an event for the sink without waiting
+     * @return false if the queue was full or the log is closed and the event was dropped
+     */
+    public boolean publish(MoveAuditEvent event) {
+        if (!running) {
+            dropped.increment();
+            return false;
+        }
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(event);
+        published.increment();
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * Events dropped because the queue was full, the log was closed or the sink failed
+     */
+    public long getDroppedCount() {
+        return dropped.sum() + failed.sum();
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * Stops accepting events and waits up to the given time for the queued ones to be written
+     */
+    public void close(Duration timeout) throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(Math.max(1, timeout.toMillis()));
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        close(Duration.ofSeconds(5));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("move.audit.published", this, MoveAuditLog::getPublishedCount)
+                .description("Accepted moves queued for the audit trail")
+                .register(registry);
+        FunctionCounter.builder("move.audit.dropped", this, MoveAuditLog::getDroppedCount)
+                .description("Accepted moves missing from the audit trail because the queue was full or the sink failed")
+                .register(registry);
+        Gauge.builder("move.audit.queued", this, MoveAuditLog::getQueuedCount)
+                .description("Accepted moves waiting to be written to the audit trail")
+                .register(registry);
+    }
+
+    private void drain() {
+        List<MoveAuditEvent> batch = new ArrayList<>(batchSize);
+        // an event counted in queued may not be in the queue yet, so that count decides when to stop
+        while (running || queued.get() > 0) {
+            MoveAuditEvent event;
+            while (batch.size() < batchSize && (event = queue.poll()) != null) {
+                queued.decrementAndGet();
+                batch.add(event);
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+        try {
+            sink.close();
+        }
+        catch (Exception e) {
+            log.warn("Closing the move audit sink failed: {}", e.getMessage());
+        }
+    }
+
+    private void write(List<MoveAuditEvent> batch) {
+        try {
+            sink.write(batch);
+        }
+        catch (Exception e) {
+            failed.add(batch.size());
+            log.warn("Writing {} moves to the audit trail failed: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ch.uzh.ifi.hase.soprafs24.audit;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Move Audit Sink
+ * Where the audit trail is stored. Called from the single writer thread of {@link MoveAuditLog}
+ * only, so implementations need no synchronization and may block.
+ */
+public interface MoveAuditSink extends AutoCloseable {
+
+    /**
+     * Stores a batch of events in the order they were published
+     */
+    void write(List<MoveAuditEvent> events) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Discards every event, for when no audit trail is wanted
+     */
+    MoveAuditSink NONE = events -> {
+    };
+}
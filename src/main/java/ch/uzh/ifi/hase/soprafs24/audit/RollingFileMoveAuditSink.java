@@ -0,0 +1,92 @@
+package ch.uzh.ifi.hase.soprafs24.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Rolling File Move Audit Sink
+ * Appends one JSON line per event to a file. Once the file grows past the maximum size it is
+ * renamed to file.1, the older files shift to file.2 and so on, and the oldest beyond the
+ * history limit is deleted. Existing lines are never rewritten.
+ */
+public class RollingFileMoveAuditSink implements MoveAuditSink {
+
+    private static final byte NEWLINE = '\n';
+
+    private final Path file;
+    private final long maxSize;
+    private final int maxHistory;
+    private final ObjectMapper objectMapper;
+
+    private OutputStream out;
+    private long size;
+
+    public RollingFileMoveAuditSink(Path file, long maxSize, int maxHistory, ObjectMapper objectMapper) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxHistory = maxHistory;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void write(List<MoveAuditEvent> events) throws IOException {
+        for (MoveAuditEvent event : events) {
+            byte[] line = objectMapper.writeValueAsBytes(event);
+            if (out == null) {
+                open();
+            }
+            if (size > 0 && size + line.length + 1 > maxSize) {
+                roll();
+                open();
+            }
+            out.write(line);
+            out.write(NEWLINE);
+            size += line.length + 1;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        size = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        close();
+        if (maxHistory < 1) {
+            Files.delete(file);
+            return;
+        }
+        Files.deleteIfExists(rolled(maxHistory));
+        for (int i = maxHistory - 1; i >= 1; i--) {
+            if (Files.exists(rolled(i))) {
+                Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
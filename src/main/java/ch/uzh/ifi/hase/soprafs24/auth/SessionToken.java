@@ -0,0 +1,31 @@
+package ch.uzh.ifi.hase.soprafs24.auth;
+
+import java.time.Instant;
+
+/**
+ * The content of a verified session token: the user it was issued to and when it was issued and expires
+ */
+public final class SessionToken {
+
+    private final Long userId;
+    private final Instant issuedAt;
+    private final Instant expiresAt;
+
+    public SessionToken(Long userId, Instant issuedAt, Instant expiresAt) {
+        this.userId = userId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
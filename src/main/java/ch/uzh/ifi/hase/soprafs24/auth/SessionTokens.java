@@ -0,0 +1,167 @@
+package ch.uzh.ifi.hase.soprafs24.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session Tokens
+ * Hands out the tokens clients send in the Authorization header and checks them without reading
+ * the database. A token carries the id of the user, the time it was issued and the time it expires,
+ * followed by an HMAC-SHA256 signature of these: "userId.issuedAt.expiresAt.signature", times in
+ * seconds. Only the server knows the key, so a token that verifies was issued by it and not changed.
+ * A token cannot be taken back by forgetting it, tokens of users that log out are kept in a revocation
+ * list until they expire.
+ */
+@Service
+public class SessionTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTokens.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+    // a Mac keeps state while signing, every thread signs with its own
+    private final ThreadLocal<Mac> macs;
+    // signatures of revoked tokens and the second they expire in, after that the token fails on its expiry anyway
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SessionTokens(@Value("${session-tokens.secret:}") String secret,
+                         @Value("${session-tokens.ttl:12h}") Duration ttl) {
+        this(secret, ttl, Clock.systemUTC());
+    }
+
+    SessionTokens(String secret, Duration ttl, Clock clock) {
+        this.key = new SecretKeySpec(keyOf(secret), ALGORITHM);
+        this.ttl = ttl;
+        this.clock = clock;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * A new token for the user, valid for the configured time
+     */
+    public String issue(Long userId) {
+        if (userId == null) throw new IllegalArgumentException("User id cannot be null");
+        long issuedAt = clock.instant().getEpochSecond();
+        String payload = userId + "." + issuedAt + "." + (issuedAt + ttl.getSeconds());
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * The content of the token, or empty if it is malformed, not signed with the key of the server, expired or revoked
+     */
+    public Optional<SessionToken> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int split = token.lastIndexOf('.');
+        if (split < 0) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, split);
+        String signature = token.substring(split + 1);
+        byte[] signatureBytes;
+        try {
+            signatureBytes = DECODER.decode(signature);
+        }
+        catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        // compared in constant time, so the time taken tells nothing about how much of a forged signature is right
+        if (!MessageDigest.isEqual(sign(payload), signatureBytes)) {
+            return Optional.empty();
+        }
+
+        String[] fields = payload.split("\\.");
+        if (fields.length != 3) {
+            return Optional.empty();
+        }
+        SessionToken session;
+        try {
+            session = new SessionToken(Long.valueOf(fields[0]),
+                    Instant.ofEpochSecond(Long.parseLong(fields[1])),
+                    Instant.ofEpochSecond(Long.parseLong(fields[2])));
+        }
+        catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (!clock.instant().isBefore(session.getExpiresAt()) || revoked.containsKey(signature)) {
+            return Optional.empty();
+        }
+        return Optional.of(session);
+    }
+
+    /**
+     * Makes a valid token fail verification from now on, for example when the user logs out
+     */
+    public void revoke(String token) {
+        verify(token).ifPresent(session -> {
+            removeExpiredRevocations();
+            revoked.put(token.substring(token.lastIndexOf('.') + 1), session.getExpiresAt().getEpochSecond());
+        });
+    }
+
+    /**
+     * The number of revoked tokens that have not expired yet
+     */
+    public int getRevokedCount() {
+        removeExpiredRevocations();
+        return revoked.size();
+    }
+
+    private void removeExpiredRevocations() {
+        long now = clock.instant().getEpochSecond();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        }
+        catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign session tokens with " + ALGORITHM, e);
+        }
+    }
+
+    private static byte[] keyOf(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            log.warn("No session-tokens.secret set, signing with a random key, tokens are only valid until the next restart");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            log.warn("The session-tokens.secret is shorter than 32 bytes, use a longer one");
+        }
+        return bytes;
+    }
+}
@@ -38,6 +38,15 @@ public class LetterPoints {
         Map.entry('Z', 10)
         
     );
+
+    // the same values indexed by letter, 0 = A
+    private static final int[] POINTS = new int[26];
+
+    static {
+        for (Map.Entry<Character, Integer> entry : LETTER_POINTS.entrySet()) {
+            POINTS[entry.getKey() - 'A'] = entry.getValue();
+        }
+    }
     
     /**
      * Gets the point value for a letter
@@ -45,6 +54,6 @@ public class LetterPoints {
      * @return The point value (0 if letter not found)
      */
     public static int getPoints(char letter) {
-        return LETTER_POINTS.get(letter);
+        return letter >= 'A' && letter <= 'Z' ? POINTS[letter - 'A'] : 0;
     }
 }
@@ -5,5 +5,6 @@ public enum MessageStatus {
     SUCCESS,
     ERROR,
     VALIDATION_SUCCESS,
-    VALIDATION_ERROR
+    VALIDATION_ERROR,
+    CONFLICT
 }
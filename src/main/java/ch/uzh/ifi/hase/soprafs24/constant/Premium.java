@@ -0,0 +1,41 @@
+package ch.uzh.ifi.hase.soprafs24.constant;
+
+/**
+ * Premium of a board square, with the multipliers it applies to a tile placed on it
+ */
+public enum Premium {
+    NORMAL(1, 1),
+    DOUBLE_LETTER(2, 1),
+    TRIPLE_LETTER(3, 1),
+    DOUBLE_WORD(1, 2),
+    TRIPLE_WORD(1, 3);
+
+    private final int letterMultiplier;
+    private final int wordMultiplier;
+
+    Premium(int letterMultiplier, int wordMultiplier) {
+        this.letterMultiplier = letterMultiplier;
+        this.wordMultiplier = wordMultiplier;
+    }
+
+    public int getLetterMultiplier() {
+        return letterMultiplier;
+    }
+
+    public int getWordMultiplier() {
+        return wordMultiplier;
+    }
+
+    /**
+     * @param code one of the multiplier codes of {@link BoardStatus}
+     */
+    public static Premium fromCode(String code) {
+        switch (code) {
+            case BoardStatus.DOUBLE_LETTER: return DOUBLE_LETTER;
+            case BoardStatus.TRIPLE_LETTER: return TRIPLE_LETTER;
+            case BoardStatus.DOUBLE_WORD: return DOUBLE_WORD;
+            case BoardStatus.TRIPLE_WORD: return TRIPLE_WORD;
+            default: return NORMAL;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ch.uzh.ifi.hase.soprafs24.constant.errors;
+
+public class LexiconUnavailableException extends IllegalStateException {
+    public LexiconUnavailableException(String message) {
+        super(message);
+    }
+
+    public LexiconUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,5 +1,6 @@
 package ch.uzh.ifi.hase.soprafs24.controller;
 
+import ch.uzh.ifi.hase.soprafs24.auth.SessionToken;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.GameInvitationNotFoundException;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.GameNotFoundException;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.InvalidGameStatusException;
@@ -39,12 +40,13 @@ public class GameController {
     }
 
     @PostMapping("/games")
+    @QueryBudget(statements = 5)
     @ResponseStatus(HttpStatus.CREATED)
     @ResponseBody
-    public GameGetDTO createGame( @RequestHeader("Authorization") String token) {
-        Optional<User> user = userService.getUserByToken(token);
+    public GameGetDTO createGame(SessionToken session) {
+        Optional<User> user = userService.getUserById(session.getUserId());
         if (user.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Invalid token: User not found" + token);
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED,"Invalid token: User not found");
         }
 
         try {
@@ -59,6 +61,7 @@ public class GameController {
 
 
     @GetMapping("/games/{id}")
+    @QueryBudget(statements = 2, collectionFetches = 1)
     public ResponseEntity<GameGetDTO> getGameById(@PathVariable Long id) {
         return gameService.getGameById(id)
             .map(game -> ResponseEntity.ok(DTOMapper.INSTANCE.convertEntityToGameGetDTO(game)))
@@ -67,9 +70,10 @@ public class GameController {
 
     @ResponseStatus(HttpStatus.OK)
     @PutMapping("/games/{id}")
-    public ResponseEntity<GameGetDTO> updateGame(@PathVariable Long id, @RequestHeader("Authorization") String token, @RequestBody GamePutDTO gamePutDTO) {
+    @QueryBudget(statements = 5)
+    public ResponseEntity<GameGetDTO> updateGame(@PathVariable Long id, SessionToken session, @RequestBody GamePutDTO gamePutDTO) {
 
-        Optional<User> optionalUser = userService.getUserByToken(token);
+        Optional<User> optionalUser = userService.getUserById(session.getUserId());
         if (optionalUser.isEmpty()) { return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build(); }
         User user = optionalUser.get();
 
@@ -94,10 +98,8 @@ public class GameController {
 
     @ResponseStatus(HttpStatus.OK)
     @DeleteMapping("/games/{id}")
-    public ResponseEntity<Void> deleteGame(@PathVariable Long id, @RequestHeader("Authorization") String token) {
-        Optional<User> optionalUser = userService.getUserByToken(token);
-        if (optionalUser.isEmpty()) { return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build(); }
-        
+    @QueryBudget(statements = 2)
+    public ResponseEntity<Void> deleteGame(@PathVariable Long id, SessionToken session) {
         Game game = gameService.getGameById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
 
@@ -112,8 +114,9 @@ public class GameController {
 
     @ResponseStatus(HttpStatus.OK)
     @PutMapping("/games/{id}/users/{userId}/leave")
-    public ResponseEntity<GameGetDTO> leaveGame(@PathVariable Long id, @PathVariable Long userId, @RequestHeader("Authorization") String token) {
-        Optional<User> optionalUser = userService.getUserByToken(token);
+    @QueryBudget(statements = 6)
+    public ResponseEntity<GameGetDTO> leaveGame(@PathVariable Long id, @PathVariable Long userId, SessionToken session) {
+        Optional<User> optionalUser = userService.getUserById(session.getUserId());
         if (optionalUser.isEmpty()) { return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build(); }
         User user = optionalUser.get();
 
@@ -136,14 +139,13 @@ public class GameController {
 
 
     @GetMapping("/games/{id}/letters/{letter}")
-    public int getRemainingLetters(@PathVariable Long id, @PathVariable char letter, @RequestHeader("Authorization") String token) {
+    @QueryBudget(statements = 1)
+    public int getRemainingLetters(@PathVariable Long id, @PathVariable char letter, SessionToken session) {
         Game game = gameService.getGameById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
-        User user = userService.getUserByToken(token)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found"));
         User opponent = game.getUsers()
             .stream()
-            .filter(u -> !u.getId().equals(user.getId()))
+            .filter(u -> !u.getId().equals(session.getUserId()))
             .findFirst()
             .orElse(null);
         return (int) (gameService.countLettersInBag(game, letter) + (opponent == null ? 0 : Arrays.stream(game.getPlayerTiles(opponent.getId())).toList()
@@ -152,14 +154,15 @@ public class GameController {
 
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping("/games/invitations")
-    public ResponseEntity<GameInvitationsGetDTO> createGameInvitation(@RequestHeader("Authorization") String token, @RequestBody GameInvitationPostDTO gameInvitationPostDTO) {
-        Optional<User> senderUser = userService.getUserByToken(token);
-        if (senderUser.isEmpty()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found");
-
+    @QueryBudget(statements = 8)
+    public ResponseEntity<GameInvitationsGetDTO> createGameInvitation(SessionToken session, @RequestBody GameInvitationPostDTO gameInvitationPostDTO) {
         User targetUser = userService.getUserByUsername(gameInvitationPostDTO.getTargetUsername());
         if (targetUser == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Target user not found");
 
-        if(senderUser.get().getId().equals(targetUser.getId())) throw new ResponseStatusException(HttpStatus.CONFLICT, "Cannot send game invitation to yourself!");
+        if(session.getUserId().equals(targetUser.getId())) throw new ResponseStatusException(HttpStatus.CONFLICT, "Cannot send game invitation to yourself!");
+
+        Optional<User> senderUser = userService.getUserById(session.getUserId());
+        if (senderUser.isEmpty()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found");
 
         Optional<Game> game = gameService.getGameById(gameInvitationPostDTO.getGameId());
 
@@ -182,13 +185,11 @@ public class GameController {
 
     @ResponseStatus(HttpStatus.OK)
     @GetMapping("/games/invitations/{userId}")
-    public ResponseEntity<List<GameInvitationsGetDTO>> getGameInvitations(@RequestHeader("Authorization") String token, @PathVariable Long userId) {
-        Optional<User> user = userService.getUserByToken(token);
-        if (user.isEmpty()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found");
-
-        if (!user.get().getId().equals(userId))
+    @QueryBudget(statements = 6, collectionFetches = 3)
+    public ResponseEntity<List<GameInvitationsGetDTO>> getGameInvitations(SessionToken session, @PathVariable Long userId) {
+        if (!session.getUserId().equals(userId))
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not authorized to access this resource");
-        List<GameInvitation> gameInvitations = gameInvitationService.getGameInvitationsByTarget(user.get());
+        List<GameInvitation> gameInvitations = gameInvitationService.getGameInvitationsByTargetId(userId);
         List<GameInvitationsGetDTO> gameInvitationsGetDTOs = new ArrayList<>();
 
         for (GameInvitation gameInvitation : gameInvitations) {
@@ -199,17 +200,27 @@ public class GameController {
 
     @ResponseStatus(HttpStatus.OK)
     @PutMapping("/games/invitations/{invitationId}")
-    public ResponseEntity<GameInvitationsGetDTO> updateGameInvitations(@RequestHeader("Authorization") String token, @PathVariable String invitationId, @RequestBody GameInvitationPutDTO gameInvitationPutDTO) throws GameInvitationNotFoundException {
-        if(token == null || token.isEmpty() || userService.getUserByToken(token).isEmpty()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found");
+    @QueryBudget(statements = 10)
+    public ResponseEntity<GameInvitationsGetDTO> updateGameInvitations(SessionToken session, @PathVariable String invitationId, @RequestBody GameInvitationPutDTO gameInvitationPutDTO) {
         if(invitationId == null || invitationId.isEmpty()) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invitation ID cannot be null or empty");
         if(gameInvitationPutDTO == null || gameInvitationPutDTO.getStatus() == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invitation status cannot be null");
 
+        GameInvitation gameInvitation;
+        try {
+            gameInvitation = gameInvitationService.getGameInvitationById(Long.valueOf(invitationId));
+        }
+        catch (GameInvitationNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        if(!session.getUserId().equals(gameInvitation.getTarget().getId())) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not authorized to access this resource");
+
         try {
-            GameInvitation gameInvitation = gameInvitationService.getGameInvitationById(Long.valueOf(invitationId));
-            if(userService.getUserByToken(token).get().getId() != gameInvitationService.getGameInvitationById(Long.valueOf(invitationId)).getTarget().getId()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not authorized to access this resource");
             gameInvitationService.updateGameInvitationStatus(gameInvitation, gameInvitationPutDTO.getStatus());
         }
-        catch (GameInvitationNotFoundException | GameNotFoundException | UserNotFoundException e) {
+        catch (GameNotFoundException | UserNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
         catch (IllegalArgumentException e) {
@@ -218,7 +229,7 @@ public class GameController {
         catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred:\n" + e.getMessage());
         }
-        return ResponseEntity.ok(DTOMapper.INSTANCE.convertEntityToGameInvitationsGetDTO(gameInvitationService.getGameInvitationById(Long.valueOf(invitationId))));
+        return ResponseEntity.ok(DTOMapper.INSTANCE.convertEntityToGameInvitationsGetDTO(gameInvitation));
     }
 
 }
@@ -0,0 +1,47 @@
+package ch.uzh.ifi.hase.soprafs24.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Query Budget
+ * The most database work a handler may cause for one request: SQL statements, entities read,
+ * collections fetched and flushes of the persistence context. The budgets are checked against the
+ * Hibernate statistics by the query budget tests, so a change that adds a query per row (N+1) fails
+ * the build instead of showing up as a slow endpoint.
+ * A handler serving several actions, like the game state handler of the WebSocketController,
+ * declares one budget per action.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Repeatable(QueryBudget.List.class)
+public @interface QueryBudget {
+
+    // a limit that is not checked
+    int UNCHECKED = -1;
+
+    /**
+     * The action of the message the budget is for, empty for handlers serving one action only
+     */
+    String action() default "";
+
+    int statements();
+
+    int entityLoads() default UNCHECKED;
+
+    int collectionFetches() default UNCHECKED;
+
+    int flushes() default UNCHECKED;
+
+    @Documented
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    @interface List {
+        QueryBudget[] value();
+    }
+}
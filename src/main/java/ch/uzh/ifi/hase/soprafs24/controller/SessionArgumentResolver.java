@@ -0,0 +1,55 @@
+package ch.uzh.ifi.hase.soprafs24.controller;
+
+import ch.uzh.ifi.hase.soprafs24.auth.SessionToken;
+import ch.uzh.ifi.hase.soprafs24.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Session Argument Resolver
+ * Passes the verified session of the Authorization header to handlers taking a {@link SessionToken},
+ * so a handler that only needs the id of the user does not read the user from the database.
+ * A request without a valid token is answered with 401 before the handler runs.
+ */
+@Component
+public class SessionArgumentResolver implements HandlerMethodArgumentResolver, WebMvcConfigurer {
+
+    private final UserService userService;
+
+    @Autowired
+    public SessionArgumentResolver(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(this);
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == SessionToken.class;
+    }
+
+    @Override
+    public SessionToken resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                        NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        String token = webRequest.getHeader(HttpHeaders.AUTHORIZATION);
+        if (token == null || token.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token is missing");
+        }
+        return userService.getSessionByToken(token)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found"));
+    }
+}
@@ -1,5 +1,6 @@
 package ch.uzh.ifi.hase.soprafs24.controller;
 
+import ch.uzh.ifi.hase.soprafs24.auth.SessionToken;
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.FriendRequestNotFoundException;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.UserNotFoundException;
@@ -39,6 +40,7 @@ public class UserController {
   }
 
   @GetMapping("/users")
+  @QueryBudget(statements = 2, collectionFetches = 1)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public List<UserGetDTO> getAllUsers(@RequestParam(required = false) Long userId, @RequestParam(value="leaderboard", required = false) boolean orderByBestGame) {
@@ -56,6 +58,7 @@ public class UserController {
   }
 
   @PutMapping("/users")
+  @QueryBudget(statements = 3, flushes = 3)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public UserGetDTO updateUserStatus(@RequestParam Long userId, @RequestBody UserPutDTO userPutDTO) {
@@ -74,6 +77,7 @@ public class UserController {
   }
 
   @PostMapping("/users/register")
+  @QueryBudget(statements = 3, flushes = 2)
   @ResponseStatus(HttpStatus.CREATED)
   @ResponseBody
   public UserGetDTO createUser(@RequestBody UserPostDTO userPostDTO) {
@@ -89,6 +93,7 @@ public class UserController {
 
 // POST /login - Authenticate a user and return their data if credentials are valid
   @PostMapping("/users/login")
+  @QueryBudget(statements = 2, flushes = 2)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public UserGetDTO loginUser(@RequestBody UserPostDTO userPostDTO) {
@@ -107,14 +112,11 @@ public class UserController {
   }
 
     @PutMapping("/users/logout")
+    @QueryBudget(statements = 3, flushes = 4)
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public UserGetDTO logoutUser(@RequestHeader("Authorization") String token) {
-        if(token == null || token.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token is missing");
-        }
-        
-        Optional<User> optionalUser = userService.getUserByToken(token);
+    public UserGetDTO logoutUser(@RequestHeader("Authorization") String token, SessionToken session) {
+        Optional<User> optionalUser = userService.getUserById(session.getUserId());
         if(optionalUser.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found");
         }
@@ -122,6 +124,7 @@ public class UserController {
         User user = optionalUser.get();
         
         user = userService.updateUserStatus(user, UserStatus.OFFLINE);
+        userService.revokeToken(token);
         
         return DTOMapper.INSTANCE.convertEntityToUserGetDTO(user);
     }
@@ -129,17 +132,12 @@ public class UserController {
   // ------------------------------------------ FRIEND REQUESTS -------------------------------------------
 
     @GetMapping("/users/friendRequests")
+    @QueryBudget(statements = 4, collectionFetches = 2)
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public List<FriendRequestGetDTO> getFriendRequests(@RequestHeader("Authorization") String token) {
-        // Verify user & token
-        if(token == null || token.isEmpty()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token is missing");
-        Optional<User> optionalUser = userService.getUserByToken(token);
-        if (optionalUser.isEmpty()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not authorized to access this resource");
-
-        User target = optionalUser.get();
+    public List<FriendRequestGetDTO> getFriendRequests(SessionToken session) {
         // fetch all friend requests in the internal representation
-        List<FriendRequest> friendRequests = friendRequestService.getFriendRequestsByTargetId(target.getId());
+        List<FriendRequest> friendRequests = friendRequestService.getFriendRequestsByTargetId(session.getUserId());
         List<FriendRequestGetDTO> friendRequestGetDTOs = new ArrayList<>();
 
         // convert each friend request to the API representation
@@ -151,13 +149,12 @@ public class UserController {
 
 
     @PostMapping("/users/friendRequests")
+    @QueryBudget(statements = 6)
     @ResponseStatus(HttpStatus.CREATED)
     @ResponseBody
-    public FriendRequestGetDTO createFriendRequest(@RequestHeader("Authorization") String token, @RequestBody FriendRequestPostDTO friendRequestPostDTO) {
-        // Verify user & token
-        if (token == null || token.isEmpty())
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token is missing");
-        Optional<User> optionalSender = userService.getUserByToken(token);
+    public FriendRequestGetDTO createFriendRequest(SessionToken session, @RequestBody FriendRequestPostDTO friendRequestPostDTO) {
+        // Verify user
+        Optional<User> optionalSender = userService.getUserById(session.getUserId());
         if (optionalSender.isEmpty())
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found");
         if (friendRequestPostDTO.getTargetUsername() == null)
@@ -192,12 +189,11 @@ public class UserController {
 
 
     @PutMapping("/users/friendRequests/{friendRequestId}")
+    @QueryBudget(statements = 8)
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public FriendRequestGetDTO updateFriendRequest(@PathVariable Long friendRequestId, @RequestHeader("Authorization") String token, @RequestBody FriendRequestPutDTO friendRequestPutDTO) {
-        // Verify user & token
+    public FriendRequestGetDTO updateFriendRequest(@PathVariable Long friendRequestId, SessionToken session, @RequestBody FriendRequestPutDTO friendRequestPutDTO) {
         if(friendRequestId == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Friend request ID cannot be null");
-        if(token == null || token.isEmpty()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token is missing");
 
         // Fetch friend request
         FriendRequest friendRequest;
@@ -210,13 +206,9 @@ public class UserController {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred:\n"+e.getMessage());
         }
 
-        // Fetch user sending the put request
-        Optional<User> optionalUser = userService.getUserByToken(token);
-        if(optionalUser.isEmpty()) throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token: User not found");
-        User user = optionalUser.get();
-
-        // Check if user is part of the friend request
-        if(!friendRequest.getSender().getId().equals(user.getId()) && !friendRequest.getTarget().getId().equals(user.getId()))
+        // Check if the user sending the put request is part of the friend request
+        Long userId = session.getUserId();
+        if(!friendRequest.getSender().getId().equals(userId) && !friendRequest.getTarget().getId().equals(userId))
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User is not authorized to update this friend request");
         FriendRequest updatedFriendRequest;
         try {
@@ -2,8 +2,15 @@ package ch.uzh.ifi.hase.soprafs24.entity;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 @Entity
+// for findBySenderAndTarget and findByTargetId, the sender is stored in target_id and the target in sender_id (see InvitationBase)
+@Table(indexes = {
+        @Index(name = "idx_friend_request_sender_target_status", columnList = "target_id, sender_id, status"),
+        @Index(name = "idx_friend_request_target", columnList = "sender_id")
+})
 public class FriendRequest extends InvitationBase {
 
     @Column(nullable = false)
@@ -2,6 +2,9 @@ package ch.uzh.ifi.hase.soprafs24.entity;
 
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.LetterCount;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.game.MatchState;
+import ch.uzh.ifi.hase.soprafs24.game.TileBag;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -10,8 +13,16 @@ import java.util.*;
 
 @Entity
 @Table(name = "GAME")
+// What is read along with a game, see GameRepository for the views they are used by
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Game.PLAYERS_VIEW, attributeNodes = {@NamedAttributeNode("host"), @NamedAttributeNode("users")}),
+        @NamedEntityGraph(name = Game.END_VIEW, attributeNodes = @NamedAttributeNode("users"))
+})
 public class Game implements Serializable {
 
+    public static final String PLAYERS_VIEW = "Game.players";
+    public static final String END_VIEW = "Game.end";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -25,124 +36,68 @@ public class Game implements Serializable {
     @OneToOne
     private User host;
 
-    @Column(name = "is_host_turn")
-    private boolean isHostTurn = true;
-
     private GameStatus gameStatus = GameStatus.CREATED;
 
     @Column(nullable = true)
     private LocalDateTime startTime;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "game_letter_bag", joinColumns = @JoinColumn(name = "game_id"))
-    @MapKeyColumn(name = "letter")
-    @Column(name = "count")
-    private Map<Character, Integer> letterBag = new HashMap<>(LetterCount.INITIAL_LETTER_COUNTS);
-
-    // Store board as a string - much simpler than bytes
+    // Store board as a string, see Board#toStateString
     @Column(length = 225) // 15x15=225 characters
     private String boardState;
 
     // Transient means this field won't be persisted directly
     @Transient
-    private String[][] board;
-
-    private Long surrenderId;
+    private Board board;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    private Map<Long, Integer> playerScores = new HashMap<>();
+    // Store the bag, racks, scores and turn in one column, see MatchState#toStateString
+    @Convert(converter = MatchStateConverter.class)
+    @Column(length = 1024)
+    private MatchState matchState = new MatchState();
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    private Map<Long, String> playerTiles = new HashMap<>();
+    private Long surrenderId;
 
-    @Transient
-    private Map<Long, List<String>> playerTilesList = new HashMap<>();
+    // checked and increased with every write, a write based on an older version fails instead of overwriting the newer one
+    @Version
+    private Long version;
 
     public String[] getPlayerTiles(Long userId) {
-        String tiles = playerTiles.get(userId);
+        String tiles = matchState.getRack(userId);
         return tiles==null ? new String[]{}: tiles.split("");
     }
 
     public void setTilesForPlayer(Long userId, List<String> tiles) {
-        playerTilesList.put(userId,tiles);
-        String tilesAsString = "";
-        for (String tile: tiles) {
-            tilesAsString+= tile;
-        }
-        playerTiles.put(userId,tilesAsString);
-    }
-
-    // Get the in-memory 2D array representation
-    public String[][] getBoard() {
-        if (board == null && boardState != null) {
-            // Convert string to 2D array
-            board = new String[15][15];
-            int index = 0;
-            for (int i = 0; i < 15; i++) {
-                for (int j = 0; j < 15; j++) {
-                    char c = (index < boardState.length()) ? boardState.charAt(index) : ' ';
-                    board[i][j] = (c == ' ') ? "" : String.valueOf(c);
-                    index++;
-                }
-            }
-        } else if (board == null) {
-            // Initialize new board if both are null
-            board = new String[15][15];
-            for (int i = 0; i < 15; i++) {
-                for (int j = 0; j < 15; j++) {
-                    board[i][j] = "";
-                }
-            }
-        }
-
-        return board;
-    }
-
-    // Set the 2D array and update the string representation
-    public void setBoard(String[][] newBoard) {
-        this.board = newBoard;
-        saveBoardState();
+        matchState.setRack(userId, String.join("", tiles));
     }
 
-    // Convert 2D array to string for storage
-    private void saveBoardState() {
+    // Get the in-memory representation, read from the stored string on first access
+    public Board getBoard() {
         if (board == null) {
-            boardState = null;
-            return;
+            board = Board.fromStateString(boardState);
         }
+        return board;
+    }
 
-        StringBuilder sb = new StringBuilder(225);
-        for (int i = 0; i < 15; i++) {
-            for (int j = 0; j < 15; j++) {
-                // Use space for empty cells
-                sb.append(board[i][j].equals("") ? ' ' : board[i][j]);
-            }
-        }
-        boardState = sb.toString();
+    // Set the board and update the string representation
+    public void setBoard(Board newBoard) {
+        this.board = newBoard;
+        this.boardState = newBoard == null ? null : newBoard.toStateString();
     }
 
     // Initialize an empty board
     public void initializeEmptyBoard() {
-        board = new String[15][15];
-        for (int i = 0; i < 15; i++) {
-            for (int j = 0; j < 15; j++) {
-                board[i][j] = "";
-            }
-        }
-        saveBoardState();
+        setBoard(Board.empty());
     }
 
     public void addScore(Long playerId, int points) {
-        int currentScore = playerScores.getOrDefault(playerId, 0);
-        playerScores.put(playerId, currentScore + points);
+        matchState.addScore(playerId, points);
     }
 
     public int getPlayerScore(Long playerId) {
-        return playerScores.getOrDefault(playerId, 0);
+        return matchState.getScores().getOrDefault(playerId, 0);
     }
 
     public Map<Long, Integer> getPlayerScores() {
-        return Collections.unmodifiableMap(playerScores);
+        return matchState.getScores();
     }
 
     public Long getId() { return id; }
@@ -162,36 +117,55 @@ public class Game implements Serializable {
     public LocalDateTime getStartTime() { return startTime; }
     public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
 
-    public boolean isHostTurn() { return isHostTurn; }
-    public void setHostTurn(boolean hostTurn) { this.isHostTurn = hostTurn; }
+    public boolean isHostTurn() { return matchState.isHostTurn(); }
+    public void setHostTurn(boolean hostTurn) { matchState.setHostTurn(hostTurn); }
+
+    // Pass the turn to the other player and return the player now at turn
+    public User switchTurn() {
+        setHostTurn(!isHostTurn());
+        return isHostTurn() ? host : users.get(1);
+    }
+
+    // The seed all tile draws of this game follow from
+    public long getSeed() { return matchState.getSeed(); }
+
+    // Start over with an unshuffled bag, no racks and no scores, drawing tiles from the given seed
+    public void startFromSeed(long seed) {
+        matchState = new MatchState(seed);
+    }
+
+    // Get the bag, shuffled on first access
+    private TileBag getTileBag() {
+        if (matchState.getBag() == null) {
+            matchState.setBag(TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, matchState.getRandom()));
+        }
+        return matchState.getBag();
+    }
+
+    public Map<Character, Integer> getLetterCounts() { return getTileBag().letterCounts(); }
 
-    public Map<Character, Integer> getLetterCounts() { return letterBag;}
-    public void setLetterBag(Map<Character, Integer> letterBag) { this.letterBag = letterBag; }
+    // Replace the bag with a freshly shuffled one holding the given tiles
+    public void setLetterBag(Map<Character, Integer> letterBag) {
+        matchState.setBag(TileBag.shuffled(letterBag, matchState.getRandom()));
+    }
 
     public List<Character> drawLetters(int count) {
-        List<Character> drawnLetters = new ArrayList<>();
-        Random random = new Random();
-    
-        for (int i = 0; i < count; i++) {
-            List<Character> availableLetters = letterBag.entrySet().stream()
-                .filter(entry -> entry.getValue() > 0) 
-                .map(Map.Entry::getKey)
-                .toList();
-    
-            if (availableLetters.isEmpty()) {
-                break;
-            }
-            char selectedLetter = availableLetters.get(random.nextInt(availableLetters.size()));
-            drawnLetters.add(selectedLetter);
-    
-            letterBag.put(selectedLetter, letterBag.get(selectedLetter) - 1);
+        return getTileBag().draw(count);
+    }
+
+    // Fill the rack of a player up to seven tiles from the bag, the tiles left in hand come first
+    public String[] refillRack(Long userId, String[] tilesLeftInHand) {
+        if (tilesLeftInHand.length > 7) throw new IllegalArgumentException("You can only have at most 7 tiles in hand");
+        List<String> rack = new ArrayList<>(Arrays.asList(tilesLeftInHand));
+        for (Character letter : drawLetters(7 - tilesLeftInHand.length)) {
+            rack.add(String.valueOf(letter));
         }
-    
-        return drawnLetters;
+        setTilesForPlayer(userId, rack);
+        return rack.toArray(new String[0]);
     }
 
     public int getRemainingLetterCount(char letter) {    
-        return letterBag.getOrDefault(letter, 0);
+        return getTileBag().count(letter);
     }
 
     public List<Character> exchangeTiles(List<Character> currentLetters) {
@@ -200,10 +174,8 @@ public class Game implements Serializable {
         // List<Character> newLetters = game.exchangeLetters(currentLetters);
         List<Character> newLetters = drawLetters(currentLetters.size());
 
-        for (char letter : currentLetters) {
-            if(letter == ' ') continue; // Skip empty letters for example for new game
-            letterBag.put(letter, letterBag.getOrDefault(letter, 0) + 1);
-        }
+        // empty letters (for example for a new game) are skipped
+        getTileBag().putBack(currentLetters, matchState.getRandom());
         return newLetters;
     }
 
@@ -214,5 +186,13 @@ public class Game implements Serializable {
     public void setSurrenderId(Long surrenderId) {
         this.surrenderId = surrenderId;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
 
@@ -1,9 +1,16 @@
 package ch.uzh.ifi.hase.soprafs24.entity;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 
 @Entity
+// for findByGameAndTarget and findAllByTarget, the target is stored in sender_id (see InvitationBase)
+@Table(indexes = {
+        @Index(name = "idx_game_invitation_game_target", columnList = "game_id, sender_id"),
+        @Index(name = "idx_game_invitation_target", columnList = "sender_id")
+})
 public class GameInvitation extends InvitationBase {
 
     @ManyToOne
@@ -0,0 +1,24 @@
+package ch.uzh.ifi.hase.soprafs24.entity;
+
+import ch.uzh.ifi.hase.soprafs24.game.MatchState;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a {@link MatchState} in a single column, see {@link MatchState#toStateString()}
+ */
+@Converter
+public class MatchStateConverter implements AttributeConverter<MatchState, String> {
+
+    @Override
+    public String convertToDatabaseColumn(MatchState matchState) {
+        return matchState == null ? null : matchState.toStateString();
+    }
+
+    // a game saved without a state starts with a new one
+    @Override
+    public MatchState convertToEntityAttribute(String state) {
+        return state == null ? new MatchState() : MatchState.fromStateString(state);
+    }
+}
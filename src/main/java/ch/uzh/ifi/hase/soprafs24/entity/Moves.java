@@ -1,4 +1,82 @@
 package ch.uzh.ifi.hase.soprafs24.entity;
-public class Moves {
-    
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * One accepted move of the audit trail, written by the database move audit sink.
+ * The placed tiles and the per word scores are kept as JSON in details.
+ */
+@Entity
+@Table(name = "MOVES")
+public class Moves implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long gameId;
+
+    private Long playerId;
+
+    @Column(nullable = false)
+    private int score;
+
+    @Column(nullable = false)
+    private Instant playedAt;
+
+    @Lob
+    private String details;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public Long getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(Long playerId) {
+        this.playerId = playerId;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public Instant getPlayedAt() {
+        return playedAt;
+    }
+
+    public void setPlayedAt(Instant playedAt) {
+        this.playedAt = playedAt;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public void setDetails(String details) {
+        this.details = details;
+    }
 }
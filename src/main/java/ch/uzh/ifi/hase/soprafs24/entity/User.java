@@ -2,6 +2,8 @@ package ch.uzh.ifi.hase.soprafs24.entity;
 
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 
+import org.hibernate.annotations.BatchSize;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -33,7 +35,8 @@ public class User implements Serializable {
   @Column(nullable = false)
   private String password;
 
-  @Column(nullable = false, unique = true)
+  // the session token handed out at registration or login, it is signed instead of stored, see SessionTokens
+  @Transient
   private String token;
 
   @Column(nullable = false)
@@ -43,7 +46,9 @@ public class User implements Serializable {
   private boolean isInGame = false;
 
     // Self-referencing many-to-many for friendship
+    // loaded for up to 16 users in one query, a game lists the friends of all its users
   @ManyToMany
+  @BatchSize(size = 16)
   private List<User> friends = new LinkedList<>();
 
   @OneToMany(mappedBy = "sender")
@@ -61,6 +66,10 @@ public class User implements Serializable {
   @Column(nullable = false)
   private LocalDateTime lastModified = LocalDateTime.now();
 
+  // checked and increased with every write, a write based on an older version fails instead of overwriting the newer one
+  @Version
+  private Long version;
+
 
   public Long getId() {
     return id;
@@ -160,4 +169,12 @@ public class User implements Serializable {
     public void setHighScore(int highScore) {
         this.highScore = highScore;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,241 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Board
+ * The 15x15 squares of a game, one byte per square indexed row * 15 + col: 0 for an empty
+ * square, 1-26 for the letters A-Z, with the {@link #BLANK} bit set for a blank tile played as
+ * that letter. Boards are immutable, placing tiles returns a new board.
+ * In JSON a board is written as 15 rows of 15 strings with "" for empty squares, like before.
+ * In text (JSON and the persisted board state) a blank tile is its letter in lower case.
+ */
+public final class Board implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int SIZE = 15;
+    public static final int SQUARES = SIZE * SIZE;
+    public static final int CENTER = 7 * SIZE + 7;
+
+    public static final int LETTER_MASK = 0x1F;
+    public static final int BLANK = 0x20;
+
+    private static final Board EMPTY = new Board(new byte[SQUARES]);
+
+    // one shared string per tile, so writing a board as rows allocates no strings
+    private static final String[] TILES = new String[BLANK + 27];
+
+    static {
+        TILES[0] = "";
+        for (int letter = 1; letter <= 26; letter++) {
+            TILES[letter] = String.valueOf((char) ('A' + letter - 1));
+            TILES[BLANK | letter] = String.valueOf((char) ('a' + letter - 1));
+        }
+    }
+
+    private final byte[] squares;
+    private final Occupancy occupancy;
+
+    private Board(byte[] squares) {
+        this.squares = squares;
+        Occupancy.Builder occupied = Occupancy.builder();
+        for (int square = 0; square < SQUARES; square++) {
+            if (squares[square] != 0) occupied.set(square);
+        }
+        this.occupancy = occupied.build();
+    }
+
+    public static Board empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Reads a board from 15 rows of 15 strings, "" or null for an empty square
+     */
+    @JsonCreator
+    public static Board fromRows(String[][] rows) {
+        if (rows == null || rows.length != SIZE) {
+            throw new IllegalArgumentException("The board must have " + SIZE + " rows");
+        }
+        byte[] squares = new byte[SQUARES];
+        for (int row = 0; row < SIZE; row++) {
+            if (rows[row] == null || rows[row].length != SIZE) {
+                throw new IllegalArgumentException("Every row of the board must have " + SIZE + " squares");
+            }
+            for (int col = 0; col < SIZE; col++) {
+                String tile = rows[row][col];
+                if (tile != null && !tile.isEmpty()) {
+                    if (tile.length() != 1) {
+                        throw new IllegalArgumentException("Invalid tile '" + tile + "' at " + row + "," + col);
+                    }
+                    squares[row * SIZE + col] = encode(tile.charAt(0));
+                }
+            }
+        }
+        return new Board(squares);
+    }
+
+    /**
+     * Reads a board persisted with {@link #toStateString()}, null or a shorter string
+     * leave the remaining squares empty
+     */
+    public static Board fromStateString(String state) {
+        if (state == null) {
+            return EMPTY;
+        }
+        byte[] squares = new byte[SQUARES];
+        for (int square = 0; square < Math.min(state.length(), SQUARES); square++) {
+            char tile = state.charAt(square);
+            if (tile != ' ') {
+                squares[square] = encode(tile);
+            }
+        }
+        return new Board(squares);
+    }
+
+    static byte encode(char tile) {
+        if (tile >= 'A' && tile <= 'Z') return (byte) (tile - 'A' + 1);
+        if (tile >= 'a' && tile <= 'z') return (byte) (BLANK | (tile - 'a' + 1));
+        throw new IllegalArgumentException("Invalid tile '" + tile + "'");
+    }
+
+    /**
+     * The board as 15 rows of 15 strings, "" for an empty square
+     */
+    @JsonValue
+    public String[][] toRows() {
+        String[][] rows = new String[SIZE][SIZE];
+        for (int square = 0; square < SQUARES; square++) {
+            rows[square / SIZE][square % SIZE] = TILES[squares[square]];
+        }
+        return rows;
+    }
+
+    /**
+     * The board as one string of 225 characters, space for an empty square
+     */
+    public String toStateString() {
+        char[] state = new char[SQUARES];
+        for (int square = 0; square < SQUARES; square++) {
+            state[square] = squares[square] == 0 ? ' ' : TILES[squares[square]].charAt(0);
+        }
+        return new String(state);
+    }
+
+    /**
+     * @return a new board with the given tiles placed
+     * @throws IllegalArgumentException if a square is not on the board or already occupied
+     */
+    public Board with(Collection<Placement> placements) {
+        byte[] placed = squares.clone();
+        for (Placement placement : placements) {
+            if (placement.getRow() < 0 || placement.getRow() >= SIZE || placement.getCol() < 0 || placement.getCol() >= SIZE) {
+                throw new IllegalArgumentException("Square " + placement.getRow() + "," + placement.getCol() + " is not on the board");
+            }
+            int square = placement.getRow() * SIZE + placement.getCol();
+            if (placed[square] != 0) {
+                throw new IllegalArgumentException("Square " + placement.getRow() + "," + placement.getCol() + " is already occupied");
+            }
+            placed[square] = encode(placement.getLetter());
+        }
+        return new Board(placed);
+    }
+
+    /**
+     * @return the letter on a square (1-26), 0 if it is empty
+     */
+    public int letter(int square) {
+        return squares[square] & LETTER_MASK;
+    }
+
+    public int letter(int row, int col) {
+        return letter(row * SIZE + col);
+    }
+
+    /**
+     * @return the tile on a square, the letter with the {@link #BLANK} bit for a blank tile, 0 if it is empty
+     */
+    public int tile(int square) {
+        return squares[square];
+    }
+
+    /**
+     * @return the letter on a square as character, upper case also for blank tiles
+     */
+    public char charAt(int row, int col) {
+        int letter = letter(row, col);
+        return letter == 0 ? 0 : (char) ('A' + letter - 1);
+    }
+
+    /**
+     * @return the tile on a square as written in text, lower case for a blank tile, 0 if it is empty
+     */
+    public char tileAt(int row, int col) {
+        byte tile = squares[row * SIZE + col];
+        return tile == 0 ? 0 : TILES[tile].charAt(0);
+    }
+
+    public boolean isBlank(int square) {
+        return (squares[square] & BLANK) != 0;
+    }
+
+    public boolean isEmpty(int square) {
+        return squares[square] == 0;
+    }
+
+    public boolean isEmpty(int row, int col) {
+        return squares[row * SIZE + col] == 0;
+    }
+
+    /**
+     * @return true if the square is on the board and has a tile
+     */
+    public boolean isOccupied(int row, int col) {
+        return row >= 0 && row < SIZE && col >= 0 && col < SIZE && squares[row * SIZE + col] != 0;
+    }
+
+    /**
+     * @return true if there is no tile on the board
+     */
+    public boolean isEmpty() {
+        return occupancy.isEmpty();
+    }
+
+    /**
+     * @return the squares with a tile
+     */
+    public Occupancy occupancy() {
+        return occupancy;
+    }
+
+    /**
+     * @return the squares with a tile on this board that are empty on an earlier board
+     */
+    public Occupancy newTilesSince(Board earlier) {
+        return occupancy.andNot(earlier.occupancy);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Board)) return false;
+        Board other = (Board) o;
+        return occupancy.equals(other.occupancy) && Arrays.equals(squares, other.squares);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(squares);
+    }
+
+    @Override
+    public String toString() {
+        return toStateString();
+    }
+}
@@ -0,0 +1,239 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import ch.uzh.ifi.hase.soprafs24.lexicon.DawgLexicon;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Cross Checks
+ * For every empty square of a board, the letters (as 26 bit mask, bit 0 = A) that form a valid
+ * perpendicular word with the tiles directly next to it, for horizontal and for vertical moves,
+ * along with the anchor squares a move has to touch. Built once per game and then updated
+ * with every accepted move, which only touches the squares at the ends of the lines through
+ * the placed tiles. Squares are indexed row * 15 + col, letters are 1-26.
+ */
+public final class CrossChecks {
+
+    public static final int SIZE = 15;
+    public static final int CENTER = 7 * SIZE + 7;
+    public static final int ALL_LETTERS = (1 << 26) - 1;
+
+    private final DawgLexicon lexicon;
+    private final Ruleset ruleset;
+    // the tiles as stored on a Board: letter 1-26, with the blank bit for blank tiles
+    private final byte[] squares;
+    private final BitSet anchors;
+    // index 0 for horizontal moves (checked against vertical words), 1 for vertical moves
+    private final int[][] checks;
+    // points of the perpendicular tiles, -1 where no perpendicular word would be formed
+    private final int[][] scores;
+    private int tileCount;
+
+    private CrossChecks(DawgLexicon lexicon, Ruleset ruleset, byte[] squares, BitSet anchors, int[][] checks, int[][] scores, int tileCount) {
+        this.lexicon = lexicon;
+        this.ruleset = ruleset;
+        this.squares = squares;
+        this.anchors = anchors;
+        this.checks = checks;
+        this.scores = scores;
+        this.tileCount = tileCount;
+    }
+
+    /**
+     * Computes the cross-checks of a whole board
+     */
+    public static CrossChecks of(Board board, DawgLexicon lexicon) {
+        return of(board, lexicon, Ruleset.STANDARD);
+    }
+
+    /**
+     * Computes the cross-checks of a whole board, scoring the perpendicular tiles with a ruleset
+     */
+    public static CrossChecks of(Board board, DawgLexicon lexicon, Ruleset ruleset) {
+        CrossChecks crossChecks = new CrossChecks(lexicon, ruleset, new byte[SIZE * SIZE], new BitSet(SIZE * SIZE),
+                new int[2][SIZE * SIZE], new int[2][SIZE * SIZE], 0);
+        for (int square = 0; square < SIZE * SIZE; square++) {
+            if (!board.isEmpty(square)) {
+                crossChecks.squares[square] = (byte) board.tile(square);
+                crossChecks.tileCount++;
+            }
+        }
+        for (int square = 0; square < SIZE * SIZE; square++) {
+            crossChecks.update(square);
+        }
+        return crossChecks;
+    }
+
+    /**
+     * Puts the tiles of an accepted move on the board, in O(tiles placed)
+     */
+    public synchronized void place(Collection<Placement> placements) {
+        for (Placement placement : placements) {
+            int square = placement.getRow() * SIZE + placement.getCol();
+            if (squares[square] == 0) tileCount++;
+            squares[square] = Board.encode(placement.getLetter());
+        }
+        for (Placement placement : placements) {
+            int row = placement.getRow();
+            int col = placement.getCol();
+            update(row * SIZE + col);
+            // only the empty squares closing the lines through the new tile see a different word
+            updateLineEnds(row, col, 1, 0);
+            updateLineEnds(row, col, 0, 1);
+        }
+    }
+
+    /**
+     * A copy that is not affected by later moves
+     */
+    public synchronized CrossChecks copy() {
+        return new CrossChecks(lexicon, ruleset, squares.clone(), (BitSet) anchors.clone(),
+                new int[][]{checks[0].clone(), checks[1].clone()},
+                new int[][]{scores[0].clone(), scores[1].clone()}, tileCount);
+    }
+
+    /**
+     * The letter values and premium squares the cross scores were computed with
+     */
+    public Ruleset ruleset() {
+        return ruleset;
+    }
+
+    public synchronized boolean isEmpty() {
+        return tileCount == 0;
+    }
+
+    /**
+     * @return the letter on a square (1-26), 0 if it is empty
+     */
+    public synchronized int letter(int square) {
+        return squares[square] & Board.LETTER_MASK;
+    }
+
+    /**
+     * @return the points of the tile on a square, 0 for a blank tile or an empty square
+     */
+    public synchronized int points(int square) {
+        return ruleset.points(squares[square]);
+    }
+
+    /**
+     * Whether a move has to touch this square to connect to the tiles on the board,
+     * on an empty board only the center square is an anchor
+     */
+    public synchronized boolean isAnchor(int square) {
+        return tileCount == 0 ? square == CENTER : anchors.get(square);
+    }
+
+    /**
+     * @return the letters that may be put on an empty square by a horizontal or vertical move
+     */
+    public synchronized int crossCheck(int square, boolean horizontal) {
+        return checks[horizontal ? 0 : 1][square];
+    }
+
+    /**
+     * @return the points of the tiles of the perpendicular word through an empty square,
+     *         -1 if putting a tile there forms no perpendicular word
+     */
+    public synchronized int crossScore(int square, boolean horizontal) {
+        return scores[horizontal ? 0 : 1][square];
+    }
+
+    public boolean allows(int square, int letter, boolean horizontal) {
+        return (crossCheck(square, horizontal) & (1 << (letter - 1))) != 0;
+    }
+
+    private void updateLineEnds(int row, int col, int dRow, int dCol) {
+        int r = row;
+        int c = col;
+        while (occupied(r - dRow, c - dCol)) {
+            r -= dRow;
+            c -= dCol;
+        }
+        if (inBounds(r - dRow, c - dCol)) update((r - dRow) * SIZE + c - dCol);
+
+        r = row;
+        c = col;
+        while (occupied(r + dRow, c + dCol)) {
+            r += dRow;
+            c += dCol;
+        }
+        if (inBounds(r + dRow, c + dCol)) update((r + dRow) * SIZE + c + dCol);
+    }
+
+    private void update(int square) {
+        int row = square / SIZE;
+        int col = square % SIZE;
+        if (squares[square] != 0) {
+            anchors.clear(square);
+            checks[0][square] = checks[1][square] = 0;
+            scores[0][square] = scores[1][square] = -1;
+            return;
+        }
+        anchors.set(square, occupied(row - 1, col) || occupied(row + 1, col)
+                || occupied(row, col - 1) || occupied(row, col + 1));
+        // horizontal moves form vertical cross words and the other way round
+        compute(square, 1, 0, 0);
+        compute(square, 0, 1, 1);
+    }
+
+    private void compute(int square, int dRow, int dCol, int direction) {
+        int row = square / SIZE;
+        int col = square % SIZE;
+        if (!occupied(row - dRow, col - dCol) && !occupied(row + dRow, col + dCol)) {
+            checks[direction][square] = ALL_LETTERS;
+            scores[direction][square] = -1;
+            return;
+        }
+
+        int points = 0;
+        int r = row;
+        int c = col;
+        while (occupied(r - dRow, c - dCol)) {
+            r -= dRow;
+            c -= dCol;
+        }
+        int node = lexicon.root();
+        for (; r != row || c != col; r += dRow, c += dCol) {
+            byte tile = squares[r * SIZE + c];
+            points += ruleset.points(tile);
+            int edge = lexicon.edge(node, tile & Board.LETTER_MASK);
+            node = edge == 0 ? 0 : DawgLexicon.targetOf(edge);
+        }
+        int suffixLength = 0;
+        for (r = row + dRow, c = col + dCol; occupied(r, c); r += dRow, c += dCol) {
+            points += ruleset.points(squares[r * SIZE + c]);
+            suffixLength++;
+        }
+        scores[direction][square] = points;
+
+        int mask = 0;
+        for (int i = node; node != 0; i++) {
+            int edge = lexicon.edgeAt(i);
+            if (endsWord(edge, row + dRow, col + dCol, dRow, dCol, suffixLength)) {
+                mask |= 1 << (DawgLexicon.letterOf(edge) - 1);
+            }
+            if (DawgLexicon.isLast(edge)) break;
+        }
+        checks[direction][square] = mask;
+    }
+
+    // whether following the tiles after edge ends on a word
+    private boolean endsWord(int edge, int row, int col, int dRow, int dCol, int length) {
+        for (int i = 0; i < length; i++, row += dRow, col += dCol) {
+            edge = lexicon.edge(DawgLexicon.targetOf(edge), squares[row * SIZE + col] & Board.LETTER_MASK);
+            if (edge == 0) return false;
+        }
+        return DawgLexicon.isTerminal(edge);
+    }
+
+    private boolean occupied(int row, int col) {
+        return inBounds(row, col) && squares[row * SIZE + col] != 0;
+    }
+
+    private static boolean inBounds(int row, int col) {
+        return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
+    }
+}
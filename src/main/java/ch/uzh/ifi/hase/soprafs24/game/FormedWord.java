@@ -0,0 +1,38 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+/**
+ * Formed Word
+ * A word formed by a move: its letters, the square of its first letter, its direction
+ * and the points it scores
+ */
+public final class FormedWord {
+
+    private final String word;
+    private final int row;
+    private final int col;
+    private final boolean horizontal;
+    private final int score;
+
+    public FormedWord(String word, int row, int col, boolean horizontal, int score) {
+        this.word = word;
+        this.row = row;
+        this.col = col;
+        this.horizontal = horizontal;
+        this.score = score;
+    }
+
+    public String getWord() { return word; }
+
+    public int getRow() { return row; }
+
+    public int getCol() { return col; }
+
+    public boolean isHorizontal() { return horizontal; }
+
+    public int getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return word + "@" + row + "," + col + (horizontal ? " across" : " down") + " (" + score + ")";
+    }
+}
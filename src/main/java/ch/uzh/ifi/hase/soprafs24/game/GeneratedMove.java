@@ -0,0 +1,45 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import java.util.List;
+
+/**
+ * Generated Move
+ * A legal move found by the move generator: the tiles to place, the words it forms
+ * (main word first) and the score it would be awarded on submission
+ */
+public final class GeneratedMove {
+
+    private final List<Placement> placements;
+    private final boolean horizontal;
+    private final List<String> words;
+    private final int score;
+
+    public GeneratedMove(List<Placement> placements, boolean horizontal, List<String> words, int score) {
+        this.placements = List.copyOf(placements);
+        this.horizontal = horizontal;
+        this.words = List.copyOf(words);
+        this.score = score;
+    }
+
+    public List<Placement> getPlacements() { return placements; }
+
+    public boolean isHorizontal() { return horizontal; }
+
+    public List<String> getWords() { return words; }
+
+    public String getMainWord() { return words.get(0); }
+
+    public int getScore() { return score; }
+
+    /**
+     * @return the board with the tiles of this move placed
+     */
+    public Board applyTo(Board board) {
+        return board.with(placements);
+    }
+
+    @Override
+    public String toString() {
+        return getMainWord() + " " + placements + " (" + score + ")";
+    }
+}
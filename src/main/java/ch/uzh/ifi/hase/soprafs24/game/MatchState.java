@@ -0,0 +1,190 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import ch.uzh.ifi.hase.soprafs24.constant.LetterCount;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Match State
+ * The per-game state that changes with every move: the tile bag, the rack and score of every player
+ * and whose turn it is. It is stored as one string so that loading or saving a game reads or writes
+ * a single row, see {@link #toStateString()} for the layout.
+ * The bag is shuffled with a generator seeded per game whose state is stored along with it, so the
+ * tiles drawn in a game follow from its seed and its moves alone.
+ */
+public final class MatchState implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int BAG_CAPACITY = LetterCount.INITIAL_LETTER_COUNTS.values().stream().mapToInt(Integer::intValue).sum();
+
+    private static final char VERSION = '2';
+    private static final char SEPARATOR = '|';
+    private static final String NOT_SHUFFLED = "*";
+
+    private final long seed;
+    private final SplitMix64 random;
+    // null for a full bag that is not shuffled yet
+    private TileBag bag;
+    private final Map<Long, Integer> scores = new LinkedHashMap<>();
+    private final Map<Long, String> racks = new LinkedHashMap<>();
+    private boolean hostTurn = true;
+
+    public MatchState() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    public MatchState(long seed) {
+        this(seed, seed);
+    }
+
+    private MatchState(long seed, long randomState) {
+        this.seed = seed;
+        this.random = new SplitMix64(randomState);
+    }
+
+    public long getSeed() { return seed; }
+
+    // the generator of this game, use it for everything that decides which tiles are drawn
+    public RandomGenerator getRandom() { return random; }
+
+    public TileBag getBag() { return bag; }
+    public void setBag(TileBag bag) { this.bag = bag; }
+
+    public boolean isHostTurn() { return hostTurn; }
+    public void setHostTurn(boolean hostTurn) { this.hostTurn = hostTurn; }
+
+    public String getRack(Long playerId) { return racks.get(playerId); }
+    public void setRack(Long playerId, String rack) { racks.put(playerId, rack); }
+
+    public void addScore(Long playerId, int points) {
+        scores.merge(playerId, points, Integer::sum);
+    }
+
+    public Map<Long, Integer> getScores() {
+        return Collections.unmodifiableMap(scores);
+    }
+
+    /**
+     * Writes the state as {@code 2|seed|random|H|bag|n|id:score|...|m|id:length:rack|...}:
+     * the layout version, the seed of the game and the current state of its generator,
+     * H or G for whose turn it is, the bag as in {@link TileBag#toStateString()}
+     * or * when not shuffled yet, then the number of scores and the scores, then the number of racks
+     * and the racks. A rack is prefixed with its length so it may hold any character.
+     */
+    public String toStateString() {
+        StringBuilder state = new StringBuilder(32 + BAG_CAPACITY);
+        state.append(VERSION).append(SEPARATOR)
+                .append(seed).append(SEPARATOR)
+                .append(random.getState()).append(SEPARATOR)
+                .append(hostTurn ? 'H' : 'G').append(SEPARATOR)
+                .append(bag == null ? NOT_SHUFFLED : bag.toStateString()).append(SEPARATOR)
+                .append(scores.size());
+        for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+            state.append(SEPARATOR).append(score.getKey()).append(':').append(score.getValue());
+        }
+        state.append(SEPARATOR).append(racks.size());
+        for (Map.Entry<Long, String> rack : racks.entrySet()) {
+            String tiles = rack.getValue() == null ? "" : rack.getValue();
+            state.append(SEPARATOR).append(rack.getKey()).append(':').append(tiles.length()).append(':').append(tiles);
+        }
+        return state.toString();
+    }
+
+    /**
+     * Reads a state written by {@link #toStateString()}
+     * @throws IllegalArgumentException if the string is not a valid state
+     */
+    public static MatchState fromStateString(String state) {
+        try {
+            Reader reader = new Reader(state);
+            if (!reader.next(SEPARATOR).equals(String.valueOf(VERSION))) {
+                throw new IllegalArgumentException("Unknown match state version");
+            }
+            long seed = Long.parseLong(reader.next(SEPARATOR));
+            MatchState matchState = new MatchState(seed, Long.parseLong(reader.next(SEPARATOR)));
+            matchState.hostTurn = switch (reader.next(SEPARATOR)) {
+                case "H" -> true;
+                case "G" -> false;
+                default -> throw new IllegalArgumentException("Invalid turn");
+            };
+            String bag = reader.next(SEPARATOR);
+            matchState.bag = bag.equals(NOT_SHUFFLED) ? null : TileBag.fromStateString(bag, BAG_CAPACITY);
+            int scoreCount = Integer.parseInt(reader.next(SEPARATOR));
+            for (int i = 0; i < scoreCount; i++) {
+                long playerId = Long.parseLong(reader.next(':'));
+                matchState.scores.put(playerId, Integer.parseInt(reader.next(SEPARATOR)));
+            }
+            int rackCount = Integer.parseInt(reader.next(SEPARATOR));
+            for (int i = 0; i < rackCount; i++) {
+                long playerId = Long.parseLong(reader.next(':'));
+                int length = Integer.parseInt(reader.next(':'));
+                matchState.racks.put(playerId, reader.take(length));
+                reader.skip(SEPARATOR);
+            }
+            reader.end();
+            return matchState;
+        }
+        catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid match state", e);
+        }
+    }
+
+    // two states are equal if they are stored the same, Hibernate relies on this to tell whether to write the column
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof MatchState other && toStateString().equals(other.toStateString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toStateString().hashCode();
+    }
+
+    private static final class Reader {
+
+        private final String state;
+        private int position;
+
+        Reader(String state) {
+            this.state = state;
+        }
+
+        // the text up to the next separator or the end, the separator is skipped
+        String next(char separator) {
+            int end = state.indexOf(separator, position);
+            if (end < 0) {
+                end = state.length();
+            }
+            String token = state.substring(position, end);
+            position = Math.min(end + 1, state.length() + 1);
+            return token;
+        }
+
+        String take(int length) {
+            String token = state.substring(position, position + length);
+            position += length;
+            return token;
+        }
+
+        void skip(char separator) {
+            if (position < state.length()) {
+                if (state.charAt(position) != separator) {
+                    throw new IllegalArgumentException("Invalid match state");
+                }
+                position++;
+            }
+        }
+
+        void end() {
+            if (position < state.length()) {
+                throw new IllegalArgumentException("Invalid match state");
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Move Result
+ * The tiles placed by a move and the words they form with their squares and scores, main word first followed by the
+ * perpendicular word of every new tile that forms one, in board order. Built by
+ * {@link #evaluate}, which walks the main line and each perpendicular line once and scores
+ * the letters as it reads them.
+ */
+public final class MoveResult {
+
+    private static final int SIZE = Board.SIZE;
+
+    private final List<Placement> placements;
+    private final List<FormedWord> formedWords;
+    private final int score;
+
+    public MoveResult(List<Placement> placements, List<FormedWord> formedWords) {
+        this.placements = List.copyOf(placements);
+        this.formedWords = List.copyOf(formedWords);
+        this.score = formedWords.stream().mapToInt(FormedWord::getScore).sum();
+    }
+
+    /**
+     * Reads and scores the words formed by new tiles on a board. Premium squares count for the
+     * new tiles only, blank tiles score nothing.
+     * @param oldBoard the board before the move
+     * @param newBoard the board with the new tiles placed
+     * @param newPositions the squares of the new tiles in board order, in one row or column
+     */
+    public static MoveResult evaluate(Board oldBoard, Board newBoard, List<int[]> newPositions) {
+        return evaluate(Ruleset.STANDARD, oldBoard, newBoard, newPositions);
+    }
+
+    /**
+     * Reads and scores the words formed by new tiles with the letter values and premium squares of a ruleset
+     */
+    public static MoveResult evaluate(Ruleset ruleset, Board oldBoard, Board newBoard, List<int[]> newPositions) {
+        boolean horizontal = newPositions.stream().allMatch(pos -> pos[0] == newPositions.get(0)[0]);
+        List<Placement> placements = new ArrayList<>(newPositions.size());
+        List<FormedWord> words = new ArrayList<>(newPositions.size() + 1);
+
+        int[] first = newPositions.get(0);
+        FormedWord mainWord = readWord(ruleset, oldBoard, newBoard, first[0], first[1], horizontal);
+        if (mainWord != null) {
+            words.add(mainWord);
+        }
+        for (int[] pos : newPositions) {
+            placements.add(new Placement(pos[0], pos[1], newBoard.tileAt(pos[0], pos[1])));
+            FormedWord crossWord = readWord(ruleset, oldBoard, newBoard, pos[0], pos[1], !horizontal);
+            if (crossWord != null) {
+                words.add(crossWord);
+            }
+        }
+        return new MoveResult(placements, words);
+    }
+
+    // the word through a square in one direction, null if it is a single letter
+    private static FormedWord readWord(Ruleset ruleset, Board oldBoard, Board newBoard, int row, int col, boolean horizontal) {
+        int dRow = horizontal ? 0 : 1;
+        int dCol = horizontal ? 1 : 0;
+        while (newBoard.isOccupied(row - dRow, col - dCol)) {
+            row -= dRow;
+            col -= dCol;
+        }
+
+        char[] letters = new char[SIZE];
+        int length = 0;
+        int points = 0;
+        int wordMultiplier = 1;
+        for (int r = row, c = col; newBoard.isOccupied(r, c); r += dRow, c += dCol) {
+            int square = r * SIZE + c;
+            int tile = newBoard.tile(square);
+            letters[length++] = (char) ('A' + (tile & Board.LETTER_MASK) - 1);
+            int letterPoints = ruleset.points(tile);
+            if (oldBoard.isEmpty(square)) {
+                letterPoints *= ruleset.letterMultiplier(square);
+                wordMultiplier *= ruleset.wordMultiplier(square);
+            }
+            points += letterPoints;
+        }
+        if (length < 2) {
+            return null;
+        }
+        return new FormedWord(new String(letters, 0, length), row, col, horizontal, points * wordMultiplier);
+    }
+
+    /**
+     * @return the new tiles in board order, blank tiles in lower case
+     */
+    public List<Placement> getPlacements() { return placements; }
+
+    public List<FormedWord> getFormedWords() { return formedWords; }
+
+    /**
+     * @return the words as text, main word first
+     */
+    public List<String> getWords() {
+        List<String> words = new ArrayList<>(formedWords.size());
+        for (FormedWord formedWord : formedWords) {
+            words.add(formedWord.getWord());
+        }
+        return words;
+    }
+
+    public boolean isEmpty() { return formedWords.isEmpty(); }
+
+    public int getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return formedWords + " = " + score;
+    }
+}
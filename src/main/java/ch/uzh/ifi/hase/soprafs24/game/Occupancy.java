@@ -0,0 +1,272 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Occupancy
+ * A set of squares as a 225 bit bitboard in four longs, bit row * 15 + col. Used for the
+ * placement rules of a move (empty board, straight line, gaps and adjacency), which become a
+ * few shifts and masks instead of scanning the board. Instances are immutable.
+ */
+public final class Occupancy implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int SIZE = Board.SIZE;
+    private static final int WORDS = 4;
+    // the last word only holds the squares 192-224
+    private static final long LAST_WORD_MASK = (1L << (Board.SQUARES - 3 * 64)) - 1;
+
+    public static final Occupancy EMPTY = new Occupancy(new long[WORDS]);
+
+    private static final Occupancy[] ROWS = new Occupancy[SIZE];
+    private static final Occupancy[] COLUMNS = new Occupancy[SIZE];
+    private static final Occupancy NOT_FIRST_COLUMN;
+    private static final Occupancy NOT_LAST_COLUMN;
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            long[] row = new long[WORDS];
+            long[] column = new long[WORDS];
+            for (int j = 0; j < SIZE; j++) {
+                set(row, i * SIZE + j);
+                set(column, j * SIZE + i);
+            }
+            ROWS[i] = new Occupancy(row);
+            COLUMNS[i] = new Occupancy(column);
+        }
+        NOT_FIRST_COLUMN = all().andNot(COLUMNS[0]);
+        NOT_LAST_COLUMN = all().andNot(COLUMNS[SIZE - 1]);
+    }
+
+    private final long[] words;
+
+    private Occupancy(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Builds an occupancy by setting squares one after the other, the builder must not be used
+     * after {@link #build()}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static Occupancy of(int... squares) {
+        Builder builder = builder();
+        for (int square : squares) {
+            builder.set(square);
+        }
+        return builder.build();
+    }
+
+    private static Occupancy all() {
+        long[] words = new long[WORDS];
+        Arrays.fill(words, -1L);
+        words[WORDS - 1] = LAST_WORD_MASK;
+        return new Occupancy(words);
+    }
+
+    private static void set(long[] words, int square) {
+        words[square >>> 6] |= 1L << square;
+    }
+
+    public boolean contains(int square) {
+        return (words[square >>> 6] & (1L << square)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return (words[0] | words[1] | words[2] | words[3]) == 0;
+    }
+
+    public int size() {
+        return Long.bitCount(words[0]) + Long.bitCount(words[1]) + Long.bitCount(words[2]) + Long.bitCount(words[3]);
+    }
+
+    /**
+     * @return the lowest square in the set, -1 if it is empty
+     */
+    public int first() {
+        for (int i = 0; i < WORDS; i++) {
+            if (words[i] != 0) return i * 64 + Long.numberOfTrailingZeros(words[i]);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the highest square in the set, -1 if it is empty
+     */
+    public int last() {
+        for (int i = WORDS - 1; i >= 0; i--) {
+            if (words[i] != 0) return i * 64 + 63 - Long.numberOfLeadingZeros(words[i]);
+        }
+        return -1;
+    }
+
+    /**
+     * @return the next square in the set starting at from, -1 if there is none
+     */
+    public int next(int from) {
+        if (from >= Board.SQUARES) return -1;
+        int i = from >>> 6;
+        long word = words[i] & (-1L << from);
+        while (true) {
+            if (word != 0) return i * 64 + Long.numberOfTrailingZeros(word);
+            if (++i == WORDS) return -1;
+            word = words[i];
+        }
+    }
+
+    public Occupancy and(Occupancy other) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) result[i] = words[i] & other.words[i];
+        return new Occupancy(result);
+    }
+
+    public Occupancy or(Occupancy other) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) result[i] = words[i] | other.words[i];
+        return new Occupancy(result);
+    }
+
+    public Occupancy andNot(Occupancy other) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) result[i] = words[i] & ~other.words[i];
+        return new Occupancy(result);
+    }
+
+    public boolean intersects(Occupancy other) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((words[i] & other.words[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    public boolean containsAll(Occupancy other) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((other.words[i] & ~words[i]) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the squares directly above, below, left or right of a square in the set
+     */
+    public Occupancy neighbours() {
+        long[] result = new long[WORDS];
+        long[] right = shiftUp(1);
+        long[] left = shiftDown(1);
+        long[] below = shiftUp(SIZE);
+        long[] above = shiftDown(SIZE);
+        for (int i = 0; i < WORDS; i++) {
+            // a shift by one wraps around the row ends, those squares are masked out
+            result[i] = (right[i] & NOT_FIRST_COLUMN.words[i]) | (left[i] & NOT_LAST_COLUMN.words[i])
+                    | below[i] | above[i];
+        }
+        return new Occupancy(result);
+    }
+
+    /**
+     * Whether all squares are in one row, true for an empty set
+     */
+    public boolean isInOneRow() {
+        return isEmpty() || ROWS[first() / SIZE].containsAll(this);
+    }
+
+    /**
+     * Whether all squares are in one column, true for an empty set
+     */
+    public boolean isInOneColumn() {
+        return isEmpty() || COLUMNS[first() % SIZE].containsAll(this);
+    }
+
+    /**
+     * The squares of the line from the first to the last square of a set in one row or column,
+     * those a single word through all of them has to cover
+     */
+    public Occupancy span() {
+        if (isEmpty()) return EMPTY;
+        int first = first();
+        int last = last();
+        long[] range = new long[WORDS];
+        for (int i = first >>> 6; i <= last >>> 6; i++) {
+            int from = Math.max(first, i * 64);
+            int to = Math.min(last, i * 64 + 63);
+            range[i] = (-1L << from) & (-1L >>> (63 - (to & 63)));
+        }
+        Occupancy span = new Occupancy(range);
+        return first / SIZE == last / SIZE ? span : span.and(COLUMNS[first % SIZE]);
+    }
+
+    // moves every square n squares forward, dropping those beyond the last square
+    private long[] shiftUp(int n) {
+        long[] result = new long[WORDS];
+        for (int i = WORDS - 1; i >= 0; i--) {
+            result[i] = (words[i] << n) | (i > 0 ? words[i - 1] >>> (64 - n) : 0);
+        }
+        result[WORDS - 1] &= LAST_WORD_MASK;
+        return result;
+    }
+
+    // moves every square n squares back, dropping those before the first square
+    private long[] shiftDown(int n) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = (words[i] >>> n) | (i < WORDS - 1 ? words[i + 1] << (64 - n) : 0);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Occupancy)) return false;
+        return Arrays.equals(words, ((Occupancy) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder squares = new StringBuilder("[");
+        for (int square = first(); square >= 0; square = next(square + 1)) {
+            if (squares.length() > 1) squares.append(", ");
+            squares.append(square / SIZE).append(',').append(square % SIZE);
+        }
+        return squares.append(']').toString();
+    }
+
+    public static final class Builder {
+
+        private long[] words = new long[WORDS];
+
+        private Builder() {
+        }
+
+        public Builder set(int square) {
+            if (square < 0 || square >= Board.SQUARES) {
+                throw new IllegalArgumentException("Square " + square + " is not on the board");
+            }
+            Occupancy.set(words, square);
+            return this;
+        }
+
+        public Builder set(int row, int col) {
+            if (row < 0 || row >= SIZE || col < 0 || col >= SIZE) {
+                throw new IllegalArgumentException("Square " + row + "," + col + " is not on the board");
+            }
+            return set(row * SIZE + col);
+        }
+
+        public Occupancy build() {
+            Occupancy occupancy = new Occupancy(words);
+            words = null;
+            return occupancy;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import java.util.Objects;
+
+/**
+ * Placement
+ * A single tile put on the board by a move
+ */
+public final class Placement {
+
+    private final int row;
+    private final int col;
+    private final char letter;
+
+    public Placement(int row, int col, char letter) {
+        this.row = row;
+        this.col = col;
+        this.letter = letter;
+    }
+
+    public int getRow() { return row; }
+
+    public int getCol() { return col; }
+
+    public char getLetter() { return letter; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Placement)) return false;
+        Placement other = (Placement) o;
+        return row == other.row && col == other.col && letter == other.letter;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(row, col, letter);
+    }
+
+    @Override
+    public String toString() {
+        return letter + "@" + row + "," + col;
+    }
+}
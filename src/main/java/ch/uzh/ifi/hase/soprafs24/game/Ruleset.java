@@ -0,0 +1,106 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import ch.uzh.ifi.hase.soprafs24.constant.BoardStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.LetterPoints;
+import ch.uzh.ifi.hase.soprafs24.constant.Premium;
+
+import java.util.Arrays;
+
+/**
+ * Ruleset
+ * The letter values and premium squares used for scoring, kept as plain arrays so the scoring
+ * loops only index into them. Letter values are indexed by the tile as stored on a {@link Board}
+ * (letter 1-26, blank tiles score nothing), premiums by square row * 15 + col.
+ */
+public final class Ruleset {
+
+    private static final Premium[] PREMIUMS = Premium.values();
+    private static final int[] LETTER_MULTIPLIERS = new int[PREMIUMS.length];
+    private static final int[] WORD_MULTIPLIERS = new int[PREMIUMS.length];
+
+    static {
+        for (Premium premium : PREMIUMS) {
+            LETTER_MULTIPLIERS[premium.ordinal()] = premium.getLetterMultiplier();
+            WORD_MULTIPLIERS[premium.ordinal()] = premium.getWordMultiplier();
+        }
+    }
+
+    /**
+     * The standard board and letter values
+     */
+    public static final Ruleset STANDARD = standard();
+
+    private final int[] points;
+    private final byte[] premiums;
+
+    private Ruleset(int[] points, byte[] premiums) {
+        this.points = points;
+        this.premiums = premiums;
+    }
+
+    /**
+     * @param letterPoints the value of every letter, index 0 = A
+     * @param premiums the premium of every square, row * 15 + col
+     */
+    public static Ruleset of(int[] letterPoints, Premium[] premiums) {
+        if (letterPoints.length != 26) {
+            throw new IllegalArgumentException("Expected 26 letter values but got " + letterPoints.length);
+        }
+        if (premiums.length != Board.SQUARES) {
+            throw new IllegalArgumentException("Expected " + Board.SQUARES + " premiums but got " + premiums.length);
+        }
+        // blank tiles index past the plain letters and keep their 0 points
+        int[] points = new int[Board.BLANK + 27];
+        System.arraycopy(letterPoints, 0, points, 1, 26);
+        byte[] ordinals = new byte[Board.SQUARES];
+        for (int square = 0; square < Board.SQUARES; square++) {
+            ordinals[square] = (byte) premiums[square].ordinal();
+        }
+        return new Ruleset(points, ordinals);
+    }
+
+    private static Ruleset standard() {
+        int[] letterPoints = new int[26];
+        for (int letter = 0; letter < 26; letter++) {
+            letterPoints[letter] = LetterPoints.getPoints((char) ('A' + letter));
+        }
+        Premium[] premiums = new Premium[Board.SQUARES];
+        for (int square = 0; square < Board.SQUARES; square++) {
+            premiums[square] = Premium.fromCode(BoardStatus.getMultiplier(square / Board.SIZE, square % Board.SIZE));
+        }
+        return of(letterPoints, premiums);
+    }
+
+    /**
+     * @param tile a tile as stored on a board, letter 1-26 with the blank bit for blank tiles
+     * @return the value of the tile, 0 for a blank tile
+     */
+    public int points(int tile) {
+        return points[tile];
+    }
+
+    public Premium premium(int square) {
+        return PREMIUMS[premiums[square]];
+    }
+
+    public int letterMultiplier(int square) {
+        return LETTER_MULTIPLIERS[premiums[square]];
+    }
+
+    public int wordMultiplier(int square) {
+        return WORD_MULTIPLIERS[premiums[square]];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Ruleset)) return false;
+        Ruleset other = (Ruleset) o;
+        return Arrays.equals(points, other.points) && Arrays.equals(premiums, other.premiums);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(points) + Arrays.hashCode(premiums);
+    }
+}
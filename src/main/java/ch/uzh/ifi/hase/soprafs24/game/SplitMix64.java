@@ -0,0 +1,35 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import java.io.Serializable;
+import java.util.random.RandomGenerator;
+
+/**
+ * SplitMix64
+ * The generator behind {@link java.util.SplittableRandom}, but with its single long of state readable so
+ * that it can be stored with a game and picked up where it left off. Not thread safe, every game has its own.
+ * The same seed always gives the same numbers, which makes tile draws reproducible.
+ */
+public final class SplitMix64 implements RandomGenerator, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long state;
+
+    public SplitMix64(long state) {
+        this.state = state;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
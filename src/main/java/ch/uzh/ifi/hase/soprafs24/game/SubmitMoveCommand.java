@@ -0,0 +1,46 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import java.util.List;
+
+/**
+ * Submit Move Command
+ * Everything a submitted move changes in a game: the tiles played, sent either as placements or as
+ * the whole board after the move, and the tiles the player has left in hand to refill the rack from
+ */
+public final class SubmitMoveCommand {
+
+    private final Long gameId;
+    private final Long playerId;
+    // exactly one of the two is set
+    private final List<Placement> placements;
+    private final Board board;
+    private final String[] tilesLeftInHand;
+
+    private SubmitMoveCommand(Long gameId, Long playerId, List<Placement> placements, Board board, String[] tilesLeftInHand) {
+        this.gameId = gameId;
+        this.playerId = playerId;
+        this.placements = placements;
+        this.board = board;
+        this.tilesLeftInHand = tilesLeftInHand == null ? new String[0] : tilesLeftInHand.clone();
+    }
+
+    public static SubmitMoveCommand withPlacements(Long gameId, Long playerId, List<Placement> placements, String[] tilesLeftInHand) {
+        return new SubmitMoveCommand(gameId, playerId, List.copyOf(placements), null, tilesLeftInHand);
+    }
+
+    public static SubmitMoveCommand withBoard(Long gameId, Long playerId, Board board, String[] tilesLeftInHand) {
+        return new SubmitMoveCommand(gameId, playerId, null, board, tilesLeftInHand);
+    }
+
+    public Long getGameId() { return gameId; }
+
+    public Long getPlayerId() { return playerId; }
+
+    public boolean hasPlacements() { return placements != null; }
+
+    public List<Placement> getPlacements() { return placements; }
+
+    public Board getBoard() { return board; }
+
+    public String[] getTilesLeftInHand() { return tilesLeftInHand.clone(); }
+}
@@ -0,0 +1,37 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import java.util.Map;
+
+/**
+ * Submitted Move
+ * The outcome of a {@link SubmitMoveCommand}: the scored move, the board it was applied to,
+ * the refilled rack of the player, the scores after the move and the player now at turn
+ */
+public final class SubmittedMove {
+
+    private final MoveResult move;
+    private final Board board;
+    private final String[] rack;
+    private final Map<Long, Integer> scores;
+    private final Long nextPlayerId;
+
+    public SubmittedMove(MoveResult move, Board board, String[] rack, Map<Long, Integer> scores, Long nextPlayerId) {
+        this.move = move;
+        this.board = board;
+        this.rack = rack.clone();
+        this.scores = Map.copyOf(scores);
+        this.nextPlayerId = nextPlayerId;
+    }
+
+    public MoveResult getMove() { return move; }
+
+    public int getScore() { return move.getScore(); }
+
+    public Board getBoard() { return board; }
+
+    public String[] getRack() { return rack.clone(); }
+
+    public Map<Long, Integer> getScores() { return scores; }
+
+    public Long getNextPlayerId() { return nextPlayerId; }
+}
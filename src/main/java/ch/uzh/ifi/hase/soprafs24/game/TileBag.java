@@ -0,0 +1,155 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Tile Bag
+ * The tiles not yet drawn, kept shuffled in a byte[] so drawing is taking the last tile, O(1) and
+ * with every remaining tile equally likely (an E is 12 times as likely as a Z in a full bag).
+ * Tiles put back are shuffled in with a partial Fisher-Yates pass over the returned tiles only.
+ * The count of every letter is kept up to date for looking up how many are left.
+ * Letters are stored as 1-26 like on a {@link Board}.
+ */
+public final class TileBag implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] tiles;
+    private final int[] counts = new int[27];
+    // tiles[0..size) are in the bag, the last one is drawn next
+    private int size;
+
+    private TileBag(byte[] tiles, int size) {
+        this.tiles = tiles;
+        this.size = size;
+        for (int i = 0; i < size; i++) {
+            counts[tiles[i]]++;
+        }
+    }
+
+    /**
+     * A shuffled bag with the given number of tiles of every letter
+     */
+    public static TileBag shuffled(Map<Character, Integer> letterCounts, RandomGenerator random) {
+        int total = 0;
+        for (int count : letterCounts.values()) {
+            total += Math.max(0, count);
+        }
+        byte[] tiles = new byte[total];
+        int size = 0;
+        // sorted so that the same seed always gives the same bag
+        for (Map.Entry<Character, Integer> entry : new TreeMap<>(letterCounts).entrySet()) {
+            byte letter = Board.encode(entry.getKey());
+            if ((letter & Board.BLANK) != 0) {
+                throw new IllegalArgumentException("Invalid tile '" + entry.getKey() + "'");
+            }
+            for (int i = 0; i < entry.getValue(); i++) {
+                tiles[size++] = letter;
+            }
+        }
+        TileBag bag = new TileBag(tiles, size);
+        for (int i = size - 1; i > 0; i--) {
+            bag.swap(i, random.nextInt(i + 1));
+        }
+        return bag;
+    }
+
+    /**
+     * Reads a bag written by {@link #toStateString()}, the order of the tiles is kept
+     * @param capacity the most tiles the bag may hold once tiles are put back
+     */
+    public static TileBag fromStateString(String state, int capacity) {
+        byte[] tiles = new byte[Math.max(capacity, state.length())];
+        for (int i = 0; i < state.length(); i++) {
+            char tile = state.charAt(i);
+            if (tile < 'A' || tile > 'Z') {
+                throw new IllegalArgumentException("Invalid tile '" + tile + "' in the bag");
+            }
+            tiles[i] = Board.encode(tile);
+        }
+        return new TileBag(tiles, state.length());
+    }
+
+    /**
+     * The remaining tiles, the last one is drawn first, one upper case letter each
+     */
+    public String toStateString() {
+        char[] state = new char[size];
+        for (int i = 0; i < size; i++) {
+            state[i] = (char) ('A' + tiles[i] - 1);
+        }
+        return new String(state);
+    }
+
+    /**
+     * Draws up to count tiles, fewer if the bag runs empty
+     */
+    public List<Character> draw(int count) {
+        int drawn = Math.min(Math.max(count, 0), size);
+        List<Character> letters = new ArrayList<>(drawn);
+        for (int i = 0; i < drawn; i++) {
+            byte tile = tiles[--size];
+            counts[tile]--;
+            letters.add((char) ('A' + tile - 1));
+        }
+        return letters;
+    }
+
+    /**
+     * Puts tiles back in the bag at random positions, characters other than A-Z (empty rack slots) are skipped
+     * @throws IllegalStateException if the tiles do not fit in the bag
+     */
+    public void putBack(Collection<Character> letters, RandomGenerator random) {
+        for (char letter : letters) {
+            char tile = Character.toUpperCase(letter);
+            if (tile < 'A' || tile > 'Z') continue;
+            if (size == tiles.length) {
+                throw new IllegalStateException("The bag cannot hold more than " + tiles.length + " tiles");
+            }
+            tiles[size] = Board.encode(tile);
+            counts[tiles[size]]++;
+            // inside-out Fisher-Yates step: the new tile takes a random place, the tile there moves to the end
+            swap(size, random.nextInt(size + 1));
+            size++;
+        }
+    }
+
+    public int count(char letter) {
+        char tile = Character.toUpperCase(letter);
+        return tile < 'A' || tile > 'Z' ? 0 : counts[tile - 'A' + 1];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * The number of remaining tiles of every letter that is left
+     */
+    public Map<Character, Integer> letterCounts() {
+        Map<Character, Integer> letterCounts = new TreeMap<>();
+        for (int letter = 1; letter <= 26; letter++) {
+            if (counts[letter] > 0) {
+                letterCounts.put((char) ('A' + letter - 1), counts[letter]);
+            }
+        }
+        return Collections.unmodifiableMap(letterCounts);
+    }
+
+    private void swap(int i, int j) {
+        byte tile = tiles[i];
+        tiles[i] = tiles[j];
+        tiles[j] = tile;
+    }
+}
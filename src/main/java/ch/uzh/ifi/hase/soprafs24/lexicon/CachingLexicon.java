@@ -0,0 +1,90 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Caching Lexicon
+ * Bounded cache in front of another lexicon. Valid and invalid words are both cached,
+ * invalid ones with their own (usually shorter) time to live. Eviction is W-TinyLFU, so
+ * frequently played words like "THE" or "QI" stay in the cache.
+ * Failed lookups are not cached.
+ */
+public class CachingLexicon implements Lexicon, MeterBinder {
+
+    private final Lexicon delegate;
+    private final Cache<String, Boolean> cache;
+
+    public CachingLexicon(Lexicon delegate, long maximumSize, Duration ttl, Duration negativeTtl) {
+        this(delegate, maximumSize, ttl, negativeTtl, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    CachingLexicon(Lexicon delegate, long maximumSize, Duration ttl, Duration negativeTtl, Ticker ticker, Executor executor) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ValidityExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public boolean contains(String word) {
+        String key = Lexicon.normalize(word);
+        if (key == null) return false;
+        return cache.get(key, delegate::contains);
+    }
+
+    /**
+     * Hit, miss and eviction counters since startup
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "dictionary");
+    }
+
+    private static final class ValidityExpiry implements Expiry<String, Boolean> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private ValidityExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String word, Boolean valid, long currentTime) {
+            return valid ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String word, Boolean valid, long currentTime, long currentDuration) {
+            return expireAfterCreate(word, valid, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String word, Boolean valid, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
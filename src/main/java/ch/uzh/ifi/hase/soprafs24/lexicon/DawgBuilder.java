@@ -0,0 +1,175 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Dawg Builder
+ * Builds a minimized DAWG (directed acyclic word graph) from a word list and
+ * serializes it into the flat edge array read by {@link DawgLexicon}.
+ * Shared suffixes are merged while the words are inserted in sorted order,
+ * so the whole trie never has to be held in memory.
+ */
+public class DawgBuilder {
+
+    private final SortedSet<String> words = new TreeSet<>();
+
+    public DawgBuilder add(String word) {
+        String normalized = Lexicon.normalize(word);
+        if (normalized != null) {
+            words.add(normalized);
+        }
+        return this;
+    }
+
+    public DawgBuilder addAll(Iterable<String> words) {
+        for (String word : words) {
+            add(word);
+        }
+        return this;
+    }
+
+    /**
+     * Reads a plain word list, one word per line. Empty lines and lines starting with '#' are ignored.
+     */
+    public DawgBuilder read(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            add(line);
+        }
+        return this;
+    }
+
+    public int size() {
+        return words.size();
+    }
+
+    public byte[] build() {
+        Node root = minimize();
+
+        // assign every node with outgoing edges its offset in the edge array, slot 0 is reserved
+        List<Node> nodes = new ArrayList<>();
+        int edgeCount = assignOffsets(root, 1, nodes, new HashSet<>());
+        if (edgeCount > DawgLexicon.MAX_EDGES) {
+            throw new IllegalStateException("Word list too large for the DAWG format: " + edgeCount + " edges");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(DawgLexicon.HEADER_BYTES + edgeCount * Integer.BYTES);
+        buffer.putInt(DawgLexicon.MAGIC);
+        buffer.putInt(DawgLexicon.VERSION);
+        buffer.putInt(edgeCount);
+        buffer.putInt(root.offset);
+        buffer.putInt(words.size());
+        buffer.putInt(0); // sentinel edge
+
+        for (Node node : nodes) {
+            int remaining = node.childCount;
+            for (int letter = 0; letter < 26; letter++) {
+                Node child = node.children[letter];
+                if (child == null) continue;
+                remaining--;
+                int edge = (letter + 1)
+                        | (child.terminal ? DawgLexicon.TERMINAL : 0)
+                        | (remaining == 0 ? DawgLexicon.LAST : 0)
+                        | (child.offset << DawgLexicon.TARGET_SHIFT);
+                buffer.putInt(edge);
+            }
+        }
+        return buffer.array();
+    }
+
+    // incremental construction of a minimal automaton from sorted input (Daciuk et al.)
+    private Node minimize() {
+        Map<String, Node> register = new HashMap<>();
+        List<Node> uncheckedParents = new ArrayList<>();
+        List<Integer> uncheckedLetters = new ArrayList<>();
+        List<Node> uncheckedChildren = new ArrayList<>();
+        int nextId = 0;
+
+        Node root = new Node(nextId++);
+        String previous = "";
+
+        for (String word : words) {
+            int common = 0;
+            int max = Math.min(word.length(), previous.length());
+            while (common < max && word.charAt(common) == previous.charAt(common)) {
+                common++;
+            }
+            replaceOrRegister(register, uncheckedParents, uncheckedLetters, uncheckedChildren, common);
+
+            Node node = uncheckedChildren.isEmpty() ? root : uncheckedChildren.get(uncheckedChildren.size() - 1);
+            for (int i = common; i < word.length(); i++) {
+                Node next = new Node(nextId++);
+                int letter = word.charAt(i) - 'A';
+                node.children[letter] = next;
+                node.childCount++;
+                uncheckedParents.add(node);
+                uncheckedLetters.add(letter);
+                uncheckedChildren.add(next);
+                node = next;
+            }
+            node.terminal = true;
+            previous = word;
+        }
+        replaceOrRegister(register, uncheckedParents, uncheckedLetters, uncheckedChildren, 0);
+        return root;
+    }
+
+    private void replaceOrRegister(Map<String, Node> register, List<Node> parents, List<Integer> letters,
+                                   List<Node> children, int downTo) {
+        for (int i = children.size() - 1; i >= downTo; i--) {
+            Node child = children.remove(i);
+            Node parent = parents.remove(i);
+            int letter = letters.remove(i);
+
+            String key = child.key();
+            Node existing = register.get(key);
+            if (existing != null) {
+                parent.children[letter] = existing;
+            } else {
+                register.put(key, child);
+            }
+        }
+    }
+
+    private int assignOffsets(Node node, int next, List<Node> nodes, Set<Integer> visited) {
+        if (node.childCount == 0 || !visited.add(node.id)) return next;
+        node.offset = next;
+        nodes.add(node);
+        next += node.childCount;
+        for (Node child : node.children) {
+            if (child != null) {
+                next = assignOffsets(child, next, nodes, visited);
+            }
+        }
+        return next;
+    }
+
+    private static final class Node {
+        private final int id;
+        private final Node[] children = new Node[26];
+        private int childCount;
+        private boolean terminal;
+        private int offset;
+
+        private Node(int id) {
+            this.id = id;
+        }
+
+        // two nodes are equivalent if they agree on finality and on all outgoing edges
+        private String key() {
+            StringBuilder key = new StringBuilder(terminal ? "1" : "0");
+            for (int letter = 0; letter < 26; letter++) {
+                if (children[letter] != null) {
+                    key.append((char) ('A' + letter)).append(children[letter].id).append(',');
+                }
+            }
+            return key.toString();
+        }
+    }
+}
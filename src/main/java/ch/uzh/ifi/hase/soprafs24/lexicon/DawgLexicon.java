@@ -0,0 +1,145 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Dawg Lexicon
+ * In-process lexicon backed by a minimized DAWG produced by {@link DawgBuilder}.
+ * The graph is a flat array of 32 bit edges, each node being a contiguous run of edges:
+ * bits 0-4 letter (1-26), bit 5 end of word, bit 6 last edge of the node, bits 7-31 first edge of the target node.
+ * A lookup walks at most 26 edges per letter and needs no network.
+ * Precompiled files are memory mapped, so the graph lives off-heap in the shared page cache.
+ */
+public class DawgLexicon implements Lexicon {
+
+    static final int MAGIC = 0x44415747; // "DAWG"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    static final int LETTER_MASK = 0x1F;
+    static final int TERMINAL = 1 << 5;
+    static final int LAST = 1 << 6;
+    static final int TARGET_SHIFT = 7;
+    static final int MAX_EDGES = 1 << (Integer.SIZE - TARGET_SHIFT);
+
+    private final IntBuffer edges;
+    private final int root;
+    private final int wordCount;
+
+    public DawgLexicon(ByteBuffer buffer) {
+        ByteBuffer data = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (data.remaining() < HEADER_BYTES || data.getInt(data.position()) != MAGIC) {
+            throw new IllegalArgumentException("Not a DAWG lexicon");
+        }
+        int version = data.getInt(data.position() + 4);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported DAWG lexicon version " + version);
+        }
+        int edgeCount = data.getInt(data.position() + 8);
+        this.root = data.getInt(data.position() + 12);
+        this.wordCount = data.getInt(data.position() + 16);
+
+        data.position(data.position() + HEADER_BYTES);
+        data.limit(data.position() + edgeCount * Integer.BYTES);
+        this.edges = data.slice().asIntBuffer();
+    }
+
+    /**
+     * Maps a DAWG file compiled by {@link LexiconCompiler} read-only into memory
+     */
+    public static DawgLexicon map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new DawgLexicon(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Builds a lexicon from a plain word list, one word per line
+     */
+    public static DawgLexicon fromWordList(InputStream wordList) throws IOException {
+        DawgBuilder builder = new DawgBuilder()
+                .read(new InputStreamReader(wordList, StandardCharsets.UTF_8));
+        return new DawgLexicon(ByteBuffer.wrap(builder.build()));
+    }
+
+    public static DawgLexicon of(String... words) {
+        return new DawgLexicon(ByteBuffer.wrap(new DawgBuilder().addAll(List.of(words)).build()));
+    }
+
+    @Override
+    public boolean contains(String word) {
+        String normalized = Lexicon.normalize(word);
+        if (normalized == null) return false;
+
+        int node = root;
+        boolean terminal = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            int edge = edge(node, normalized.charAt(i) - 'A' + 1);
+            if (edge == 0) return false;
+            terminal = (edge & TERMINAL) != 0;
+            node = edge >>> TARGET_SHIFT;
+        }
+        return terminal;
+    }
+
+    public int size() {
+        return wordCount;
+    }
+
+    /*
+     * Traversal API for move generation. A node is the index of its first edge, 0 is the
+     * node without outgoing edges. Letters are 1-26.
+     */
+
+    public int root() {
+        return root;
+    }
+
+    /**
+     * @return the edge for letter out of node, 0 if there is none
+     */
+    public int edge(int node, int letter) {
+        if (node == 0) return 0;
+        for (int i = node; ; i++) {
+            int edge = edges.get(i);
+            int edgeLetter = edge & LETTER_MASK;
+            if (edgeLetter == letter) return edge;
+            // edges are sorted by letter, so we can stop early
+            if (edgeLetter > letter || (edge & LAST) != 0) return 0;
+        }
+    }
+
+    /**
+     * Edges of a node are stored from edgeAt(node) up to the edge flagged as last
+     */
+    public int edgeAt(int index) {
+        return edges.get(index);
+    }
+
+    public static int letterOf(int edge) {
+        return edge & LETTER_MASK;
+    }
+
+    public static boolean isTerminal(int edge) {
+        return (edge & TERMINAL) != 0;
+    }
+
+    public static boolean isLast(int edge) {
+        return (edge & LAST) != 0;
+    }
+
+    public static int targetOf(int edge) {
+        return edge >>> TARGET_SHIFT;
+    }
+}
@@ -0,0 +1,34 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import java.util.Locale;
+
+/**
+ * Lexicon
+ * A dictionary of playable words. Implementations must be thread safe since
+ * lookups happen concurrently from the websocket inbound threads.
+ */
+public interface Lexicon {
+
+    /**
+     * Checks if a word is part of the lexicon
+     * @param word Word in any case, e.g. "hat" or "HAT"
+     * @return true if the word is playable
+     * @throws ch.uzh.ifi.hase.soprafs24.constant.errors.LexiconUnavailableException if the backend cannot answer
+     */
+    boolean contains(String word);
+
+    /**
+     * Normalizes a word to upper case A-Z
+     * @return the normalized word or null if it contains anything other than letters
+     */
+    static String normalize(String word) {
+        if (word == null) return null;
+        String normalized = word.trim().toUpperCase(Locale.ROOT);
+        if (normalized.isEmpty()) return null;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c < 'A' || c > 'Z') return null;
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,43 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Lexicon Compiler
+ * Compiles a plain word list into the binary DAWG file mapped by {@link DawgLexicon#map(Path)}.
+ * Runs at build time through the compileLexicon task in build.gradle.
+ * Usage: LexiconCompiler &lt;word list&gt; &lt;output file&gt;
+ */
+public class LexiconCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: LexiconCompiler <word list> <output file>");
+            System.exit(1);
+        }
+        int words = compile(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Compiled " + words + " words into " + args[1]);
+    }
+
+    /**
+     * Compiles the word list and writes the DAWG to the output file
+     * @return number of distinct words compiled
+     */
+    public static int compile(Path wordList, Path output) throws IOException {
+        DawgBuilder builder = new DawgBuilder();
+        try (Reader reader = Files.newBufferedReader(wordList, StandardCharsets.UTF_8)) {
+            builder.read(reader);
+        }
+
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(output, builder.build());
+        return builder.size();
+    }
+}
@@ -0,0 +1,174 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lexicon Config
+ * Chooses the dictionary backend used for move validation.
+ * dictionary.backend=local uses the DAWG compiled at build time, dictionary.backend=remote uses the dictionary API.
+ * With dictionary.remote-fallback=true, the default while only the seed word list is bundled, the local lexicon
+ * asks the API for words it does not contain.
+ * The local lexicon answers on the calling thread, only API lookups go through the dictionary executor,
+ * see {@link SingleFlightLookup}.
+ * The API is always called with timeouts, a bulkhead and a circuit breaker, see {@link ResilientLexicon}.
+ * Unless dictionary.cache.enabled=false the API sits behind a bounded {@link CachingLexicon}.
+ */
+@Configuration
+public class LexiconConfig {
+
+    private final Logger log = LoggerFactory.getLogger(LexiconConfig.class);
+
+    @Value("${dictionary.backend:local}")
+    private String backend;
+
+    @Value("${dictionary.lexicon:classpath:lexicon/words.dawg}")
+    private Resource compiledLexicon;
+
+    @Value("${dictionary.word-list:classpath:lexicon/words.txt}")
+    private Resource wordList;
+
+    @Value("${dictionary.remote-fallback:true}")
+    private boolean remoteFallback;
+
+    @Value("${dictionary.remote.url:" + RemoteLexicon.API_URL + "}")
+    private String remoteUrl;
+
+    @Value("${dictionary.remote.connect-timeout:500ms}")
+    private Duration remoteConnectTimeout;
+
+    @Value("${dictionary.remote.read-timeout:1500ms}")
+    private Duration remoteReadTimeout;
+
+    @Value("${dictionary.remote.max-concurrent-calls:16}")
+    private int remoteMaxConcurrentCalls;
+
+    @Value("${dictionary.remote.circuit.failure-threshold:5}")
+    private int circuitFailureThreshold;
+
+    @Value("${dictionary.remote.circuit.open-duration:30s}")
+    private Duration circuitOpenDuration;
+
+    @Value("${dictionary.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${dictionary.cache.maximum-size:100000}")
+    private long cacheSize;
+
+    @Value("${dictionary.cache.ttl:24h}")
+    private Duration cacheTtl;
+
+    @Value("${dictionary.cache.negative-ttl:1h}")
+    private Duration cacheNegativeTtl;
+
+    /**
+     * The bundled word list as a DAWG, also traversed directly by the move generator
+     */
+    @Bean
+    public DawgLexicon localLexicon() throws IOException {
+        DawgLexicon lexicon;
+        if (compiledLexicon.isFile()) {
+            lexicon = DawgLexicon.map(compiledLexicon.getFile().toPath());
+            log.info("Mapped {} words from {}", lexicon.size(), compiledLexicon.getDescription());
+        }
+        else if (compiledLexicon.exists()) {
+            // packed inside the jar, cannot be mapped so it is copied off-heap once
+            try (InputStream in = compiledLexicon.getInputStream()) {
+                byte[] data = in.readAllBytes();
+                lexicon = new DawgLexicon(ByteBuffer.allocateDirect(data.length).put(data).flip());
+            }
+            log.info("Loaded {} words from {}", lexicon.size(), compiledLexicon.getDescription());
+        }
+        else {
+            // no compiled lexicon available (e.g. resources not processed by gradle), build it from the word list
+            try (InputStream in = wordList.getInputStream()) {
+                lexicon = DawgLexicon.fromWordList(in);
+            }
+            log.warn("No compiled lexicon found, built {} words from {}", lexicon.size(), wordList.getDescription());
+        }
+        return lexicon;
+    }
+
+    /**
+     * Bounded pool for looking up the words of a move in the API in parallel. When it is saturated
+     * the lookup runs on the calling thread instead of queueing without limit.
+     */
+    @Bean
+    public ExecutorService dictionaryExecutor(@Value("${dictionary.lookup.threads:8}") int threads,
+                                              @Value("${dictionary.lookup.queue-capacity:256}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dictionary-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * The dictionary used for validating words, composed from the configured backend
+     */
+    @Bean
+    public SingleFlightLookup wordLookup(DawgLexicon localLexicon, @Qualifier("dictionaryExecutor") ExecutorService dictionaryExecutor) {
+        if ("remote".equalsIgnoreCase(backend)) {
+            log.info("Using remote dictionary API at {}", remoteUrl);
+            // while the API is unavailable the bundled lexicon accepts the words it contains
+            return new SingleFlightLookup(cached(remoteLexicon(localLexicon)), dictionaryExecutor);
+        }
+        if (!"local".equalsIgnoreCase(backend)) {
+            throw new IllegalArgumentException("Unknown dictionary backend: " + backend);
+        }
+        if (remoteFallback) {
+            return new SingleFlightLookup(localLexicon, cached(remoteLexicon(null)), dictionaryExecutor);
+        }
+        return SingleFlightLookup.local(localLexicon);
+    }
+
+    @Bean
+    public MeterBinder dictionaryCacheMetrics(SingleFlightLookup wordLookup) {
+        return registry -> {
+            if (wordLookup.getRemote() instanceof CachingLexicon cache) {
+                cache.bindTo(registry);
+            }
+        };
+    }
+
+    private Lexicon cached(Lexicon lexicon) {
+        if (!cacheEnabled) {
+            return lexicon;
+        }
+        log.info("Caching up to {} dictionary lookups", cacheSize);
+        return new CachingLexicon(lexicon, cacheSize, cacheTtl, cacheNegativeTtl);
+    }
+
+    // a builder of its own: the shared one is configured with the meter registry, which binds the lookup metrics and so needs the lexicon
+    private ResilientLexicon remoteLexicon(Lexicon fallback) {
+        RemoteLexicon remote = new RemoteLexicon(new RestTemplateBuilder()
+                .setConnectTimeout(remoteConnectTimeout)
+                .setReadTimeout(remoteReadTimeout)
+                .build(), remoteUrl);
+        CircuitBreaker circuitBreaker = new CircuitBreaker("dictionary-api", circuitFailureThreshold, circuitOpenDuration);
+        return new ResilientLexicon(remote, circuitBreaker, remoteMaxConcurrentCalls, fallback);
+    }
+}
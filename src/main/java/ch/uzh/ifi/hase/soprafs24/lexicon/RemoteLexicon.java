@@ -0,0 +1,51 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import ch.uzh.ifi.hase.soprafs24.constant.errors.LexiconUnavailableException;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Remote Lexicon
+ * Looks words up in the public dictionary API. Every lookup is a blocking HTTP call,
+ * so this is only meant as an optional backend or as fallback for the local lexicon,
+ * wrapped in a {@link ResilientLexicon}.
+ */
+public class RemoteLexicon implements Lexicon {
+
+    static final String API_URL = "https://api.dictionaryapi.dev/api/v2/entries/en/";
+
+    private final RestTemplate restTemplate;
+    private final String apiUrl;
+
+    public RemoteLexicon(RestTemplate restTemplate) {
+        this(restTemplate, API_URL);
+    }
+
+    public RemoteLexicon(RestTemplate restTemplate, String apiUrl) {
+        this.restTemplate = restTemplate;
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl : apiUrl + "/";
+    }
+
+    @Override
+    public boolean contains(String word) {
+        String url = apiUrl + word.toLowerCase(Locale.ROOT);
+
+        try {
+            // Valid words return an array, unknown words an error object
+            Object response = restTemplate.getForObject(url, Object.class);
+            return response instanceof List;
+        }
+        catch (HttpClientErrorException.NotFound e) {
+            // the API answers unknown words with 404
+            return false;
+        }
+        catch (RestClientException e) {
+            // not an answer about the word, so it must not be treated (or cached) as invalid
+            throw new LexiconUnavailableException("Dictionary API error: " + e.getMessage(), e);
+        }
+    }
+}
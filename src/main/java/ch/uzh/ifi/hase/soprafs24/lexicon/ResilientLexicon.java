@@ -0,0 +1,71 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import ch.uzh.ifi.hase.soprafs24.constant.errors.LexiconUnavailableException;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Resilient Lexicon
+ * Guards a remote lexicon with a bulkhead capping the concurrent calls and a circuit breaker.
+ * While the circuit is open, the bulkhead is full or a call fails, the word is answered by the
+ * fallback lexicon if it contains it. Otherwise, or without a fallback, a {@link LexiconUnavailableException}
+ * is thrown: the fallback only knows a part of the words, a word missing from it is unknown rather than
+ * invalid and must not be cached as invalid.
+ */
+public class ResilientLexicon implements Lexicon {
+
+    private final Lexicon remote;
+    private final Lexicon fallback;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+
+    public ResilientLexicon(Lexicon remote, CircuitBreaker circuitBreaker, int maxConcurrentCalls, Lexicon fallback) {
+        this.remote = remote;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.fallback = fallback;
+    }
+
+    @Override
+    public boolean contains(String word) {
+        if (!bulkhead.tryAcquire()) {
+            return fallback(word, "Too many concurrent dictionary requests");
+        }
+        String failure;
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                failure = "Dictionary API temporarily unavailable";
+            }
+            else {
+                try {
+                    boolean valid = remote.contains(word);
+                    circuitBreaker.onSuccess();
+                    return valid;
+                }
+                catch (RuntimeException e) {
+                    circuitBreaker.onFailure();
+                    failure = e.getMessage();
+                }
+            }
+        }
+        finally {
+            bulkhead.release();
+        }
+        return fallback(word, failure);
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public int getAvailableCalls() {
+        return bulkhead.availablePermits();
+    }
+
+    private boolean fallback(String word, String reason) {
+        if (fallback == null || !fallback.contains(word)) {
+            throw new LexiconUnavailableException(reason);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single Flight Lookup
+ * Asynchronous word lookups where concurrent requests for the same word share one pending
+ * future, so a word played in several games at the same moment reaches the remote lexicon only once.
+ * An in-process lexicon is asked first on the calling thread, only the words it does not know
+ * go to the remote lexicon on the executor.
+ * The returned futures are shared and must not be cancelled or completed by callers.
+ */
+public class SingleFlightLookup implements MeterBinder {
+
+    // answers on the calling thread, null if every word goes to the remote lexicon
+    private final Lexicon local;
+    // null if the local lexicon alone decides
+    private final Lexicon remote;
+    private final Executor executor;
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Every word is looked up in the remote lexicon on the executor
+     */
+    public SingleFlightLookup(Lexicon remote, Executor executor) {
+        this(null, remote, executor);
+    }
+
+    /**
+     * Words the local lexicon knows are valid right away, the others are looked up in the remote lexicon
+     */
+    public SingleFlightLookup(Lexicon local, Lexicon remote, Executor executor) {
+        this.local = local;
+        this.remote = remote;
+        this.executor = executor;
+    }
+
+    /**
+     * Only the local lexicon, every lookup completes on the calling thread
+     */
+    public static SingleFlightLookup local(Lexicon local) {
+        return new SingleFlightLookup(local, null, null);
+    }
+
+    /**
+     * Looks a word up in the local lexicon, then on the executor in the remote lexicon,
+     * joining a remote lookup of the same word that is already running
+     * @return future completing with true if the word is valid, or exceptionally if the lexicon failed
+     */
+    public CompletableFuture<Boolean> lookup(String word) {
+        String key = Lexicon.normalize(word);
+        if (key == null) return CompletableFuture.completedFuture(false);
+        lookups.increment();
+
+        if (local != null) {
+            try {
+                boolean known = local.contains(key);
+                if (known || remote == null) {
+                    return CompletableFuture.completedFuture(known);
+                }
+            }
+            catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        CompletableFuture<Boolean> pending = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            coalesced.increment();
+            return running;
+        }
+
+        try {
+            executor.execute(() -> {
+                boolean valid = false;
+                Throwable failure = null;
+                try {
+                    valid = remote.contains(key);
+                }
+                catch (Throwable e) {
+                    failure = e;
+                }
+                finally {
+                    // removed before completing, a lookup started by a waiter that wakes up asks the lexicon again
+                    inFlight.remove(key, pending);
+                }
+                if (failure == null) {
+                    pending.complete(valid);
+                    return;
+                }
+                pending.completeExceptionally(failure);
+                if (failure instanceof Error error) {
+                    throw error;
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            inFlight.remove(key, pending);
+            pending.completeExceptionally(e);
+        }
+        return pending;
+    }
+
+    // the lexicon behind the executor, null if there is none
+    Lexicon getRemote() {
+        return remote;
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("dictionary.lookups", this, SingleFlightLookup::getLookupCount)
+                .description("Word lookups requested by move validation")
+                .register(registry);
+        FunctionCounter.builder("dictionary.lookups.coalesced", this, SingleFlightLookup::getCoalescedCount)
+                .description("Word lookups that joined an identical lookup already in flight")
+                .register(registry);
+    }
+}
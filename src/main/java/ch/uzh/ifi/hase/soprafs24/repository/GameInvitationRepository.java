@@ -21,6 +21,8 @@ public interface GameInvitationRepository extends JpaRepository<GameInvitation,
 
         List<GameInvitation> findAllByTarget(User target);
 
+        List<GameInvitation> findAllByTargetId(Long targetId);
+
         Optional<GameInvitation> findByTarget(User target);
 
         Optional<GameInvitation> findByGameAndTarget(Game game, User target);
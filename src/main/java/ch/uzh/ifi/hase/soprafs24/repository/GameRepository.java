@@ -1,6 +1,7 @@
 package ch.uzh.ifi.hase.soprafs24.repository;
 
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,6 +13,18 @@ import java.util.Optional;
 @Repository("gameRepository")
 public interface GameRepository extends JpaRepository<Game, Long> {
 
-    @Query("SELECT g FROM Game g LEFT JOIN FETCH g.users WHERE g.id = :id")
+    // The game as the lobby and the REST endpoints show it: host and users in one query, the friends listed with every user in one more
+    @Override
+    @EntityGraph(Game.PLAYERS_VIEW)
+    Optional<Game> findById(Long id);
+
+    // The game while it is played: the same host and users as the lobby reads, nothing the game actions touch is loaded later
+    @EntityGraph(Game.PLAYERS_VIEW)
+    @Query("SELECT g FROM Game g WHERE g.id = :id")
     Optional<Game> findByIdWithUsers(@Param("id") Long id);
-}
\ No newline at end of file
+
+    // The game when it ends: the users whose high scores and status are updated, the host is one of them
+    @EntityGraph(Game.END_VIEW)
+    @Query("SELECT g FROM Game g WHERE g.id = :id")
+    Optional<Game> findForEndById(@Param("id") Long id);
+}
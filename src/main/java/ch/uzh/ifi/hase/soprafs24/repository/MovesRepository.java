@@ -0,0 +1,13 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Moves;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository("movesRepository")
+public interface MovesRepository extends JpaRepository<Moves, Long> {
+
+    List<Moves> findByGameIdOrderByIdAsc(Long gameId);
+}
@@ -0,0 +1,152 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Schema Index Check
+ * Looks up the indexes of the database on startup and reports the lookups of the repositories
+ * that no index serves. The columns of a lookup have to be the leading columns of an index, in any
+ * order, a unique constraint counts as well. Without them the lookup reads the whole table and gets
+ * slower with every row, which is easy to miss when the schema is created by hand or by a tool.
+ * The check only warns by default, "fail" stops the startup and "off" skips it.
+ */
+@Component
+public class SchemaIndexCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaIndexCheck.class);
+
+    /**
+     * The indexed lookups of the repositories, columns as stored (see the entities)
+     */
+    static final List<RequiredIndex> REQUIRED = List.of(
+            // UserRepository.findByUsername
+            new RequiredIndex("user", "username"),
+            // GameInvitationRepository.findByGameAndTarget
+            new RequiredIndex("game_invitation", "game_id", "sender_id"),
+            // GameInvitationRepository.findAllByTarget
+            new RequiredIndex("game_invitation", "sender_id"),
+            // FriendRequestRepository.findBySenderAndTarget, with the status of the request
+            new RequiredIndex("friend_request", "target_id", "sender_id", "status"),
+            // FriendRequestRepository.findByTargetId
+            new RequiredIndex("friend_request", "sender_id")
+    );
+
+    private final DataSource dataSource;
+    private final String mode;
+    private final List<RequiredIndex> required;
+
+    @Autowired
+    public SchemaIndexCheck(DataSource dataSource, @Value("${schema.index-check:warn}") String mode) {
+        this(dataSource, mode, REQUIRED);
+    }
+
+    SchemaIndexCheck(DataSource dataSource, String mode, List<RequiredIndex> required) {
+        this.dataSource = dataSource;
+        this.mode = mode;
+        this.required = required;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() throws SQLException {
+        if ("off".equals(mode)) {
+            return;
+        }
+        List<RequiredIndex> missing = findMissing();
+        if (missing.isEmpty()) {
+            log.info("All {} indexed lookups are served by an index", required.size());
+            return;
+        }
+        for (RequiredIndex index : missing) {
+            log.warn("No index on {}", index);
+        }
+        if ("fail".equals(mode)) {
+            throw new IllegalStateException("Missing indexes: " + missing);
+        }
+    }
+
+    /**
+     * The required indexes that the database does not have
+     */
+    public List<RequiredIndex> findMissing() throws SQLException {
+        List<RequiredIndex> missing = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, List<List<String>>> indexesByTable = new LinkedHashMap<>();
+            for (RequiredIndex index : required) {
+                List<List<String>> indexes = indexesByTable.get(index.table);
+                if (indexes == null) {
+                    indexes = indexesOf(metaData, index.table);
+                    indexesByTable.put(index.table, indexes);
+                }
+                if (indexes.stream().noneMatch(index::isServedBy)) {
+                    missing.add(index);
+                }
+            }
+        }
+        return missing;
+    }
+
+    // the columns of every index of the table, in index order
+    private static List<List<String>> indexesOf(DatabaseMetaData metaData, String table) throws SQLException {
+        String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        Map<String, List<String>> columnsByIndex = new LinkedHashMap<>();
+        try (ResultSet rows = metaData.getIndexInfo(null, null, name, false, true)) {
+            while (rows.next()) {
+                String index = rows.getString("INDEX_NAME");
+                String column = rows.getString("COLUMN_NAME");
+                if (index == null || column == null) {
+                    continue;
+                }
+                // the rows of an index come in the order of its columns
+                columnsByIndex.computeIfAbsent(index, key -> new ArrayList<>()).add(column.toLowerCase(Locale.ROOT));
+            }
+        }
+        return new ArrayList<>(columnsByIndex.values());
+    }
+
+    /**
+     * The columns of a table one lookup filters on
+     */
+    public static final class RequiredIndex {
+
+        private final String table;
+        private final List<String> columns;
+
+        public RequiredIndex(String table, String... columns) {
+            this.table = table;
+            this.columns = List.of(columns);
+        }
+
+        boolean isServedBy(List<String> indexColumns) {
+            if (indexColumns.size() < columns.size()) {
+                return false;
+            }
+            Set<String> leading = new HashSet<>(indexColumns.subList(0, columns.size()));
+            return leading.equals(new HashSet<>(columns));
+        }
+
+        @Override
+        public String toString() {
+            return table + " (" + String.join(", ", columns) + ")";
+        }
+    }
+}
@@ -10,7 +10,5 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
   User findByUsername(String username);
 
-  Optional<User> findByToken(String token);
-
   Optional<User> findById(Long id);
 }
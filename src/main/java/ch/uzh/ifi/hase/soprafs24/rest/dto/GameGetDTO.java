@@ -2,6 +2,7 @@ package ch.uzh.ifi.hase.soprafs24.rest.dto;
 
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,7 +18,7 @@ public class GameGetDTO {
     private Long surrenderId;
     private Map<Long, Integer> playerScores = new HashMap<>();
 
-    private String[][] board;
+    private Board board;
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -41,11 +42,11 @@ public class GameGetDTO {
         this.playerScores = playerScores;
     }
 
-    public String[][] getBoard() {
+    public Board getBoard() {
         return board;
     }
 
-    public void setBoard(String[][] board) {
+    public void setBoard(Board board) {
         this.board = board;
     }
 
@@ -1,6 +1,7 @@
 package ch.uzh.ifi.hase.soprafs24.rest.dto;
 
 import ch.uzh.ifi.hase.soprafs24.constant.MoveType;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
@@ -17,7 +18,9 @@ public class GameStateDTO {
 
     private String token;
     private String[] userTiles;
-    private String[][] board;
+    private Board board;
+    // the tiles of a VALIDATE or SUBMIT move, sent instead of the whole board
+    private List<PlacementDTO> placements;
     private String action;
     private Long playerId;
     private Map<Long, Integer> playerScores;
@@ -29,7 +32,7 @@ public class GameStateDTO {
         if(this.action == null) throw new IllegalArgumentException("Action is missing");
         if (this.token == null) throw new IllegalArgumentException("Token is missing");
         if (this.userTiles == null) throw new IllegalArgumentException("UserTiles is missing");
-        if(this.board == null) throw new IllegalArgumentException("Board is missing");
+        if(this.board == null && this.placements == null) throw new IllegalArgumentException("Board is missing");
 
         return true;
     }
@@ -59,14 +62,29 @@ public class GameStateDTO {
         this.userTiles = userTiles;
     }
 
-    public String[][] getBoard() {
+    public Board getBoard() {
         return board;
     }
 
-    public void setBoard(String[][] board) {
+    public void setBoard(Board board) {
         this.board = board;
     }
 
+    public List<PlacementDTO> getPlacements() {
+        return placements;
+    }
+
+    public void setPlacements(List<PlacementDTO> placements) {
+        this.placements = placements;
+    }
+
+    /**
+     * Whether the move is sent as placements, otherwise the whole new board is sent
+     */
+    public boolean hasPlacements() {
+        return placements != null;
+    }
+
     public String getAction() {
         return action;
     }
@@ -0,0 +1,77 @@
+package ch.uzh.ifi.hase.soprafs24.rest.dto;
+
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+
+/**
+ * One tile of a move as sent by the client instead of the whole board.
+ * A blank tile carries the letter it is played as and the blank flag.
+ */
+public class PlacementDTO {
+    private int row;
+    private int col;
+    private String letter;
+    private boolean blank;
+
+    public PlacementDTO() {
+    }
+
+    public PlacementDTO(int row, int col, String letter, boolean blank) {
+        this.row = row;
+        this.col = col;
+        this.letter = letter;
+        this.blank = blank;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    public void setCol(int col) {
+        this.col = col;
+    }
+
+    public String getLetter() {
+        return letter;
+    }
+
+    public void setLetter(String letter) {
+        this.letter = letter;
+    }
+
+    public boolean isBlank() {
+        return blank;
+    }
+
+    public void setBlank(boolean blank) {
+        this.blank = blank;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the letter is not a single letter A-Z
+     */
+    public Placement toPlacement() {
+        if (letter == null || letter.length() != 1 || !Character.isLetter(letter.charAt(0))) {
+            throw new IllegalArgumentException("Invalid letter '" + letter + "' at " + row + "," + col);
+        }
+        char tile = Character.toUpperCase(letter.charAt(0));
+        if (tile < 'A' || tile > 'Z') {
+            throw new IllegalArgumentException("Invalid letter '" + letter + "' at " + row + "," + col);
+        }
+        // blank tiles are lower case on the board
+        return new Placement(row, col, blank ? Character.toLowerCase(tile) : tile);
+    }
+
+    public static PlacementDTO of(Placement placement) {
+        char letter = placement.getLetter();
+        return new PlacementDTO(placement.getRow(), placement.getCol(),
+                String.valueOf(Character.toUpperCase(letter)), Character.isLowerCase(letter));
+    }
+}
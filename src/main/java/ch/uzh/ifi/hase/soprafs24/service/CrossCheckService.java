@@ -0,0 +1,75 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.game.CrossChecks;
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+import ch.uzh.ifi.hase.soprafs24.lexicon.DawgLexicon;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cross Check Service
+ * Keeps the {@link CrossChecks} of every live game in memory. They are computed from the board
+ * the first time a game is validated and then updated incrementally with every accepted move.
+ * They follow the game held by the {@link GameRegistry}, which drops them together with changes it
+ * could not write. Games idle for longer than the configured time are dropped and recomputed when needed again.
+ */
+@Service
+public class CrossCheckService {
+
+    private final DawgLexicon lexicon;
+    private final boolean authoritative;
+    private final Cache<Long, CrossChecks> games;
+
+    @Autowired
+    public CrossCheckService(DawgLexicon lexicon,
+                             @Value("${dictionary.backend:local}") String backend,
+                             @Value("${dictionary.remote-fallback:true}") boolean remoteFallback,
+                             @Value("${cross-checks.maximum-games:10000}") long maximumGames,
+                             @Value("${cross-checks.expire-after-access:2h}") Duration expireAfterAccess) {
+        this.lexicon = lexicon;
+        this.authoritative = "local".equalsIgnoreCase(backend) && !remoteFallback;
+        this.games = Caffeine.newBuilder()
+                .maximumSize(maximumGames)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    /**
+     * The cross-checks of the current board of a game, they must not be modified by the caller
+     */
+    public CrossChecks forGame(Game game) {
+        if (game.getId() == null) {
+            return CrossChecks.of(game.getBoard(), lexicon);
+        }
+        return games.get(game.getId(), id -> CrossChecks.of(game.getBoard(), lexicon));
+    }
+
+    /**
+     * Applies the tiles of an accepted move, once the game registry has written it or taken it to be written
+     */
+    public void onMoveAccepted(Long gameId, List<Placement> placements) {
+        CrossChecks crossChecks = games.getIfPresent(gameId);
+        if (crossChecks != null) {
+            crossChecks.place(placements);
+        }
+    }
+
+    /**
+     * Whether the bundled lexicon is the only dictionary, so that a letter outside of the
+     * cross-check set can be rejected without asking the dictionary
+     */
+    public boolean isAuthoritative() {
+        return authoritative;
+    }
+
+    public void evict(Long gameId) {
+        games.invalidate(gameId);
+    }
+}
@@ -11,9 +11,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityExistsException;
-import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -40,11 +40,13 @@ public class FriendRequestService {
         return optional.get();
     }
 
+    @Transactional(readOnly = true)
     public List<FriendRequest> getFriendRequestsByTargetId(Long targetId) {
         if(targetId == null) throw new IllegalArgumentException("TargetId cannot be null");
         return friendRequestRepository.findByTargetId(targetId);
     }
 
+    @Transactional(readOnly = true)
     public List<FriendRequest> getFriendRequestsBySenderId(Long senderId) {
         if(senderId == null) throw new IllegalArgumentException("SenderId cannot be null");
         return friendRequestRepository.findBySenderId(senderId);
@@ -42,11 +42,18 @@ public class GameInvitationService {
                     .orElseThrow(() -> new GameInvitationNotFoundException("Game invitation with id "+id.toString()+" not found"));
         }
 
+        @Transactional(readOnly = true)
         public List<GameInvitation> getGameInvitationsByTarget(User sender) {
             if(sender == null || sender.getId() == null) throw new IllegalArgumentException("Sender cannot be null");
             return gameInvitationRepository.findAllByTarget(sender);
         }
 
+        @Transactional(readOnly = true)
+        public List<GameInvitation> getGameInvitationsByTargetId(Long targetId) {
+            if(targetId == null) throw new IllegalArgumentException("Target id cannot be null");
+            return gameInvitationRepository.findAllByTargetId(targetId);
+        }
+
 
 
     public GameInvitation createGameInvitation(Optional<Game> optionalGame, Optional<User> optionalSender, Optional<User> optionalTarget) throws GameNotFoundException, UserNotFoundException {
@@ -0,0 +1,241 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Game Mailboxes
+ * Runs the actions of a game one after the other, in the order they arrive, so that two actions
+ * of the same game never read and change it at the same time. Every game with pending actions has
+ * a mailbox that one thread of a shared pool works through, actions of different games run in
+ * parallel. A mailbox is dropped once it is empty, a busy game gives its thread up now and then
+ * so that it cannot hold up the other games.
+ */
+@Service
+public class GameMailboxes {
+
+    private static final Logger log = LoggerFactory.getLogger(GameMailboxes.class);
+
+    // actions run in a row before the thread is handed to the next mailbox
+    private static final int MAX_BATCH = 32;
+
+    private final ExecutorService executor;
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    // the game whose mailbox the current thread works on, an action of that game calling in again runs right away
+    private final ThreadLocal<Long> currentGame = new ThreadLocal<>();
+
+    @Autowired
+    public GameMailboxes(@Value("${game-actions.threads:16}") int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "game-actions-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs an action in the mailbox of a game and waits for its result,
+     * an exception thrown by the action is thrown here
+     */
+    public <T> T call(Long gameId, Supplier<T> action) {
+        if (gameId.equals(currentGame.get())) {
+            return action.get();
+        }
+        try {
+            return callAsync(gameId, action).join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    /**
+     * Queues an action in the mailbox of a game without waiting for it, also when called from an action of the same game
+     * @return future completing with the result of the action, or exceptionally with what the action threw
+     * @throws RejectedExecutionException if the mailboxes are shut down
+     */
+    public <T> CompletableFuture<T> callAsync(Long gameId, Supplier<T> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(gameId, () -> {
+            try {
+                result.complete(action.get());
+            }
+            catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Queues an action in the mailbox of a game without waiting for it
+     * @throws RejectedExecutionException if the mailboxes are shut down
+     */
+    public void submit(Long gameId, Runnable action) {
+        boolean[] start = new boolean[1];
+        // the map entry is locked while the mailbox is changed, so an empty mailbox is never removed under a new action
+        Mailbox mailbox = mailboxes.compute(gameId, (id, box) -> {
+            Mailbox target = box == null ? new Mailbox(id) : box;
+            target.actions.add(action);
+            if (!target.running) {
+                target.running = true;
+                start[0] = true;
+            }
+            return target;
+        });
+        if (start[0]) {
+            schedule(mailbox);
+        }
+    }
+
+    /**
+     * Holds the mailbox of a game for the calling thread until the hold is released, for a change the thread makes
+     * in a transaction of its own. Waits for the actions queued before, the actions queued meanwhile wait for the release.
+     * An action of the game the thread calls while holding the mailbox runs right away.
+     */
+    public Hold hold(Long gameId) {
+        Long previous = currentGame.get();
+        if (gameId.equals(previous)) {
+            return () -> {};
+        }
+        CompletableFuture<Void> held = new CompletableFuture<>();
+        CountDownLatch released = new CountDownLatch(1);
+        submit(gameId, () -> {
+            held.complete(null);
+            awaitUninterruptibly(released);
+        });
+        held.join();
+        currentGame.set(gameId);
+        return () -> {
+            if (previous == null) {
+                currentGame.remove();
+            }
+            else {
+                currentGame.set(previous);
+            }
+            released.countDown();
+        };
+    }
+
+    /**
+     * The number of games with actions queued or running
+     */
+    public int getActiveCount() {
+        return mailboxes.size();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void schedule(Mailbox mailbox) {
+        try {
+            executor.execute(() -> drain(mailbox));
+        }
+        catch (RejectedExecutionException e) {
+            mailboxes.remove(mailbox.gameId, mailbox);
+            throw e;
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        currentGame.set(mailbox.gameId);
+        boolean emptied = false;
+        try {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                Runnable action = next(mailbox);
+                if (action == null) {
+                    emptied = true;
+                    return;
+                }
+                try {
+                    action.run();
+                }
+                catch (RuntimeException e) {
+                    log.error("Action of game {} failed: {}", mailbox.gameId, e.getMessage());
+                }
+            }
+        }
+        finally {
+            currentGame.remove();
+            // still running, also when an Error escaped an action, continue after the mailboxes waiting for a thread
+            if (!emptied) {
+                schedule(mailbox);
+            }
+        }
+    }
+
+    // the next action, or null once the mailbox is empty and has been removed
+    private Runnable next(Mailbox mailbox) {
+        Runnable[] next = new Runnable[1];
+        mailboxes.compute(mailbox.gameId, (id, box) -> {
+            next[0] = mailbox.actions.poll();
+            if (next[0] == null) {
+                mailbox.running = false;
+                return null;
+            }
+            return mailbox;
+        });
+        return next[0];
+    }
+
+    // the mailbox thread keeps waiting for the holder, it has to release the mailbox in any case
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A mailbox held by a thread, to be released exactly once by that thread
+     */
+    public interface Hold extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final class Mailbox {
+
+        private final Long gameId;
+        // only accessed while the map entry of the game is locked
+        private final ArrayDeque<Runnable> actions = new ArrayDeque<>();
+        private boolean running;
+
+        private Mailbox(Long gameId) {
+            this.gameId = gameId;
+        }
+    }
+}
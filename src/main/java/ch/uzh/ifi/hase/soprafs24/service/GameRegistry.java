@@ -0,0 +1,418 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Game Registry
+ * Keeps the games being played in memory so that an action in a live game does not read the game
+ * from the database again. A game is read with its users the first time it is needed and is the
+ * one instance every later action works on, games idle for longer than the configured time or
+ * beyond the maximum number are dropped and read again when needed.
+ * Changed games are marked dirty and, with write-behind durability, written back regularly by a
+ * background thread. Ending a game always writes it synchronously. With write-through durability
+ * every change is written right away. A maximum of 0 games turns the cache off, every action then
+ * reads the game from the database.
+ * The games are detached entities, one action at a time may work on a game, see {@link GameMailboxes}.
+ * A game is written in its mailbox as well, so a write never sees a game half way through an action.
+ * A write takes the version of the game from the database back to the instance in memory, a game
+ * changed elsewhere in the meantime fails with an optimistic locking conflict instead of being
+ * overwritten. When a write of changes made earlier conflicts, the changes are dropped and a
+ * {@link GameWriteConflictEvent} tells the players to fetch the game again.
+ * A write that fails otherwise keeps the game dirty and is tried again with the next flush.
+ * Changes made outside of live play, e.g. by a REST request, go through {@link #update}, so they are
+ * checked against the changes not written yet instead of replacing them.
+ */
+@Service
+public class GameRegistry implements MeterBinder {
+
+    public enum Durability { WRITE_BEHIND, WRITE_THROUGH }
+
+    private static final Logger log = LoggerFactory.getLogger(GameRegistry.class);
+
+    private final GameRepository gameRepository;
+    // null for a registry that writes in the thread of the caller
+    private final GameMailboxes gameMailboxes;
+    // null for a registry that leaves the cross-checks to the caller
+    private final CrossCheckService crossCheckService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionOperations readTransaction;
+    private final TransactionOperations writeTransaction;
+    private final Durability durability;
+    private final Cache<Long, Game> games;
+
+    // changed games not written yet, and the ones being written, they take precedence over the database
+    private final Map<Long, Game> dirty = new ConcurrentHashMap<>();
+    private final Map<Long, Game> writing = new ConcurrentHashMap<>();
+    // games with a background write waiting in their mailbox, so a busy game is not queued again every round
+    private final Set<Long> flushQueued = ConcurrentHashMap.newKeySet();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    // writes the dirty games in the background, only with write-behind durability
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public GameRegistry(GameRepository gameRepository, GameMailboxes gameMailboxes, CrossCheckService crossCheckService,
+                        ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                        @Value("${game-registry.durability:write-behind}") String durability,
+                        @Value("${game-registry.maximum-games:10000}") long maximumGames,
+                        @Value("${game-registry.expire-after-access:30m}") Duration expireAfterAccess,
+                        @Value("${game-registry.flush-interval:1s}") Duration flushInterval) {
+        this(gameRepository, gameMailboxes, crossCheckService, eventPublisher, readOnly(transactionManager), new TransactionTemplate(transactionManager, requiresNew(false)),
+                Durability.valueOf(durability.toUpperCase().replace('-', '_')), maximumGames, expireAfterAccess);
+        if (this.durability == Durability.WRITE_BEHIND) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-registry-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    GameRegistry(GameRepository gameRepository, GameMailboxes gameMailboxes, CrossCheckService crossCheckService,
+                 ApplicationEventPublisher eventPublisher, TransactionOperations readTransaction,
+                 TransactionOperations writeTransaction, Durability durability, long maximumGames, Duration expireAfterAccess) {
+        this.gameRepository = gameRepository;
+        this.gameMailboxes = gameMailboxes;
+        this.crossCheckService = crossCheckService;
+        this.eventPublisher = eventPublisher;
+        this.readTransaction = readTransaction;
+        this.writeTransaction = writeTransaction;
+        this.durability = durability;
+        this.games = maximumGames <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(maximumGames)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    /**
+     * A registry without a cache that reads and writes every game right away in the transaction of the caller
+     */
+    static GameRegistry direct(GameRepository gameRepository) {
+        return new GameRegistry(gameRepository, null, null, event -> {}, TransactionOperations.withoutTransaction(),
+                TransactionOperations.withoutTransaction(), Durability.WRITE_THROUGH, 0, Duration.ZERO);
+    }
+
+    /**
+     * The live instance of a game, read from the database with its users if it is not in memory
+     */
+    public Optional<Game> find(Long gameId) {
+        if (gameId == null) {
+            return Optional.empty();
+        }
+        if (games == null) {
+            return Optional.ofNullable(load(gameId));
+        }
+        return Optional.ofNullable(games.get(gameId, this::load));
+    }
+
+    /**
+     * Records that a game has changed, it is written now or with the next batch depending on the durability
+     */
+    public void markDirty(Game game) {
+        if (game.getId() == null || durability == Durability.WRITE_THROUGH) {
+            save(game);
+            return;
+        }
+        dirty.put(game.getId(), game);
+    }
+
+    /**
+     * Writes a game now if it has unwritten changes and waits for the write, within the mailbox of the game.
+     * Changes that conflict with the stored game are dropped, other failures keep the game dirty.
+     */
+    public void flush(Long gameId) {
+        if (gameId == null || !dirty.containsKey(gameId)) {
+            return;
+        }
+        if (gameMailboxes == null) {
+            write(gameId);
+            return;
+        }
+        gameMailboxes.call(gameId, () -> {
+            write(gameId);
+            return null;
+        });
+    }
+
+    /**
+     * Writes all games with unwritten changes and waits for the writes, a game that fails does not keep the others from being written
+     */
+    public void flushAll() {
+        for (Long gameId : List.copyOf(dirty.keySet())) {
+            try {
+                flush(gameId);
+            }
+            catch (RuntimeException e) {
+                log.error("Writing game {} failed: {}", gameId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the changes of a game that has ended synchronously and drops it from memory
+     */
+    public void end(Long gameId) {
+        evict(gameId);
+    }
+
+    /**
+     * Writes the unwritten changes of a game and drops it and its cross-checks from memory, the next action reads it again
+     */
+    public void evict(Long gameId) {
+        if (gameId == null) {
+            return;
+        }
+        flush(gameId);
+        drop(gameId);
+    }
+
+    /**
+     * Makes a change to a game outside of live play in the thread and transaction of the caller.
+     * The mailbox of the game is held until the transaction of the caller has ended, so no action of the game
+     * overlaps the change or reads the game before it is committed. The unwritten changes of the game are
+     * written first, a change based on an outdated copy of the game then fails with a conflict.
+     * Afterwards the game is read again by the next action.
+     */
+    public <T> T update(Long gameId, Supplier<T> change) {
+        if (gameId == null || gameMailboxes == null) {
+            return apply(gameId, change);
+        }
+        GameMailboxes.Hold hold = gameMailboxes.hold(gameId);
+        boolean releasedOnCompletion = false;
+        try {
+            T result = apply(gameId, change);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        hold.close();
+                    }
+                });
+                releasedOnCompletion = true;
+            }
+            return result;
+        }
+        finally {
+            if (!releasedOnCompletion) {
+                hold.close();
+            }
+        }
+    }
+
+    public long getActiveCount() {
+        return games == null ? 0 : games.estimatedSize();
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("game.registry.active", this, GameRegistry::getActiveCount)
+                .description("Games kept in memory")
+                .register(registry);
+        Gauge.builder("game.registry.dirty", this, GameRegistry::getDirtyCount)
+                .description("Games with changes not written to the database yet")
+                .register(registry);
+        FunctionCounter.builder("game.registry.written", written, LongAdder::sum)
+                .description("Games written to the database")
+                .register(registry);
+        FunctionCounter.builder("game.registry.failed", failed, LongAdder::sum)
+                .description("Writes that failed and are tried again with the next flush")
+                .register(registry);
+        FunctionCounter.builder("game.registry.conflicts", conflicts, LongAdder::sum)
+                .description("Writes that failed because the game had been changed elsewhere")
+                .register(registry);
+    }
+
+    /**
+     * Stops the background writes and writes what is left, waiting for the writes already queued in the mailboxes
+     */
+    @PreDestroy
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushAll();
+    }
+
+    // queues a write of every dirty game in its mailbox, behind the actions already waiting there
+    private void flushInBackground() {
+        if (gameMailboxes == null) {
+            flushAll();
+            return;
+        }
+        for (Long gameId : List.copyOf(dirty.keySet())) {
+            if (!flushQueued.add(gameId)) continue;
+            try {
+                gameMailboxes.submit(gameId, () -> {
+                    flushQueued.remove(gameId);
+                    try {
+                        write(gameId);
+                    }
+                    catch (OptimisticLockingFailureException e) {
+                        log.warn("Game {} was changed elsewhere, its unwritten changes are dropped: {}", gameId, e.getMessage());
+                    }
+                    catch (RuntimeException e) {
+                        log.error("Writing game {} failed, trying again with the next flush: {}", gameId, e.getMessage());
+                    }
+                });
+            }
+            catch (RejectedExecutionException e) {
+                // shutting down, close() writes what is left
+                flushQueued.remove(gameId);
+                return;
+            }
+        }
+    }
+
+    private Game load(Long gameId) {
+        Game game = dirty.get(gameId);
+        if (game == null) {
+            game = writing.get(gameId);
+        }
+        if (game != null) {
+            return game;
+        }
+        if (games != null) {
+            // read anew after it was dropped, the cross-checks may belong to the game as it was
+            evictCrossChecks(gameId);
+        }
+        return readTransaction.execute(status -> gameRepository.findByIdWithUsers(gameId).orElse(null));
+    }
+
+    private <T> T apply(Long gameId, Supplier<T> change) {
+        if (gameId == null) {
+            return change.get();
+        }
+        write(gameId);
+        try {
+            return change.get();
+        }
+        finally {
+            drop(gameId);
+        }
+    }
+
+    // no unwritten changes are dropped, a game still dirty is found by the next action
+    private void drop(Long gameId) {
+        if (games != null) {
+            games.invalidate(gameId);
+        }
+        evictCrossChecks(gameId);
+    }
+
+    private void evictCrossChecks(Long gameId) {
+        if (crossCheckService != null) {
+            crossCheckService.evict(gameId);
+        }
+    }
+
+    // runs in the mailbox of the game, no action changes it meanwhile
+    private void write(Long gameId) {
+        Game game = dirty.remove(gameId);
+        if (game == null) {
+            return;
+        }
+        writing.put(gameId, game);
+        try {
+            save(game);
+        }
+        catch (OptimisticLockingFailureException e) {
+            // the changes are based on an outdated game and would fail again, the action that made them has already answered
+            eventPublisher.publishEvent(new GameWriteConflictEvent(gameId));
+            throw e;
+        }
+        catch (RuntimeException e) {
+            failed.increment();
+            dirty.putIfAbsent(gameId, game);
+            throw e;
+        }
+        finally {
+            writing.remove(gameId, game);
+        }
+    }
+
+    private void save(Game game) {
+        try {
+            adoptVersion(game, writeTransaction.execute(status -> gameRepository.save(game)));
+        }
+        catch (OptimisticLockingFailureException e) {
+            // the game was changed elsewhere, it is read anew the next time it is needed
+            conflicts.increment();
+            if (game.getId() != null) {
+                if (games != null) {
+                    games.invalidate(game.getId());
+                }
+                // the cross-checks may already hold the moves that are now lost
+                evictCrossChecks(game.getId());
+            }
+            throw e;
+        }
+        written.increment();
+    }
+
+    // the saved copy holds the version written by the transaction, the next write of the game is checked against it
+    private static void adoptVersion(Game game, Game saved) {
+        if (saved != null && saved != game) {
+            game.setVersion(saved.getVersion());
+        }
+    }
+
+    private static TransactionTemplate readOnly(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager, requiresNew(true));
+    }
+
+    // a transaction of its own so that the game is detached when it ends, also when called within another one
+    private static TransactionDefinition requiresNew(boolean readOnly) {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        definition.setReadOnly(readOnly);
+        return definition;
+    }
+}
@@ -35,10 +35,14 @@ public class GameService {
 
     private final UserRepository userRepository;
 
+    private final GameRegistry gameRegistry;
+
     @Autowired
-    public GameService(@Qualifier("gameRepository") GameRepository gameRepository, @Qualifier("userRepository") UserRepository userRepository) {
+    public GameService(@Qualifier("gameRepository") GameRepository gameRepository, @Qualifier("userRepository") UserRepository userRepository,
+                       GameRegistry gameRegistry) {
     this.gameRepository = gameRepository;
     this.userRepository = userRepository;
+    this.gameRegistry = gameRegistry;
     }
 
     public Game createGame(User host) throws UserNotFoundException {
@@ -52,7 +56,10 @@ public class GameService {
         return gameRepository.save(game);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Game> getGameById(Long id) {
+        // write pending changes of a live game first so the database is up to date
+        gameRegistry.flush(id);
         return gameRepository.findById(id);
     }
 
@@ -60,7 +67,7 @@ public class GameService {
         if(game == null || game.getId() == null ||gameRepository.findById(game.getId()).isEmpty()) throw new GameNotFoundException("Game not found");
         if(user == null || user.getId() == null ||userRepository.findById(user.getId()).isEmpty()) throw new UserNotFoundException("User not found");
         if(!game.getUsers().contains(user)) game.addUser(user);
-        return gameRepository.saveAndFlush(game);
+        return saveAndEvict(game);
     }
 
     public Game leaveGame(Game game, User user) throws GameNotFoundException, UserNotFoundException {
@@ -70,7 +77,7 @@ public class GameService {
         if(!game.getUsers().isEmpty()) {
             game.setHost(game.getUsers().get(0));
         }
-        return gameRepository.saveAndFlush(game);
+        return saveAndEvict(game);
     }
 
     public boolean isUserInGame(Game game, User user) {
@@ -86,7 +93,7 @@ public class GameService {
         if((newGameStatus == GameStatus.ONGOING && oldStatus == GameStatus.TERMINATED) || newGameStatus == GameStatus.CREATED )
             throw new InvalidGameStatusException("Invalid game status transition from " + oldStatus + " to " + newGameStatus);
         game.setGameStatus(newGameStatus);
-        return gameRepository.saveAndFlush(game);
+        return saveAndEvict(game);
     }
 
     public void exchangeTiles(Game game, String[] userTiles, Long userId) {
@@ -98,27 +105,21 @@ public class GameService {
             allNewTiles.add(String.valueOf(exchangedTiles.get(i)));
         }
         game.setTilesForPlayer(userId, allNewTiles);
-        gameRepository.saveAndFlush(game);
+        gameRegistry.markDirty(game);
     }
 
     public String[] assignNewLetters(Game game, Long userId, String[] tilesLeftInHand) {
-        if(tilesLeftInHand.length > 7) throw new IllegalArgumentException("You can only have at most 7 tiles in hand");
-        List<Character> assignedLetters = game.drawLetters(7 - tilesLeftInHand.length);
-        List<String> allNewTiles = new ArrayList<>(Arrays.asList(tilesLeftInHand));
-        for (Character letter : assignedLetters) {
-            allNewTiles.add(String.valueOf(letter));
-        }
-        game.setTilesForPlayer(userId, allNewTiles);
-        gameRepository.saveAndFlush(game);
-        return allNewTiles.toArray(new String[0]);
+        String[] rack = game.refillRack(userId, tilesLeftInHand);
+        gameRegistry.markDirty(game);
+        return rack;
     }
 
     public boolean skipTurn(Long id, Long playerId) throws GameNotFoundException {
-        Optional<Game> gameOptional = gameRepository.findById(id);
+        Optional<Game> gameOptional = gameRegistry.find(id);
         if (gameOptional.isPresent()) {
             Game game = gameOptional.get();
             game.setHostTurn(!game.getHost().getId().equals(playerId));
-            gameRepository.saveAndFlush(game);
+            gameRegistry.markDirty(game);
             return game.isHostTurn();
         } else {
             log.warn("Game with id {} not found", id);
@@ -131,22 +132,57 @@ public class GameService {
         return letterCount;
     }
 
+    /**
+     * Terminates a game and updates the high scores and status of its users in one transaction,
+     * a conflict on any of them leaves neither the game nor the users changed
+     * @param surrenderId the player who surrendered, null if the game ended regularly
+     */
+    public void endGame(Long gameId, Long surrenderId) {
+        // the users are updated as well, so the game is ended on a fresh copy once its changes are written
+        gameRegistry.end(gameId);
+        Game game = gameRepository.findForEndById(gameId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+
+        for (User user : game.getUsers()) {
+            Integer playerScore = game.getPlayerScores().get(user.getId());
+            if (playerScore != null && user.getHighScore() < playerScore) {
+                user.setHighScore(playerScore);
+            }
+            user.setInGame(false);
+            userRepository.saveAndFlush(user);
+        }
+
+        game.setGameStatus(GameStatus.TERMINATED);
+        if (surrenderId != null) {
+            game.setSurrenderId(surrenderId);
+        }
+        gameRepository.saveAndFlush(game);
+    }
+
     public void deleteGame(Game game) {
-        gameRepository.delete(game);
+        gameRegistry.update(game.getId(), () -> {
+            gameRepository.delete(game);
+            return null;
+        });
     }
   
     public User changeUserTurn(Game game) {
-        game = gameRepository.findByIdWithUsers(game.getId()).get();
-        game.setHostTurn(!game.isHostTurn());
-        gameRepository.saveAndFlush(game);
-        return game.isHostTurn() ? game.getHost() : game.getUsers().get(1);
+        game = gameRegistry.find(game.getId()).get();
+        User userAtTurn = game.switchTurn();
+        gameRegistry.markDirty(game);
+        return userAtTurn;
+    }
+
+    // Games changed outside of live play are saved in turn with the actions of the game and read again by the next action
+    private Game saveAndEvict(Game game) {
+        return gameRegistry.update(game.getId(), () -> gameRepository.saveAndFlush(game));
     }
 
     public void setGameStartTime(Game game) {
 
         if (game.getStartTime() == null) {
             game.setStartTime(LocalDateTime.now());
-            gameRepository.save(game);
+            gameRegistry.update(game.getId(), () -> gameRepository.save(game));
             log.info("Game started. Start time set to {}", game.getStartTime());
         } else {
             log.info("Game already has a start time: {}", game.getStartTime());
@@ -0,0 +1,20 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+/**
+ * Game Write Conflict Event
+ * Published by the {@link GameRegistry} when the unwritten changes of a game could not be written
+ * because the game was changed elsewhere in the meantime. The changes are dropped and the game is
+ * read anew, the players have to fetch the game state again.
+ */
+public class GameWriteConflictEvent {
+
+    private final Long gameId;
+
+    public GameWriteConflictEvent(Long gameId) {
+        this.gameId = gameId;
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+}
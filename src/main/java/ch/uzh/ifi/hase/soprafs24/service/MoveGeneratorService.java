@@ -0,0 +1,311 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.game.CrossChecks;
+import ch.uzh.ifi.hase.soprafs24.game.GeneratedMove;
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+import ch.uzh.ifi.hase.soprafs24.game.Ruleset;
+import ch.uzh.ifi.hase.soprafs24.lexicon.DawgLexicon;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Move Generator Service
+ * Enumerates every legal move for a rack on a board, the basis for hints, bots and detecting
+ * that a player cannot move anymore. Implements the Appel-Jacobson algorithm on the bundled DAWG:
+ * words are grown through every anchor square (an empty square next to a tile), using the
+ * {@link CrossChecks} of the game for the letters that also form valid perpendicular words,
+ * so no strings are built or looked up while searching. Vertical moves are generated the same way with rows and
+ * columns swapped. Scores follow the same rules as {@link MoveSubmitService}.
+ */
+@Service
+@Transactional
+public class MoveGeneratorService {
+
+    private static final int SIZE = CrossChecks.SIZE;
+
+    private final GameRegistry gameRegistry;
+    private final DawgLexicon lexicon;
+    private final CrossCheckService crossCheckService;
+
+    @Autowired
+    public MoveGeneratorService(GameRegistry gameRegistry, DawgLexicon lexicon, CrossCheckService crossCheckService) {
+        this.gameRegistry = gameRegistry;
+        this.lexicon = lexicon;
+        this.crossCheckService = crossCheckService;
+    }
+
+    /**
+     * All legal moves for the tiles of a player in a game, highest score first
+     */
+    public List<GeneratedMove> generateMoves(Long gameId, Long userId) {
+        Game game = gameRegistry.find(gameId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+        return generateMoves(crossCheckService.forGame(game), game.getPlayerTiles(userId));
+    }
+
+    /**
+     * The highest scoring move of a player, empty if the player cannot place any word
+     */
+    public Optional<GeneratedMove> findBestMove(Long gameId, Long userId) {
+        return generateMoves(gameId, userId).stream().findFirst();
+    }
+
+    /**
+     * All legal moves for a rack on a board, highest score first
+     * @param board current board
+     * @param rack the tiles of the player, one letter each
+     */
+    public List<GeneratedMove> generateMoves(Board board, String[] rack) {
+        return generateMoves(CrossChecks.of(board, lexicon), rack);
+    }
+
+    /**
+     * All legal moves for a rack on a board with known cross-checks, highest score first
+     */
+    public List<GeneratedMove> generateMoves(CrossChecks crossChecks, String[] rack) {
+        int[] rackCounts = new int[27];
+        for (String tile : rack) {
+            if (tile != null && tile.length() == 1) {
+                int letter = Character.toUpperCase(tile.charAt(0)) - 'A' + 1;
+                if (letter >= 1 && letter <= 26) {
+                    rackCounts[letter]++;
+                }
+            }
+        }
+
+        Search search = new Search(crossChecks, rackCounts);
+        search.generate(true);
+        search.generate(false);
+        search.moves.sort(Comparator.comparingInt(GeneratedMove::getScore).reversed());
+        return search.moves;
+    }
+
+    private static int bit(int letter) {
+        return 1 << (letter - 1);
+    }
+
+    /**
+     * State of one generation run. Positions along the current line are 0-14, the line is a row
+     * for horizontal and a column for vertical moves.
+     */
+    private final class Search {
+
+        private final CrossChecks board;
+        private final Ruleset ruleset;
+        private final int[] rack;
+        // letter 1-26 on every square, 0 if empty, and the points of the tile there
+        private final int[] squares = new int[SIZE * SIZE];
+        private final int[] tilePoints = new int[SIZE * SIZE];
+        private final boolean[] anchors = new boolean[SIZE * SIZE];
+        private final List<GeneratedMove> moves = new ArrayList<>();
+
+        // cross-checks of the current direction, copied out of the board for the inner loops
+        private final int[] crossChecks = new int[SIZE * SIZE];
+        private final int[] crossScores = new int[SIZE * SIZE];
+
+        private boolean horizontal;
+        private int line;
+        private int anchor;
+
+        // letters left of the anchor, either already on the board or taken from the rack
+        private final int[] leftPart = new int[SIZE];
+        private int leftLength;
+        private boolean leftPartOnBoard;
+
+        // letters from the anchor to the right, placed marks the ones taken from the rack
+        private final int[] letters = new int[SIZE];
+        private final boolean[] placed = new boolean[SIZE];
+
+        private Search(CrossChecks board, int[] rack) {
+            this.board = board;
+            this.ruleset = board.ruleset();
+            this.rack = rack;
+            for (int square = 0; square < SIZE * SIZE; square++) {
+                squares[square] = board.letter(square);
+                tilePoints[square] = board.points(square);
+                anchors[square] = board.isAnchor(square);
+            }
+        }
+
+        private void generate(boolean horizontal) {
+            this.horizontal = horizontal;
+            for (int square = 0; square < SIZE * SIZE; square++) {
+                crossChecks[square] = board.crossCheck(square, horizontal);
+                crossScores[square] = board.crossScore(square, horizontal);
+            }
+
+            for (line = 0; line < SIZE; line++) {
+                int previousAnchor = -1;
+                for (int pos = 0; pos < SIZE; pos++) {
+                    if (!anchors[square(pos)]) continue;
+                    anchor = pos;
+
+                    if (pos > 0 && squares[square(pos - 1)] != 0) {
+                        // the tiles left of the anchor are the fixed start of the word
+                        int start = pos - 1;
+                        while (start > 0 && squares[square(start - 1)] != 0) start--;
+                        int node = lexicon.root();
+                        leftLength = 0;
+                        leftPartOnBoard = true;
+                        for (int i = start; i < pos && node != 0; i++) {
+                            int letter = squares[square(i)];
+                            leftPart[leftLength++] = letter;
+                            int edge = lexicon.edge(node, letter);
+                            node = edge == 0 ? 0 : DawgLexicon.targetOf(edge);
+                        }
+                        if (node != 0) {
+                            extendRight(node, anchor, false);
+                        }
+                    }
+                    else {
+                        // rack tiles may be put on the empty squares up to the previous anchor
+                        leftLength = 0;
+                        leftPartOnBoard = false;
+                        extendLeft(lexicon.root(), pos - previousAnchor - 1);
+                    }
+                    previousAnchor = pos;
+                }
+            }
+        }
+
+        private void extendLeft(int node, int limit) {
+            extendRight(node, anchor, false);
+            if (limit == 0 || node == 0) return;
+            for (int i = node; ; i++) {
+                int edge = lexicon.edgeAt(i);
+                int letter = DawgLexicon.letterOf(edge);
+                if (rack[letter] > 0) {
+                    rack[letter]--;
+                    leftPart[leftLength++] = letter;
+                    extendLeft(DawgLexicon.targetOf(edge), limit - 1);
+                    leftLength--;
+                    rack[letter]++;
+                }
+                if (DawgLexicon.isLast(edge)) break;
+            }
+        }
+
+        private void extendRight(int node, int pos, boolean terminal) {
+            if (pos == SIZE) {
+                if (terminal && pos > anchor) record(pos);
+                return;
+            }
+            int square = square(pos);
+            if (squares[square] != 0) {
+                int letter = squares[square];
+                int edge = lexicon.edge(node, letter);
+                if (edge != 0) {
+                    letters[pos] = letter;
+                    placed[pos] = false;
+                    extendRight(DawgLexicon.targetOf(edge), pos + 1, DawgLexicon.isTerminal(edge));
+                }
+                return;
+            }
+
+            if (terminal && pos > anchor) record(pos);
+            if (node == 0) return;
+            int allowed = crossChecks[square];
+            for (int i = node; ; i++) {
+                int edge = lexicon.edgeAt(i);
+                int letter = DawgLexicon.letterOf(edge);
+                if (rack[letter] > 0 && (allowed & bit(letter)) != 0) {
+                    rack[letter]--;
+                    letters[pos] = letter;
+                    placed[pos] = true;
+                    extendRight(DawgLexicon.targetOf(edge), pos + 1, DawgLexicon.isTerminal(edge));
+                    placed[pos] = false;
+                    rack[letter]++;
+                }
+                if (DawgLexicon.isLast(edge)) break;
+            }
+        }
+
+        // records the word from the start of the left part up to (excluding) end
+        private void record(int end) {
+            int start = anchor - leftLength;
+            if (end - start < 2) return;
+
+            List<Placement> placements = new ArrayList<>();
+            List<String> crossWords = new ArrayList<>();
+            StringBuilder mainWord = new StringBuilder(end - start);
+            int mainScore = 0;
+            int wordMultiplier = 1;
+            int crossScore = 0;
+            int lastPlaced = -1;
+            for (int pos = start; pos < end; pos++) {
+                boolean isNew;
+                int letter;
+                if (pos < anchor) {
+                    letter = leftPart[pos - start];
+                    isNew = !leftPartOnBoard;
+                }
+                else {
+                    letter = letters[pos];
+                    isNew = placed[pos];
+                }
+                char character = (char) ('A' + letter - 1);
+                mainWord.append(character);
+
+                int square = square(pos);
+                if (!isNew) {
+                    mainScore += tilePoints[square];
+                    continue;
+                }
+                placements.add(new Placement(square / SIZE, square % SIZE, character));
+                lastPlaced = square;
+                int letterScore = ruleset.points(letter) * ruleset.letterMultiplier(square);
+                mainScore += letterScore;
+                wordMultiplier *= ruleset.wordMultiplier(square);
+                if (crossScores[square] >= 0) {
+                    crossWords.add(crossWord(square, character));
+                    crossScore += (crossScores[square] + letterScore) * ruleset.wordMultiplier(square);
+                }
+            }
+            // a single tile that also forms a horizontal word was already found as a horizontal move
+            if (!horizontal && placements.size() == 1 && crossScores[lastPlaced] >= 0) return;
+
+            List<String> words = new ArrayList<>(crossWords.size() + 1);
+            words.add(mainWord.toString());
+            words.addAll(crossWords);
+            moves.add(new GeneratedMove(placements, horizontal, words, mainScore * wordMultiplier + crossScore));
+        }
+
+        private String crossWord(int square, char letter) {
+            int dRow = horizontal ? 1 : 0;
+            int dCol = horizontal ? 0 : 1;
+            int row = square / SIZE;
+            int col = square % SIZE;
+            while (occupied(row - dRow, col - dCol)) {
+                row -= dRow;
+                col -= dCol;
+            }
+
+            StringBuilder word = new StringBuilder();
+            for (; row < SIZE && col < SIZE; row += dRow, col += dCol) {
+                int i = row * SIZE + col;
+                if (i == square) word.append(letter);
+                else if (squares[i] != 0) word.append((char) ('A' + squares[i] - 1));
+                else break;
+            }
+            return word.toString();
+        }
+
+        private int square(int pos) {
+            return horizontal ? line * SIZE + pos : pos * SIZE + line;
+        }
+
+        private boolean occupied(int row, int col) {
+            return row >= 0 && row < SIZE && col >= 0 && col < SIZE && squares[row * SIZE + col] != 0;
+        }
+    }
+}
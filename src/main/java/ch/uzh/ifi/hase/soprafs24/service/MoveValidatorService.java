@@ -1,18 +1,30 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
-import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.game.CrossChecks;
+import ch.uzh.ifi.hase.soprafs24.game.MoveResult;
+import ch.uzh.ifi.hase.soprafs24.game.Occupancy;
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+import ch.uzh.ifi.hase.soprafs24.lexicon.SingleFlightLookup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Move Validator Service
@@ -23,49 +35,74 @@ import java.util.List;
 public class MoveValidatorService {
 
     private final Logger log = LoggerFactory.getLogger(MoveValidatorService.class);
-    private final GameRepository gameRepository;
-    private final RestTemplate restTemplate;
-    
-    // Simple cache to avoid repeated API calls for the same words
-    private static final String API_URL = "https://api.dictionaryapi.dev/api/v2/entries/en/";
+    private final GameRegistry gameRegistry;
+    private final SingleFlightLookup wordLookup;
+    private final CrossCheckService crossCheckService;
+    private final Duration lookupTimeout;
 
     @Autowired
-    public MoveValidatorService(GameRepository gameRepository) {
-        this.gameRepository = gameRepository;
-        this.restTemplate = new RestTemplate();
+    public MoveValidatorService(GameRegistry gameRegistry, SingleFlightLookup wordLookup,
+                                CrossCheckService crossCheckService,
+                                @Value("${dictionary.lookup.timeout:3s}") Duration lookupTimeout) {
+        this.gameRegistry = gameRegistry;
+        this.wordLookup = wordLookup;
+        this.crossCheckService = crossCheckService;
+        this.lookupTimeout = lookupTimeout;
     }
 
     /**
      * Validates a move placement and extracts words formed
      * @param gameId ID of the game
      * @param newBoard Proposed new board state
-     * @return List of words formed by the new move
+     * @return the words formed by the new move with their scores
      */
-    public List<String> validateMoveAndExtractWords(Long gameId, String[][] newBoard) {
-        // Get the game from repository
-        Game game = gameRepository.findById(gameId)
+    public MoveResult validateMoveAndExtractWords(Long gameId, Board newBoard) {
+        // Get the live game
+        Game game = gameRegistry.find(gameId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
 
         // Get current board state
-        String[][] currentBoard = game.getBoard();
-        
+        Board currentBoard = game.getBoard();
+
+        return validateMove(game, newBoard, findNewPositions(currentBoard, newBoard));
+    }
+
+    /**
+     * Validates a move sent as the tiles it places and extracts words formed,
+     * the tiles are put on the board of the game so no boards have to be compared
+     * @param gameId ID of the game
+     * @param placements the tiles placed by the move
+     * @return the words formed by the new move with their scores
+     */
+    public MoveResult validateMoveAndExtractWords(Long gameId, List<Placement> placements) {
+        Game game = gameRegistry.find(gameId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+
+        Board newBoard;
+        try {
+            newBoard = game.getBoard().with(placements);
+        }
+        catch (IllegalArgumentException e) {
+            log.error("Move validation failed: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return validateMove(game, newBoard, positionsOf(placements));
+    }
+
+    private MoveResult validateMove(Game game, Board newBoard, List<int[]> newPositions) {
         try {
             // Validate move and get formed words
-            List<String> formedWords = findWords(currentBoard, newBoard);
+            MoveResult result = evaluate(game.getBoard(), newBoard, newPositions);
             
             // If no valid words were formed, throw an exception
-            if (formedWords.isEmpty()) {
+            if (result.isEmpty()) {
                 throw new IllegalArgumentException("No valid words formed");
             }
             
-            // Dictionary validation
-            for (String word : formedWords) {
-                if (!isValidWord(word)) {
-                    throw new IllegalArgumentException("Invalid word: " + word);
-                }
-            }
+            // Dictionary validation, cross words already checked against the board need no lookup
+            validateWords(wordsToLookUp(crossCheckService.forGame(game), newBoard, newPositions, result.getWords()));
             
-            return formedWords;
+            return result;
         } 
         catch (IllegalArgumentException e) {
             log.error("Move validation failed: {}", e.getMessage());
@@ -74,41 +111,150 @@ public class MoveValidatorService {
     }
     
     /**
-     * Checks if a word exists in the dictionary
+     * Drops the cross words whose new letter is in the cross-check set of its square, those are
+     * known to be valid. When the bundled lexicon is the only dictionary a letter outside of the
+     * set is rejected right away, otherwise the dictionary may still know the word.
+     * Every cross word is read again from the new board at the square of its tile, if the
+     * cross-checks or the formed words do not agree with it everything is looked up.
      */
-    public boolean isValidWord(String word) {
+    private List<String> wordsToLookUp(CrossChecks crossChecks, Board newBoard, List<int[]> newPositions, List<String> formedWords) {
+        boolean horizontal = isHorizontal(newPositions);
 
-        String url = API_URL + word.toLowerCase();
-        
-        try {
-            // Make API request
-            Object response = restTemplate.getForObject(url, Object.class);
-            
-            // Check response type - valid words return an array
-            boolean isValid = response instanceof List;
-            
-            return isValid;
-        } 
-        catch (Exception e) {
-            log.error("Dictionary API error: {}", e.getMessage());
-            return false;
+        List<String> unmatched = new ArrayList<>(formedWords);
+        List<String> words = new ArrayList<>(formedWords);
+        for (int[] pos : newPositions) {
+            int square = pos[0] * CrossChecks.SIZE + pos[1];
+            String crossWord = findWordAt(newBoard, pos[0], pos[1], !horizontal);
+            boolean formsCrossWord = crossWord.length() > 1;
+            if (crossChecks.letter(square) != 0 || formsCrossWord != crossChecks.crossScore(square, horizontal) >= 0) {
+                // the cross-checks do not match the board, look up everything
+                return formedWords;
+            }
+            if (!formsCrossWord) continue;
+            if (!unmatched.remove(crossWord)) {
+                // not one of the formed words, look up everything
+                return formedWords;
+            }
+
+            boolean known = crossChecks.allows(square, newBoard.letter(square), horizontal);
+            if (!known && crossCheckService.isAuthoritative()) {
+                throw new IllegalArgumentException("Invalid word: " + crossWord);
+            }
+            if (known) {
+                words.remove(crossWord);
+            }
         }
+        return words;
     }
 
-    // "Main" method to find words formed by new tiles
-    public List<String> findWords(String[][] oldBoard, String[][] newBoard) {
-        // Find new tile positions
+    // the new tiles are the squares that are empty on the game board
+    private List<int[]> findNewPositions(Board oldBoard, Board newBoard) {
         List<int[]> newPositions = new ArrayList<>();
-        
-        // Compare boards to find new tiles positions
-        for (int i = 0; i < oldBoard.length; i++) {
-            for (int j = 0; j < oldBoard[0].length; j++) {
-                if (oldBoard[i][j].equals("") && !newBoard[i][j].equals("")) {
-                    newPositions.add(new int[]{i, j});
+        Occupancy newTiles = newBoard.newTilesSince(oldBoard);
+        for (int square = newTiles.first(); square >= 0; square = newTiles.next(square + 1)) {
+            newPositions.add(new int[]{square / Board.SIZE, square % Board.SIZE});
+        }
+        return newPositions;
+    }
+
+    /**
+     * The squares of the placed tiles in board order, as found by comparing the boards
+     */
+    public List<int[]> positionsOf(List<Placement> placements) {
+        List<int[]> positions = new ArrayList<>(placements.size());
+        for (Placement placement : placements) {
+            positions.add(new int[]{placement.getRow(), placement.getCol()});
+        }
+        positions.sort(Comparator.comparingInt(pos -> pos[0] * Board.SIZE + pos[1]));
+        return positions;
+    }
+
+    /**
+     * Looks up all words concurrently and fails as soon as one of them is invalid, when a lookup
+     * fails or when the lookups take longer than the configured timeout. A dictionary that cannot
+     * answer is reported as unavailable, never as an invalid word.
+     */
+    private void validateWords(List<String> words) {
+        CompletableFuture<String> firstInvalidWord = new CompletableFuture<>();
+        CompletableFuture<?>[] lookups = new CompletableFuture<?>[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            // the lookup futures are shared with other games, only the dependent stages may be cancelled
+            lookups[i] = wordLookup.lookup(word).handle((valid, error) -> {
+                if (error != null) {
+                    log.error("Dictionary lookup failed: {}", error.getMessage());
+                    firstInvalidWord.completeExceptionally(error);
+                }
+                else if (!valid) {
+                    firstInvalidWord.complete(word);
                 }
+                return null;
+            });
+        }
+
+        // completes with the first invalid word, exceptionally with the first failed lookup, or with null once every lookup succeeded
+        CompletableFuture<Object> outcome = CompletableFuture.anyOf(firstInvalidWord, CompletableFuture.allOf(lookups));
+        Object invalidWord;
+        try {
+            invalidWord = outcome.get(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Word validation timed out, please try again");
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Word validation was interrupted");
+        }
+        catch (ExecutionException e) {
+            throw dictionaryUnavailable();
+        }
+        finally {
+            for (CompletableFuture<?> lookup : lookups) {
+                lookup.cancel(false);
             }
         }
-        
+
+        if (invalidWord != null) {
+            throw new IllegalArgumentException("Invalid word: " + invalidWord);
+        }
+    }
+
+    /**
+     * Checks if a word exists in the dictionary
+     * @throws ResponseStatusException with 503 if the dictionary cannot answer
+     */
+    public boolean isValidWord(String word) {
+        try {
+            return wordLookup.lookup(word).join();
+        }
+        catch (CompletionException e) {
+            log.error("Dictionary lookup failed: {}", e.getCause().getMessage());
+            throw dictionaryUnavailable();
+        }
+    }
+
+    private static ResponseStatusException dictionaryUnavailable() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Dictionary unavailable, please try again");
+    }
+
+    // "Main" method to find words formed by new tiles
+    public List<String> findWords(Board oldBoard, Board newBoard) {
+        // Compare boards to find new tiles positions
+        return findWords(oldBoard, newBoard, findNewPositions(oldBoard, newBoard));
+    }
+
+    /**
+     * Finds the words formed by new tiles whose positions are known, in board order
+     */
+    public List<String> findWords(Board oldBoard, Board newBoard, List<int[]> newPositions) {
+        return evaluate(oldBoard, newBoard, newPositions).getWords();
+    }
+
+    /**
+     * Validates the placement of new tiles and reads and scores the words they form in one pass
+     * @param newPositions the squares of the new tiles in board order
+     */
+    public MoveResult evaluate(Board oldBoard, Board newBoard, List<int[]> newPositions) {
         // If no new tiles, return empty list
         if (newPositions.isEmpty()) {
             throw new IllegalArgumentException("No new tiles placed");
@@ -117,25 +263,8 @@ public class MoveValidatorService {
         // Validate placement (straight line and connected tiles)
         validatePlacement(oldBoard, newPositions, newBoard);
         
-        // Find all words
-        List<String> words = new ArrayList<>();
-        boolean isHorizontal = isHorizontal(newPositions);
-        
-        // Find the main word
-        String mainWord = findWordAt(newBoard, newPositions.get(0)[0], newPositions.get(0)[1], isHorizontal);
-        if (mainWord.length() > 1) {
-            words.add(mainWord); // Add the main word first
-        }
-        
-        // Find perpendicular words
-        for (int[] pos : newPositions) {
-            String perpWord = findWordAt(newBoard, pos[0], pos[1], !isHorizontal);
-            if (perpWord.length() > 1) {
-                words.add(perpWord);
-            }
-        }
-        
-        return words;
+        // main word first, followed by the perpendicular words
+        return MoveResult.evaluate(oldBoard, newBoard, newPositions);
     }
     
     public boolean isHorizontal(List<int[]> positions) {
@@ -146,33 +275,26 @@ public class MoveValidatorService {
         return positions.stream().allMatch(pos -> pos[1] == positions.get(0)[1]);
     }
     
-    public void validatePlacement(String[][] board, List<int[]> positions, String[][] newBoard) {
-        boolean isHorz = isHorizontal(positions);
-        boolean isVert = isVertical(positions);
-        
-        if (!isHorz && !isVert) {
+    public void validatePlacement(Board board, List<int[]> positions, Board newBoard) {
+        Occupancy.Builder builder = Occupancy.builder();
+        for (int[] pos : positions) {
+            builder.set(pos[0], pos[1]);
+        }
+        Occupancy placed = builder.build();
+
+        if (!placed.isInOneRow() && !placed.isInOneColumn()) {
             throw new IllegalArgumentException("New tiles must be placed in a straight line");
         }
-        
-        // Check if this is the first move (board is empty)
-        boolean boardIsEmpty = true;
-        for (int i = 0; i < board.length && boardIsEmpty; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                if (!board[i][j].equals("")) {
-                    boardIsEmpty = false;
-                    break;
-                }
-            }
+
+        // every square between the first and the last new tile must have a tile
+        if (!newBoard.occupancy().containsAll(placed.span())) {
+            throw new IllegalArgumentException("New tiles must not leave gaps");
         }
         
-        if (boardIsEmpty) {
+        // Check if this is the first move (board is empty)
+        if (board.isEmpty()) {
             // For the first move, one tile must cover the center square (7,7)
-            int centerX = 7;
-            int centerY = 7;
-            boolean coversCenterSquare = positions.stream()
-                .anyMatch(pos -> pos[0] == centerX && pos[1] == centerY);
-                
-            if (!coversCenterSquare) {
+            if (!placed.contains(Board.CENTER)) {
                 throw new IllegalArgumentException("First word must cover the center square");
             }
             
@@ -180,64 +302,37 @@ public class MoveValidatorService {
         }
 
         // check if every new tile is connected to another tile (already on the board or new)
-        boolean allConnected = true;
-        for (int[] pos : positions) {
-            int x = pos[0], y = pos[1];
-            boolean tileConnected = 
-                (x > 0 && !newBoard[x-1][y].equals("")) || 
-                (x < newBoard.length-1 && !newBoard[x+1][y].equals("")) ||
-                (y > 0 && !newBoard[x][y-1].equals("")) ||
-                (y < newBoard[0].length-1 && !newBoard[x][y+1].equals(""));
-                
-            if (!tileConnected) {
-                allConnected = false;
-                break;
-            }
-        }
-        
-        if (!allConnected) {
+        if (!newBoard.occupancy().neighbours().containsAll(placed)) {
             throw new IllegalArgumentException("All new tiles must connect to other tiles");
         }
 
         // check if at least one new tile connects to existing tiles
-        boolean anyConnectedToExisting = false;
-        for (int[] pos : positions) {
-            int x = pos[0], y = pos[1];
-            if ((x > 0 && !board[x-1][y].equals("")) || 
-                (x < board.length-1 && !board[x+1][y].equals("")) ||
-                (y > 0 && !board[x][y-1].equals("")) ||
-                (y < board[0].length-1 && !board[x][y+1].equals(""))) {
-                anyConnectedToExisting = true;
-                break; // Once we find one connection, we can stop checking
-            }
-        }
-
-        if (!anyConnectedToExisting) {
+        if (!board.occupancy().neighbours().intersects(placed)) {
             throw new IllegalArgumentException("New tiles must connect to existing tiles");
         }
     }
     
-    public String findWordAt(String[][] board, int x, int y, boolean horizontal) {
+    public String findWordAt(Board board, int x, int y, boolean horizontal) {
         StringBuilder word = new StringBuilder();
         
         // Find start of word
         int startX = x, startY = y;
         if (horizontal) {
-            while (startY > 0 && !board[startX][startY-1].equals("")) startY--;
+            while (board.isOccupied(startX, startY-1)) startY--;
         } else {
-            while (startX > 0 && !board[startX-1][startY].equals("")) startX--;
+            while (board.isOccupied(startX-1, startY)) startX--;
         }
         
         // Build word
         int curX = startX, curY = startY;
         if (horizontal) {
-            while (curY < board[0].length && !board[curX][curY].equals("")) {
-                word.append(board[curX][curY]);
+            while (board.isOccupied(curX, curY)) {
+                word.append(board.charAt(curX, curY));
                 curY++;
             }
         } else {
-            while (curX < board.length && !board[curX][curY].equals("")) {
-                word.append(board[curX][curY]);
+            while (board.isOccupied(curX, curY)) {
+                word.append(board.charAt(curX, curY));
                 curX++;
             }
         }
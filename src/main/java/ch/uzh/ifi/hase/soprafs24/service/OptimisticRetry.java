@@ -0,0 +1,98 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Optimistic Retry
+ * Runs an action again when it fails with an optimistic locking conflict, that is when an entity it
+ * writes was changed by someone else since it was read. Before every new attempt the caller drops
+ * the stale state it holds and the retry waits a random time up to a backoff that doubles with each
+ * attempt, so that two actions conflicting with each other do not collide again right away.
+ * After the last attempt the conflict is thrown to the caller.
+ */
+@Service
+public class OptimisticRetry implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    @Autowired
+    public OptimisticRetry(@Value("${optimistic-retry.max-attempts:3}") int maxAttempts,
+                           @Value("${optimistic-retry.backoff:20ms}") Duration backoff) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(1, backoff.toMillis());
+    }
+
+    /**
+     * Runs the action, on a conflict runs beforeRetry and then the action again until the attempts are used up
+     * @throws OptimisticLockingFailureException if the last attempt conflicts as well
+     */
+    public <T> T run(Supplier<T> action, Runnable beforeRetry) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            }
+            catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw e;
+                }
+                retried.increment();
+                log.info("Conflicting write in attempt {}, trying again: {}", attempt, e.getMessage());
+                beforeRetry.run();
+                if (!pause(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public long getRetriedCount() {
+        return retried.sum();
+    }
+
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("optimistic.conflicts.retried", retried, LongAdder::sum)
+                .description("Actions run again after an optimistic locking conflict")
+                .register(registry);
+        FunctionCounter.builder("optimistic.conflicts.exhausted", exhausted, LongAdder::sum)
+                .description("Actions that still conflicted after the last attempt")
+                .register(registry);
+    }
+
+    // false if interrupted while waiting
+    private boolean pause(int attempt) {
+        long bound = backoffMillis << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+            return true;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
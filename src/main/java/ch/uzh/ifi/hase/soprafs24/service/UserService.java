@@ -1,5 +1,7 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
+import ch.uzh.ifi.hase.soprafs24.auth.SessionToken;
+import ch.uzh.ifi.hase.soprafs24.auth.SessionTokens;
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
@@ -14,7 +16,6 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 /**
  * User Service
@@ -31,11 +32,16 @@ public class UserService {
 
   private final UserRepository userRepository;
 
+  private final SessionTokens sessionTokens;
+
   @Autowired
-  public UserService(@Qualifier("userRepository") UserRepository userRepository) {
+  public UserService(@Qualifier("userRepository") UserRepository userRepository, SessionTokens sessionTokens) {
     this.userRepository = userRepository;
+    this.sessionTokens = sessionTokens;
   }
 
+  // read-only, so committing does not flush and the friends of all users are still fetched in batches afterwards
+  @Transactional(readOnly = true)
   public List<User> getUsers() {
     return this.userRepository.findAll();
   }
@@ -52,12 +58,13 @@ public class UserService {
 
     //first checks if username already taken
     checkIfUserExists(newUser);
-    newUser.setToken(UUID.randomUUID().toString());
     newUser.setStatus(UserStatus.ONLINE);
     // saves the given entity but data is only persisted in the database once
     // flush() is called
     newUser = userRepository.save(newUser);
     userRepository.flush();
+    // the token holds the id, so it is issued once the user has one
+    newUser.setToken(sessionTokens.issue(newUser.getId()));
 
     log.debug("Created Information for User: {}", newUser);
     return newUser;
@@ -85,8 +92,27 @@ public class UserService {
     }
   }
 
+  /**
+   * The session of a token, checked without reading the database
+   * @return empty if the token is not valid
+   */
+  public Optional<SessionToken> getSessionByToken(String token) {
+    return sessionTokens.verify(token);
+  }
+
+  /**
+   * The user a session token was issued to, the token is checked without reading the database
+   * @return empty if the token is not valid or the user does not exist anymore
+   */
   public Optional<User> getUserByToken(String token) {
-    return userRepository.findByToken(token);
+    return getSessionByToken(token).flatMap(session -> userRepository.findById(session.getUserId()));
+    }
+
+    /**
+     * Ends the session of a token, it is not accepted anymore
+     */
+    public void revokeToken(String token) {
+      sessionTokens.revoke(token);
     }
 
     public Optional<User> getUserById(Long id) {
@@ -108,7 +134,8 @@ public class UserService {
     userRepository.save(user);  
     userRepository.flush();  
 
-    // Return authenticated user with token
+    // Return authenticated user with a new token
+    user.setToken(sessionTokens.issue(user.getId()));
     return user;
   }
 
@@ -0,0 +1,37 @@
+package ch.uzh.ifi.hase.soprafs24.websocket;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outgoing Messages
+ * The messages an action sends to the players, held back until the action has succeeded.
+ * An attempt that conflicts and is run again has then told nobody about changes that were not written.
+ */
+class OutgoingMessages {
+
+    private final List<String> destinations = new ArrayList<>();
+    private final List<Object> payloads = new ArrayList<>();
+
+    void add(String destination, Object payload) {
+        destinations.add(destination);
+        payloads.add(payload);
+    }
+
+    /**
+     * Forgets the messages of an attempt that is run again
+     */
+    void clear() {
+        destinations.clear();
+        payloads.clear();
+    }
+
+    void sendWith(SimpMessagingTemplate messagingTemplate) {
+        for (int i = 0; i < destinations.size(); i++) {
+            messagingTemplate.convertAndSend(destinations.get(i), payloads.get(i));
+        }
+        clear();
+    }
+}
@@ -1,20 +1,32 @@
 package ch.uzh.ifi.hase.soprafs24.websocket;
 
-import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+import ch.uzh.ifi.hase.soprafs24.audit.MoveAuditEvent;
+import ch.uzh.ifi.hase.soprafs24.audit.MoveAuditLog;
 import ch.uzh.ifi.hase.soprafs24.constant.MessageStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.GameNotFoundException;
+import ch.uzh.ifi.hase.soprafs24.controller.QueryBudget;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
-import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
-import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.game.MoveResult;
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+import ch.uzh.ifi.hase.soprafs24.game.SubmitMoveCommand;
+import ch.uzh.ifi.hase.soprafs24.game.SubmittedMove;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameStateDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.MessageGameStateMessageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PlacementDTO;
+import ch.uzh.ifi.hase.soprafs24.service.CrossCheckService;
+import ch.uzh.ifi.hase.soprafs24.service.GameMailboxes;
+import ch.uzh.ifi.hase.soprafs24.service.GameRegistry;
 import ch.uzh.ifi.hase.soprafs24.service.GameService;
+import ch.uzh.ifi.hase.soprafs24.service.GameWriteConflictEvent;
 import ch.uzh.ifi.hase.soprafs24.service.MoveSubmitService;
 import ch.uzh.ifi.hase.soprafs24.service.MoveValidatorService;
+import ch.uzh.ifi.hase.soprafs24.service.OptimisticRetry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -24,8 +36,10 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 
 @Controller
@@ -38,52 +52,116 @@ public class WebSocketController {
     private MoveSubmitService moveSubmitService;
 
     @Autowired
-    private GameRepository gameRepository;
+    SimpMessagingTemplate simpleMessagingTemplate;
 
     @Autowired
-    private UserRepository userRepository;
+    private GameService gameService;
 
     @Autowired
-    SimpMessagingTemplate simpleMessagingTemplate;
+    private GameRegistry gameRegistry;
 
     @Autowired
-    private GameService gameService;
+    private GameMailboxes gameMailboxes;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private CrossCheckService crossCheckService;
+
+    @Autowired
+    private MoveAuditLog moveAuditLog;
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketController.class);
 
     // ------------------ Game State ---------------------------------------
     @MessageMapping("/game_states/{gameId}")
     @SendTo("/topic/game_states/{gameId}")
-    public MessageGameStateMessageDTO handleGameStates(@DestinationVariable String gameId, GameStateDTO gameState) {
+    @QueryBudget(action = "VALIDATE", statements = 1)
+    @QueryBudget(action = "SUBMIT", statements = 5)
+    @QueryBudget(action = "SKIP", statements = 6)
+    @QueryBudget(action = "EXCHANGE", statements = 10)
+    @QueryBudget(action = "FETCH_GAME_STATE", statements = 5)
+    @QueryBudget(action = "GAME_END", statements = 4)
+    @QueryBudget(action = "SURRENDER", statements = 4)
+    @QueryBudget(action = "VOTE", statements = 1)
+    @QueryBudget(action = "NO_VOTE", statements = 1)
+    @QueryBudget(action = "TIMER", statements = 1)
+    // the action runs in the mailbox of the game, the reply is sent to the topic once it is done
+    // so the inbound channel thread is not blocked while the action waits for its turn
+    public CompletableFuture<MessageGameStateMessageDTO> handleGameStates(@DestinationVariable String gameId, GameStateDTO gameState) {
         logger.debug("[LOG] Game endpoint reached with gameId: '{}' and gameState entity: '{}'",gameId, gameState.toString());
         logger.info("Game endpoint reached with gameId: '{}' and gameState entity: '{}'",gameId, gameState.toString());
         // Verify DTO
         try {
             gameState.isValid();
         } catch (IllegalArgumentException exception) {
-            return new MessageGameStateMessageDTO(
+            return CompletableFuture.completedFuture(new MessageGameStateMessageDTO(
                     Long.valueOf(gameId),
                     MessageStatus.ERROR,
                     exception.getMessage(),
                     null
-            );
+            ));
         }
         if(gameState.getId() != Long.valueOf(gameId)) {
-            return new MessageGameStateMessageDTO(
+            return CompletableFuture.completedFuture(new MessageGameStateMessageDTO(
                     Long.valueOf(gameId),
                     MessageStatus.ERROR,
                     "The game id of the object and destination are not equal!",
                     null
-            );
+            ));
         }
 
+        Long id = Long.valueOf(gameId);
+        return gameMailboxes.callAsync(id, () -> {
+            // sent once the action has succeeded, an attempt that conflicts has not told the players anything
+            OutgoingMessages outgoing = new OutgoingMessages();
+            try {
+                // the game in memory is stale after a conflict, the action runs again on the game as stored
+                MessageGameStateMessageDTO reply = optimisticRetry.run(() -> {
+                    outgoing.clear();
+                    return dispatch(gameId, gameState, outgoing);
+                }, () -> gameRegistry.evict(id));
+                outgoing.sendWith(simpleMessagingTemplate);
+                return reply;
+            }
+            catch (OptimisticLockingFailureException e) {
+                logger.warn("Action {} in game {} kept conflicting with other changes: {}", gameState.getAction(), gameId, e.getMessage());
+                return new MessageGameStateMessageDTO(
+                        id,
+                        MessageStatus.CONFLICT,
+                        "The game was changed at the same time, please fetch the game state and try again.",
+                        gameState
+                );
+            }
+        });
+    }
+
+    // changes of a game written in the background were dropped after the players had been told they succeeded,
+    // all players of the game fetch it again
+    @EventListener
+    public void onWriteConflict(GameWriteConflictEvent event) {
+        logger.warn("Unwritten changes of game {} conflicted with other changes and were dropped", event.getGameId());
+        simpleMessagingTemplate.convertAndSend(
+                "/topic/game_states/" + event.getGameId(),
+                new MessageGameStateMessageDTO(
+                        event.getGameId(),
+                        MessageStatus.CONFLICT,
+                        "The game was changed at the same time and the last changes were lost, please fetch the game state.",
+                        null
+                )
+        );
+    }
+
+    // runs in the mailbox of the game, so two actions of the same game never overlap
+    private MessageGameStateMessageDTO dispatch(String gameId, GameStateDTO gameState, OutgoingMessages outgoing) {
         // Check if it's a validation request
         if (gameState.getAction().equals("VALIDATE")) {
-            handleValidate(gameId, gameState);
+            handleValidate(gameId, gameState, outgoing);
         }
 
         else if (gameState.getAction().equals("SUBMIT")) {
-            return handleSubmit(gameId, gameState);
+            return handleSubmit(gameId, gameState, outgoing);
 
         }  else if (gameState.getAction().equals("SKIP")) {
             return handleSkip(gameId, gameState);
@@ -91,34 +169,21 @@ public class WebSocketController {
             return handleExchange(gameId, gameState);
         }
         else if (gameState.getAction().equals("FETCH_GAME_STATE")) {
-            return handleFetchGameState(gameId, gameState);
+            return handleFetchGameState(gameId, gameState, outgoing);
         }
         else if (gameState.getAction().equals("GAME_END") || gameState.getAction().equals("SURRENDER")) {
             try {
                 logger.info("Game {} is ending. Triggered by player {}", gameId, gameState.getPlayerId());
 
-                Game game = gameRepository.findByIdWithUsers(Long.valueOf(gameId))
-                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
-
-                List<User> users = game.getUsers();
+                boolean surrender = gameState.getAction().equals("SURRENDER");
+                // the game and its users are written in one transaction, a conflict rolls back all of them
+                gameService.endGame(Long.valueOf(gameId), surrender ? gameState.getPlayerId() : null);
 
-                for (User user : users) {
-                    Integer playerScore = game.getPlayerScores().get(user.getId());
-                    if (playerScore != null && user.getHighScore() < playerScore) {
-                        user.setHighScore(playerScore);
-                    }
-                    user.setInGame(false);
-                    userRepository.saveAndFlush(user);
-                }
-        
                 logger.info("Game {} has been successfully terminated.", gameId);
 
-                if (gameState.getAction().equals("SURRENDER")) {
+                if (surrender) {
                     gameState.setSurrenderedPlayerId(gameState.getPlayerId());
-                    game.setGameStatus(GameStatus.TERMINATED);
-                    game.setSurrenderId(gameState.getPlayerId());
-                    gameRepository.saveAndFlush(game); 
-                    simpleMessagingTemplate.convertAndSend(
+                    outgoing.add(
                             "/topic/game_states/" + gameId,
                             new MessageGameStateMessageDTO(
                                     Long.valueOf(gameId),
@@ -128,9 +193,7 @@ public class WebSocketController {
                             )
                     );
                 } else {
-                    game.setGameStatus(GameStatus.TERMINATED);
-                    gameRepository.saveAndFlush(game);
-                    simpleMessagingTemplate.convertAndSend(
+                    outgoing.add(
                             "/topic/game_states/" + gameId,
                             new MessageGameStateMessageDTO(
                                     Long.valueOf(gameId),
@@ -140,8 +203,11 @@ public class WebSocketController {
                             )
                     );
                 }
+                crossCheckService.evict(Long.valueOf(gameId));
 
                 return null;
+            } catch (OptimisticLockingFailureException e) {
+                throw e;
             } catch (ResponseStatusException e) {
                 logger.error("Error processing game end action: {}", e.getReason());
                 return new MessageGameStateMessageDTO(
@@ -163,7 +229,7 @@ public class WebSocketController {
             try {
                 logger.info("Inside Vote handler for game: '{}'", gameId);
 
-                Game game = gameRepository.findByIdWithUsers(Long.valueOf(gameId))
+                Game game = gameRegistry.find(Long.valueOf(gameId))
                         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
 
                 List<User> users = game.getUsers();
@@ -175,7 +241,7 @@ public class WebSocketController {
                         .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Other user not found in the game"));
 
                 if (gameState.getAction().equals("VOTE")) {
-                    simpleMessagingTemplate.convertAndSend(
+                    outgoing.add(
                             "/topic/game_states/users/" + otherUser.getId(),
                             new MessageGameStateMessageDTO(
                                     Long.valueOf(gameId),
@@ -185,7 +251,7 @@ public class WebSocketController {
                             )
                     );
                 } else {
-                    simpleMessagingTemplate.convertAndSend(
+                    outgoing.add(
                             "/topic/game_states/users/" + otherUser.getId(),
                             new MessageGameStateMessageDTO(
                                     Long.valueOf(gameId),
@@ -219,7 +285,7 @@ public class WebSocketController {
         } else if (gameState.getAction().equals("TIMER")) {
         try {
 
-            Game game = gameRepository.findById(Long.valueOf(gameId))
+            Game game = gameRegistry.find(Long.valueOf(gameId))
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
 
             LocalDateTime now = LocalDateTime.now();
@@ -227,7 +293,7 @@ public class WebSocketController {
             long remainingSeconds = 45 * 60 - elapsedSeconds;
 
             gameState.setRemainingTime(remainingSeconds);
-            simpleMessagingTemplate.convertAndSend(
+            outgoing.add(
                     "/topic/game_states/" + gameId,
                     new MessageGameStateMessageDTO(
                             Long.valueOf(gameId),
@@ -261,34 +327,24 @@ public class WebSocketController {
     }
 
 
-    private MessageGameStateMessageDTO handleSubmit(String gameId, GameStateDTO gameState) {
+    private MessageGameStateMessageDTO handleSubmit(String gameId, GameStateDTO gameState, OutgoingMessages outgoing) {
         try {
-            // 1. Calculate score using MoveSubmitService
-            int score = moveSubmitService.submitMove(Long.valueOf(gameId), gameState.getBoard());
-
-            // 2. Update the player's score
-            Game game = gameRepository.findById(Long.valueOf(gameId))
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
-
-            game.getPlayerScores();
-            game.addScore(gameState.getPlayerId(), score);
-            gameRepository.save(game);
-
-            // 3. Add the updated scores to the response
-            gameState.setPlayerScores(game.getPlayerScores());
-
+            // 1. Apply the move, score, rack refill and turn switch to the game in one go
+            SubmitMoveCommand command = gameState.hasPlacements()
+                    ? SubmitMoveCommand.withPlacements(Long.valueOf(gameId), gameState.getPlayerId(), placementsOf(gameState), gameState.getUserTiles())
+                    : SubmitMoveCommand.withBoard(Long.valueOf(gameId), gameState.getPlayerId(), gameState.getBoard(), gameState.getUserTiles());
+            SubmittedMove submitted = moveSubmitService.submit(command);
+            int score = submitted.getScore();
+            moveAuditLog.publish(MoveAuditEvent.of(Long.parseLong(gameId), gameState.getPlayerId(), submitted.getMove()));
             logger.info("Player {} scored {} points in game {}", gameState.getPlayerId(), score, gameId);
-            // 4. draw tiles to fill hand
-            String[] newTiles = gameService.assignNewLetters(game, gameState.getPlayerId(), gameState.getUserTiles());
-            logger.info("TilesToDraw passed");
-            // 5. Update the game state with the new tiles
-            gameState.setUserTiles(newTiles);
-            logger.info("UserTiles passed");
-            //6. Update the game state with user turn
-            User userAtTurn = gameService.changeUserTurn(game);
-            gameState.setPlayerId(userAtTurn.getId());
-            // 7. Send the updated game state to the player
-            simpleMessagingTemplate.convertAndSend(
+
+            // 2. Update the game state with the board the move was applied to, the scores, the new tiles and the user at turn
+            gameState.setBoard(submitted.getBoard());
+            gameState.setPlayerScores(submitted.getScores());
+            gameState.setUserTiles(submitted.getRack());
+            gameState.setPlayerId(submitted.getNextPlayerId());
+            // 3. Send the updated game state to the player
+            outgoing.add(
                     "/topic/game_states/users/" + gameState.getPlayerId(),
                     new MessageGameStateMessageDTO(
                             Long.valueOf(gameId),
@@ -298,7 +354,7 @@ public class WebSocketController {
                     )
             );
             logger.info("Personal message sent.");
-            // 8. Return the updated game state to all players
+            // 4. Return the updated game state to all players
             return new MessageGameStateMessageDTO(
                     Long.valueOf(gameId),
                     MessageStatus.SUCCESS,
@@ -306,6 +362,9 @@ public class WebSocketController {
                     gameState
             );
         }
+        catch (OptimisticLockingFailureException e) {
+            throw e;
+        }
         catch (ResponseStatusException e) {
             logger.error("Error processing move submission: {}", e.getReason());
 
@@ -328,8 +387,8 @@ public class WebSocketController {
         }
     }
 
-    private MessageGameStateMessageDTO handleFetchGameState(String gameId, GameStateDTO gameState) {
-        Optional<Game> gameOptional = gameService.getGameById(Long.valueOf(gameId));
+    private MessageGameStateMessageDTO handleFetchGameState(String gameId, GameStateDTO gameState, OutgoingMessages outgoing) {
+        Optional<Game> gameOptional = gameRegistry.find(Long.valueOf(gameId));
         if(gameOptional.isEmpty()) {
             logger.error("Error while fetching game state. Game was not found.");
             MessageGameStateMessageDTO message = new MessageGameStateMessageDTO(
@@ -338,7 +397,7 @@ public class WebSocketController {
                     "Error while fetching game state. Game was not found.",
                     gameState
             );
-            simpleMessagingTemplate.convertAndSend(
+            outgoing.add(
                     "/topic/game_states/users/" + gameState.getPlayerId(),
                     message
             );
@@ -346,8 +405,7 @@ public class WebSocketController {
         }
 
         Long senderId = gameState.getPlayerId();
-        Game game = gameRepository.findByIdWithUsers(Long.valueOf(gameId))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
+        Game game = gameOptional.get();
 
         if(!game.getUsers().stream().filter(user -> user.getId().equals(senderId)).findFirst().isPresent()) {
             logger.error("Error while fetching game state. User is not part of the game.");
@@ -376,7 +434,7 @@ public class WebSocketController {
                 "Game state fetched successfully",
                 gameState
         );
-        simpleMessagingTemplate.convertAndSend(
+        outgoing.add(
                 "/topic/game_states/users/" + senderId,
                 message
 
@@ -390,7 +448,7 @@ public class WebSocketController {
             logger.info("Switching Turn for game: '{}'", gameId);
             // Skip the turn
             boolean isHostTurn = gameService.skipTurn(Long.valueOf(gameId), gameState.getPlayerId());
-            Optional<Game> optional = gameRepository.findByIdWithUsers(Long.valueOf(gameId));
+            Optional<Game> optional = gameRegistry.find(Long.valueOf(gameId));
             if(optional.isEmpty()) return new MessageGameStateMessageDTO(
                     Long.valueOf(gameId),
                     MessageStatus.ERROR,
@@ -406,6 +464,8 @@ public class WebSocketController {
                     gameState.getAction().equals("SKIP") ? "Move skipped" : "Tiles exchanged",
                     gameState
             );
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (GameNotFoundException e) {
             logger.error("Game not found: {}", e.getMessage());
             return new MessageGameStateMessageDTO(
@@ -431,7 +491,7 @@ public class WebSocketController {
             logger.info("Exchanging tiles for game: '{}' and user '{}'", gameId, gameState.getPlayerId());
             // Skip the turn
             boolean isHostTurn = gameService.skipTurn(Long.valueOf(gameId), gameState.getPlayerId());
-            Optional<Game> optional = gameRepository.findByIdWithUsers(Long.valueOf(gameId));
+            Optional<Game> optional = gameRegistry.find(Long.valueOf(gameId));
             if(optional.isEmpty()) return new MessageGameStateMessageDTO(
                     Long.valueOf(gameId),
                     MessageStatus.ERROR,
@@ -449,6 +509,8 @@ public class WebSocketController {
                     gameState.getAction().equals("SKIP") ? "Move skipped" : "Tiles exchanged",
                     gameState
             );
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (GameNotFoundException e) {
             logger.error("Game not found: {}", e.getMessage());
             return new MessageGameStateMessageDTO(
@@ -473,16 +535,28 @@ public class WebSocketController {
     }
 
 
-    private void handleValidate(String gameId, GameStateDTO gameState) {
+    private List<Placement> placementsOf(GameStateDTO gameState) {
+        List<Placement> placements = new ArrayList<>(gameState.getPlacements().size());
+        try {
+            for (PlacementDTO placement : gameState.getPlacements()) {
+                placements.add(placement.toPlacement());
+            }
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return placements;
+    }
+
+    private void handleValidate(String gameId, GameStateDTO gameState, OutgoingMessages outgoing) {
         try {
             // Validate the move
-            List<String> formedWords = moveValidatorService.validateMoveAndExtractWords(
-                    Long.valueOf(gameId),
-                    gameState.getBoard()
-            );
+            MoveResult formedWords = gameState.hasPlacements()
+                    ? moveValidatorService.validateMoveAndExtractWords(Long.valueOf(gameId), placementsOf(gameState))
+                    : moveValidatorService.validateMoveAndExtractWords(Long.valueOf(gameId), gameState.getBoard());
 
             // Send validation success response ONLY to the requesting user
-            simpleMessagingTemplate.convertAndSend(
+            outgoing.add(
                     "/topic/game_states/users/" + gameState.getPlayerId(),
                     new MessageGameStateMessageDTO(
                             Long.valueOf(gameId),
@@ -492,11 +566,11 @@ public class WebSocketController {
                     )
             );
 
-            logger.debug("[LOG] Move validation successful for gameId: '{}', formed words: '{}'", gameId, formedWords);
+            logger.debug("[LOG] Move validation successful for gameId: '{}', formed words: '{}'", gameId, formedWords.getFormedWords());
         }
         catch (ResponseStatusException e) {
             // Send validation error ONLY to the requesting user
-            simpleMessagingTemplate.convertAndSend(
+            outgoing.add(
                     "/topic/game_states/users/" + gameState.getPlayerId(),
                     new MessageGameStateMessageDTO(
                             Long.valueOf(gameId),
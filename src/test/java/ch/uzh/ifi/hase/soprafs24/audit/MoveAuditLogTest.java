@@ -0,0 +1,117 @@
+package ch.uzh.ifi.hase.soprafs24.audit;
+
+import ch.uzh.ifi.hase.soprafs24.game.FormedWord;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PlacementDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveAuditLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MoveAuditEvent event(long gameId) {
+        return new MoveAuditEvent(gameId, 2L, List.of(new PlacementDTO(7, 7, "H", false), new PlacementDTO(7, 8, "I", true)),
+                List.of(new FormedWord("HI", 7, 7, true, 4)), 4, 1000L);
+    }
+
+    @Test
+    void publish_eventsWrittenInOrder() throws InterruptedException {
+        List<MoveAuditEvent> written = new CopyOnWriteArrayList<>();
+        MoveAuditLog auditLog = new MoveAuditLog(written::addAll, 100, 10);
+
+        for (long gameId = 1; gameId <= 25; gameId++) {
+            assertTrue(auditLog.publish(event(gameId)));
+        }
+        auditLog.close(Duration.ofSeconds(5));
+
+        assertEquals(25, written.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals(i + 1, written.get(i).getGameId());
+        }
+        assertEquals(25, auditLog.getPublishedCount());
+        assertEquals(0, auditLog.getDroppedCount());
+    }
+
+    @Test
+    void publish_queueFull_dropsWithoutBlocking() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // holds the writer thread until released so that the queue fills up
+        MoveAuditSink slowSink = events -> {
+            writing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        MoveAuditLog auditLog = new MoveAuditLog(slowSink, 2, 10);
+
+        assertTrue(auditLog.publish(event(1)));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertTrue(auditLog.publish(event(2)));
+        assertTrue(auditLog.publish(event(3)));
+        assertFalse(auditLog.publish(event(4)));
+
+        assertEquals(2, auditLog.getQueuedCount());
+        assertEquals(1, auditLog.getDroppedCount());
+        release.countDown();
+        auditLog.close(Duration.ofSeconds(5));
+        assertEquals(0, auditLog.getQueuedCount());
+        assertEquals(3, auditLog.getPublishedCount());
+    }
+
+    @Test
+    void publish_sinkFails_countedAsDropped() throws InterruptedException {
+        MoveAuditLog auditLog = new MoveAuditLog(events -> {
+            throw new IOException("disk full");
+        }, 100, 10);
+
+        auditLog.publish(event(1));
+        auditLog.close(Duration.ofSeconds(5));
+
+        assertEquals(1, auditLog.getDroppedCount());
+        assertFalse(auditLog.publish(event(2)));
+        assertEquals(2, auditLog.getDroppedCount());
+    }
+
+    @Test
+    void rollingFileSink_writesJsonLinesAndRolls(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("audit").resolve("moves.log");
+        int lineLength = objectMapper.writeValueAsBytes(event(1)).length + 1;
+        // room for two lines per file, one rolled file kept
+        RollingFileMoveAuditSink sink = new RollingFileMoveAuditSink(file, 2L * lineLength, 1, objectMapper);
+
+        sink.write(List.of(event(1), event(2)));
+        sink.write(List.of(event(3)));
+        sink.write(List.of(event(4), event(5)));
+        sink.close();
+
+        List<String> current = Files.readAllLines(file);
+        List<String> rolled = Files.readAllLines(tempDir.resolve("audit").resolve("moves.log.1"));
+        assertEquals(1, current.size());
+        assertEquals(2, rolled.size());
+        assertFalse(Files.exists(tempDir.resolve("audit").resolve("moves.log.2")));
+
+        JsonNode line = objectMapper.readTree(current.get(0));
+        assertEquals(5, line.get("gameId").asLong());
+        assertEquals(4, line.get("score").asInt());
+        assertEquals("HI", line.get("words").get(0).get("word").asText());
+        assertTrue(line.get("placements").get(1).get("blank").asBoolean());
+        assertEquals(3, objectMapper.readTree(rolled.get(0)).get("gameId").asLong());
+    }
+}
@@ -0,0 +1,90 @@
+package ch.uzh.ifi.hase.soprafs24.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTokensTest {
+
+    private static final String SECRET = "a-secret-of-at-least-thirty-two-bytes";
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    private final SessionTokens sessionTokens = tokensAt(NOW);
+
+    private static SessionTokens tokensAt(Instant now) {
+        return new SessionTokens(SECRET, Duration.ofHours(1), Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void verify_issuedToken_userAndTimes() {
+        SessionToken session = sessionTokens.verify(sessionTokens.issue(42L)).orElseThrow();
+
+        assertEquals(Long.valueOf(42), session.getUserId());
+        assertEquals(NOW, session.getIssuedAt());
+        assertEquals(NOW.plus(Duration.ofHours(1)), session.getExpiresAt());
+    }
+
+    @Test
+    void verify_changedUserId_rejected() {
+        String token = sessionTokens.issue(42L);
+
+        assertTrue(sessionTokens.verify("43" + token.substring(2)).isEmpty());
+    }
+
+    @Test
+    void verify_changedSignature_rejected() {
+        String token = sessionTokens.issue(42L);
+        int signature = token.lastIndexOf('.') + 1;
+        char changed = token.charAt(signature) == 'A' ? 'B' : 'A';
+
+        assertTrue(sessionTokens.verify(token.substring(0, signature) + changed + token.substring(signature + 1)).isEmpty());
+    }
+
+    @Test
+    void verify_otherKey_rejected() {
+        SessionTokens otherServer = new SessionTokens("another-secret-of-at-least-32-bytes", Duration.ofHours(1),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertTrue(sessionTokens.verify(otherServer.issue(42L)).isEmpty());
+    }
+
+    @Test
+    void verify_expired_rejected() {
+        String token = sessionTokens.issue(42L);
+
+        assertTrue(tokensAt(NOW.plus(Duration.ofMinutes(59))).verify(token).isPresent());
+        assertTrue(tokensAt(NOW.plus(Duration.ofHours(1))).verify(token).isEmpty());
+    }
+
+    @Test
+    void verify_malformed_rejected() {
+        assertTrue(sessionTokens.verify(null).isEmpty());
+        assertTrue(sessionTokens.verify("").isEmpty());
+        assertTrue(sessionTokens.verify("test-token").isEmpty());
+        assertTrue(sessionTokens.verify("42.1.2.not base64!").isEmpty());
+    }
+
+    @Test
+    void revoke_tokenRejected_otherTokensValid() {
+        String loggedOut = sessionTokens.issue(42L);
+        String other = sessionTokens.issue(7L);
+
+        sessionTokens.revoke(loggedOut);
+
+        assertTrue(sessionTokens.verify(loggedOut).isEmpty());
+        assertTrue(sessionTokens.verify(other).isPresent());
+        assertEquals(1, sessionTokens.getRevokedCount());
+    }
+
+    @Test
+    void revoke_invalidToken_notKept() {
+        sessionTokens.revoke("test-token");
+
+        assertEquals(0, sessionTokens.getRevokedCount());
+    }
+}
@@ -1,5 +1,6 @@
 package ch.uzh.ifi.hase.soprafs24.controller;
 
+import ch.uzh.ifi.hase.soprafs24.auth.SessionToken;
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.InvalidGameStatusException;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
@@ -33,6 +34,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -80,7 +82,7 @@ public class GameControllerTest {
 
 
         given(gameService.createGame(any(User.class))).willReturn(game);
-        given(userService.getUserByToken("Bearer test-token")).willReturn(Optional.of(user));
+        givenSession("Bearer test-token", user);
 
         MockHttpServletRequestBuilder postRequest = post("/games")
             .contentType(MediaType.APPLICATION_JSON)
@@ -98,7 +100,7 @@ public class GameControllerTest {
     public void createGame_invalidInput_runTimeException() throws Exception {
         GamePostDTO gamePostDTO = new GamePostDTO();
 
-        given(userService.getUserByToken("Bearer test-token")).willReturn(Optional.empty());
+        given(userService.getSessionByToken("Bearer test-token")).willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder postRequest = post("/games")
             .contentType(MediaType.APPLICATION_JSON)
@@ -111,7 +113,7 @@ public class GameControllerTest {
 
     @Test
     void createGame_userNotFoundException_returnsNotFound() throws Exception {
-        given(userService.getUserByToken("token")).willReturn(Optional.of(new User()));
+        givenSession("token", new User());
         doThrow(new UserNotFoundException("User not found")).when(gameService).createGame(any());
 
         mockMvc.perform(post("/games")
@@ -121,7 +123,7 @@ public class GameControllerTest {
 
     @Test
     void createGame_unexpectedException_returnsInternalServerError() throws Exception {
-        given(userService.getUserByToken("token")).willReturn(Optional.of(new User()));
+        givenSession("token", new User());
         doThrow(new RuntimeException("Unexpected")).when(gameService).createGame(any());
 
         mockMvc.perform(post("/games")
@@ -168,7 +170,7 @@ public class GameControllerTest {
         gamePutDTO.setGameStatus(GameStatus.CREATED);
 
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
-        given(userService.getUserByToken("Bearer test-token")).willReturn(Optional.of(user));
+        givenSession("Bearer test-token", user);
         given(gameService.isUserInGame(game, user)).willReturn(true);
         given(gameService.updateGameStatus(game, gamePutDTO.getGameStatus())).willReturn(game);
 
@@ -198,7 +200,7 @@ public class GameControllerTest {
         gamePutDTO.setGameStatus(GameStatus.CREATED);
 
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
-        given(userService.getUserByToken("Bearer test-token")).willReturn(Optional.of(user));
+        givenSession("Bearer test-token", user);
         given(gameService.isUserInGame(game, user)).willReturn(true);
         doThrow(new InvalidGameStatusException("Invalid game status transition message"))
             .when(gameService).updateGameStatus(game, gamePutDTO.getGameStatus());
@@ -224,7 +226,7 @@ public class GameControllerTest {
         GamePutDTO dto = new GamePutDTO();
         dto.setGameStatus(GameStatus.CREATED);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(user));
+        givenSession("token", user);
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
         given(gameService.isUserInGame(game, user)).willReturn(true);
         doThrow(new RuntimeException("Unexpected")).when(gameService).updateGameStatus(any(), any());
@@ -247,7 +249,7 @@ public class GameControllerTest {
         GameInvitationPostDTO dto = new GameInvitationPostDTO();
         dto.setTargetUsername(target.getUsername()); dto.setGameId(1L);
 
-        when(userService.getUserByToken("token")).thenReturn(Optional.of(sender));
+        givenSession("token", sender);
         when(userService.getUserByUsername(target.getUsername())).thenReturn(target);
         when(gameService.getGameById(1L)).thenReturn(Optional.of(game));
         when(gameInvitationService.createGameInvitation(any(), any(), any())).thenReturn(invitation);
@@ -262,7 +264,7 @@ public class GameControllerTest {
 
     @Test
     void createGameInvitation_missingToken_returnsUnauthorized() throws Exception {
-        when(userService.getUserByToken(any())).thenReturn(Optional.empty());
+        given(userService.getSessionByToken(any())).willReturn(Optional.empty());
 
         mockMvc.perform(post("/games/invitations")
                         .header("Authorization", "fasdfad")
@@ -277,7 +279,7 @@ public class GameControllerTest {
         GameInvitationPostDTO dto = new GameInvitationPostDTO();
         dto.setTargetUsername(sender.getUsername()); dto.setGameId(1L);
 
-        when(userService.getUserByToken("token")).thenReturn(Optional.of(sender));
+        givenSession("token", sender);
         when(userService.getUserById(1L)).thenReturn(Optional.of(sender));
         when(userService.getUserByUsername(sender.getUsername())).thenReturn(sender);
 
@@ -295,7 +297,7 @@ public class GameControllerTest {
         dto.setTargetUsername("target");
         dto.setGameId(1L);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(sender));
+        givenSession("token", sender);
         given(userService.getUserByUsername("target")).willReturn(new User());
         given(gameService.getGameById(1L)).willReturn(Optional.of(new Game()));
         doThrow(new GameNotFoundException("Game not found"))
@@ -315,7 +317,7 @@ public class GameControllerTest {
         dto.setTargetUsername("target");
         dto.setGameId(1L);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(sender));
+        givenSession("token", sender);
         given(userService.getUserByUsername("target")).willReturn(new User());
         given(gameService.getGameById(1L)).willReturn(Optional.of(new Game()));
         doThrow(new IllegalArgumentException("Already invited"))
@@ -335,7 +337,7 @@ public class GameControllerTest {
         dto.setTargetUsername("target");
         dto.setGameId(1L);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(sender));
+        givenSession("token", sender);
         given(userService.getUserByUsername("target")).willReturn(new User());
         given(gameService.getGameById(1L)).willReturn(Optional.of(new Game()));
         doThrow(new RuntimeException("Unexpected error"))
@@ -358,7 +360,7 @@ public class GameControllerTest {
     User user = new User();
     user.setId(12345L);
 
-    given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+    givenSession("test-token", user);
     given(gameService.getGameById(1L)).willReturn(Optional.of(game));
 
     mockMvc.perform(delete("/games/1")
@@ -371,7 +373,7 @@ public class GameControllerTest {
     @Test
     void deleteGame_gameNotFound_returnsNotFound() throws Exception {
     
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(new User()));
+        givenSession("test-token", new User());
         given(gameService.getGameById(1L)).willReturn(Optional.empty());
 
         mockMvc.perform(delete("/games/1")
@@ -395,7 +397,7 @@ public class GameControllerTest {
         users.add(user2);
         game.setUsers(users);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user1));
+        givenSession("test-token", user1);
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
 
         mockMvc.perform(delete("/games/1")
@@ -406,7 +408,7 @@ public class GameControllerTest {
     @Test
     void deleteGame_invalidToken_returnsUnauthorized() throws Exception {
 
-        given(userService.getUserByToken("invalid-token")).willReturn(Optional.empty());
+        given(userService.getSessionByToken("invalid-token")).willReturn(Optional.empty());
 
         mockMvc.perform(delete("/games/1")
                         .header("Authorization", "invalid-token"))
@@ -426,7 +428,7 @@ public class GameControllerTest {
         game.addUser(opponent); game.addUser(user);
 
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
-        given(userService.getUserByToken("Bearer test-token")).willReturn(Optional.of(user));
+        givenSession("Bearer test-token", user);
         given(gameService.countLettersInBag(game, 'O')).willReturn(8);
 
         // Act & Assert
@@ -439,6 +441,9 @@ public class GameControllerTest {
     @Test
     void getRemainingLetters_invalidGameId_returnsNotFound() throws Exception {
         // Arrange
+        User user = new User();
+        user.setId(1L);
+        givenSession("Bearer test-token", user);
         given(gameService.getGameById(1L)).willReturn(Optional.empty());
 
         // Act & Assert
@@ -453,7 +458,7 @@ public class GameControllerTest {
         // Arrange
         Game game = new Game();
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
-        given(userService.getUserByToken("invalid-token")).willReturn(Optional.empty());
+        given(userService.getSessionByToken("invalid-token")).willReturn(Optional.empty());
 
         // Act & Assert
         mockMvc.perform(get("/games/1/letters/O")
@@ -474,7 +479,7 @@ public class GameControllerTest {
         game.addUser(user); game.addUser(opponent);
 
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
-        given(userService.getUserByToken("Bearer test-token")).willReturn(Optional.of(user));
+        givenSession("Bearer test-token", user);
         given(gameService.countLettersInBag(game, 'A')).willReturn(5);
 
         // Act & Assert
@@ -489,7 +494,7 @@ public class GameControllerTest {
         GamePutDTO gamePutDTO = new GamePutDTO();
         gamePutDTO.setGameStatus(GameStatus.CREATED);
 
-        given(userService.getUserByToken("Bearer test-token")).willReturn(Optional.empty());
+        given(userService.getSessionByToken("Bearer test-token")).willReturn(Optional.empty());
 
         MockHttpServletRequestBuilder putRequest = put("/games/1")
             .contentType(MediaType.APPLICATION_JSON)
@@ -506,7 +511,7 @@ public class GameControllerTest {
         User user = new User();
         user.setId(1L);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
         given(gameInvitationService.getGameInvitationsByTarget(user)).willReturn(List.of());
 
         mockMvc.perform(get("/games/invitations/1")
@@ -523,7 +528,7 @@ public class GameControllerTest {
         GameInvitationPutDTO dto = new GameInvitationPutDTO();
         dto.setStatus(InvitationStatus.ACCEPTED);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
         given(gameInvitationService.getGameInvitationById(anyLong()))
             .willThrow(new GameInvitationNotFoundException("not found"));
 
@@ -539,7 +544,7 @@ public class GameControllerTest {
         GameInvitationPutDTO dto = new GameInvitationPutDTO();
         dto.setStatus(InvitationStatus.ACCEPTED);
 
-        given(userService.getUserByToken("")).willReturn(Optional.empty());
+        given(userService.getSessionByToken("")).willReturn(Optional.empty());
 
         mockMvc.perform(put("/games/invitations/1")
                 .header("Authorization", "")
@@ -554,7 +559,7 @@ public class GameControllerTest {
         GameInvitationPutDTO dto = new GameInvitationPutDTO();
         dto.setStatus(InvitationStatus.ACCEPTED);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
 
         mockMvc.perform(put("/games/invitations/")
                 .header("Authorization", "test-token")
@@ -569,7 +574,7 @@ public class GameControllerTest {
         User user = new User(); user.setId(1L);
         GameInvitationPutDTO dto = new GameInvitationPutDTO(); // status is null
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
 
         mockMvc.perform(put("/games/invitations/1")
                 .header("Authorization", "test-token")
@@ -586,7 +591,7 @@ public class GameControllerTest {
         GameInvitationPutDTO dto = new GameInvitationPutDTO();
         dto.setStatus(InvitationStatus.ACCEPTED);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
         given(gameInvitationService.getGameInvitationById(1L)).willReturn(invitation);
         doThrow(new GameNotFoundException("Game not found")).when(gameInvitationService).updateGameInvitationStatus(any(), any());
 
@@ -605,7 +610,7 @@ public class GameControllerTest {
         GameInvitationPutDTO dto = new GameInvitationPutDTO();
         dto.setStatus(InvitationStatus.ACCEPTED);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
         given(gameInvitationService.getGameInvitationById(1L)).willReturn(invitation);
         doThrow(new UserNotFoundException("User not found")).when(gameInvitationService).updateGameInvitationStatus(any(), any());
 
@@ -624,7 +629,7 @@ public class GameControllerTest {
         GameInvitationPutDTO dto = new GameInvitationPutDTO();
         dto.setStatus(InvitationStatus.ACCEPTED);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
         given(gameInvitationService.getGameInvitationById(1L)).willReturn(invitation);
         doThrow(new IllegalArgumentException("Game is already full")).when(gameInvitationService).updateGameInvitationStatus(any(), any());
 
@@ -643,7 +648,7 @@ public class GameControllerTest {
         GameInvitationPutDTO dto = new GameInvitationPutDTO();
         dto.setStatus(InvitationStatus.ACCEPTED);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
         given(gameInvitationService.getGameInvitationById(1L)).willReturn(invitation);
         doThrow(new RuntimeException("Unexpected error")).when(gameInvitationService).updateGameInvitationStatus(any(), any());
 
@@ -662,7 +667,7 @@ public class GameControllerTest {
         GameInvitationPutDTO dto = new GameInvitationPutDTO();
         dto.setStatus(InvitationStatus.ACCEPTED);
 
-        given(userService.getUserByToken("test-token")).willReturn(Optional.of(user));
+        givenSession("test-token", user);
         given(gameInvitationService.getGameInvitationById(1L)).willReturn(invitation);
         // No exception thrown
         // Optionally, you can mock the return value of updateGameInvitationStatus if needed
@@ -682,7 +687,7 @@ public class GameControllerTest {
         user.setId(123L);
         game.addUser(user);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(user));
+        givenSession("token", user);
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
         given(gameService.isUserInGame(game, user)).willReturn(true);
 
@@ -693,7 +698,7 @@ public class GameControllerTest {
 
     @Test
     void leaveGame_invalidToken_returnsUnauthorized() throws Exception {
-        given(userService.getUserByToken("token")).willReturn(Optional.empty());
+        given(userService.getSessionByToken("token")).willReturn(Optional.empty());
 
         mockMvc.perform(put("/games/1/users/123/leave")
                 .header("Authorization", "token"))
@@ -707,7 +712,7 @@ public class GameControllerTest {
         User user = new User();
         user.setId(123L);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(user));
+        givenSession("token", user);
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
         given(gameService.isUserInGame(game, user)).willReturn(false);
 
@@ -721,7 +726,7 @@ public class GameControllerTest {
         User user = new User();
         user.setId(123L);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(user));
+        givenSession("token", user);
         given(gameService.getGameById(1L)).willReturn(Optional.empty());
 
         mockMvc.perform(put("/games/1/users/123/leave")
@@ -737,7 +742,7 @@ public class GameControllerTest {
         user.setId(123L);
         game.addUser(user);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(user));
+        givenSession("token", user);
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
         given(gameService.isUserInGame(game, user)).willReturn(true);
         doThrow(new UserNotFoundException("User not found")).when(gameService).leaveGame(game, user);
@@ -755,7 +760,7 @@ public class GameControllerTest {
         user.setId(123L);
         game.addUser(user);
 
-        given(userService.getUserByToken("token")).willReturn(Optional.of(user));
+        givenSession("token", user);
         given(gameService.getGameById(1L)).willReturn(Optional.of(game));
         given(gameService.isUserInGame(game, user)).willReturn(true);
         doThrow(new RuntimeException("Unexpected")).when(gameService).leaveGame(game, user);
@@ -765,6 +770,13 @@ public class GameControllerTest {
             .andExpect(status().isInternalServerError());
     }
 
+    // the token verifies to a session of the user, who is found by the id of the session
+    private void givenSession(String token, User user) {
+        given(userService.getSessionByToken(token))
+            .willReturn(Optional.of(new SessionToken(user.getId(), Instant.now(), Instant.now().plusSeconds(3600))));
+        given(userService.getUserById(user.getId())).willReturn(Optional.of(user));
+    }
+
     private String asJsonString(final Object object) {
         try {
             return new ObjectMapper().writeValueAsString(object);
@@ -1,5 +1,6 @@
 package ch.uzh.ifi.hase.soprafs24.controller;
 
+import ch.uzh.ifi.hase.soprafs24.auth.SessionToken;
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.FriendRequestNotFoundException;
 import ch.uzh.ifi.hase.soprafs24.entity.FriendRequest;
@@ -26,6 +27,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import javax.persistence.EntityExistsException;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -80,6 +82,13 @@ public class UserControllerTest {
         .andExpect(jsonPath("$[0].status", is(user.getStatus().toString())));
   }
 
+  // the token verifies to a session of the user, who is found by the id of the session
+  private void givenSession(String token, User user) {
+    given(userService.getSessionByToken(token))
+        .willReturn(Optional.of(new SessionToken(user.getId(), Instant.now(), Instant.now().plusSeconds(3600))));
+    given(userService.getUserById(user.getId())).willReturn(Optional.of(user));
+  }
+
   /**
    * Helper Method to convert userPostDTO into a JSON string such that the input
    * can be processed
@@ -314,7 +323,7 @@ public class UserControllerTest {
         request.setTarget(mockUser);
 
         when(userService.getUserById(userId)).thenReturn(Optional.of(mockUser));
-        when(userService.getUserByToken(token)).thenReturn(Optional.of(mockUser));
+        givenSession(token, mockUser);
         when(friendRequestService.getFriendRequestsByTargetId(userId)).thenReturn(List.of(request));
 
         // Act & Assert
@@ -363,7 +372,7 @@ public class UserControllerTest {
         requestDTO.setTargetUsername(target.getUsername());
         requestDTO.setMessage("Hi there!");
 
-        given(userService.getUserByToken("validToken")).willReturn(Optional.of(sender));
+        givenSession("validToken", sender);
         given(userService.getUserByUsername(target.getUsername())).willReturn(target);
         given(friendRequestService.createFriendRequest(sender, target, "Hi there!")).willReturn(friendRequest);
 
@@ -410,7 +419,7 @@ public class UserControllerTest {
         FriendRequestPostDTO requestDTO = new FriendRequestPostDTO();
         requestDTO.setMessage("Hi!");
 
-        given(userService.getUserByToken("validToken")).willReturn(Optional.of(sender));
+        givenSession("validToken", sender);
         given(friendRequestService.createFriendRequest(Mockito.any(), Mockito.any(), Mockito.any()))
                 .willThrow(new AssertionError("CreateFriendRequest was called even when it should not have been called!"));
 
@@ -434,7 +443,7 @@ public class UserControllerTest {
         requestDTO.setTargetUsername("nonExistentUser");
         requestDTO.setMessage("Hello");
 
-        given(userService.getUserByToken("validToken")).willReturn(Optional.of(sender));
+        givenSession("validToken", sender);
         given(userService.getUserByUsername("nonExistentUser")).willReturn(null);
         given(friendRequestService.createFriendRequest(Mockito.any(), Mockito.any(), Mockito.any()))
                 .willThrow(new AssertionError("CreateFriendRequest was called even when it should not have been called!"));
@@ -464,7 +473,7 @@ public class UserControllerTest {
         requestDTO.setTargetUsername("testUser");
         requestDTO.setMessage("Hello!");
 
-        given(userService.getUserByToken("validToken")).willReturn(Optional.of(sender));
+        givenSession("validToken", sender);
         given(userService.getUserByUsername(target.getUsername())).willReturn(target);
         given(friendRequestService.createFriendRequest(sender, target, "Hello!"))
                 .willThrow(new EntityExistsException("Friend request already exists"));
@@ -491,7 +500,7 @@ public class UserControllerTest {
         requestDTO.setTargetUsername(target.getUsername());
         requestDTO.setMessage("Hello!");
 
-        given(userService.getUserByToken("invalidToken")).willReturn(Optional.empty());
+        given(userService.getSessionByToken("invalidToken")).willReturn(Optional.empty());
         given(friendRequestService.createFriendRequest(Mockito.any(), Mockito.any(), Mockito.any()))
                 .willThrow(new AssertionError("CreateFriendRequest was called even when it should not have been called!"));
 
@@ -528,7 +537,7 @@ public class UserControllerTest {
         updateDTO.setStatus(InvitationStatus.ACCEPTED);
 
         given(friendRequestService.getFriendRequestById(requestId)).willReturn(friendRequest);
-        given(userService.getUserByToken(token)).willReturn(Optional.of(user));
+        givenSession(token, user);
         given(friendRequestService.updateFriendRequest(friendRequest, InvitationStatus.ACCEPTED)).willReturn(friendRequest);
 
         MockHttpServletRequestBuilder putRequest = put("/users/friendRequests/{friendRequestId}", requestId)
@@ -547,7 +556,7 @@ public class UserControllerTest {
         FriendRequestPutDTO updateDTO = new FriendRequestPutDTO();
         updateDTO.setStatus(InvitationStatus.DECLINED);
 
-        given(userService.getUserByToken("invalidToken")).willReturn(Optional.empty());
+        given(userService.getSessionByToken("invalidToken")).willReturn(Optional.empty());
         given(friendRequestService.updateFriendRequest(Mockito.any(), Mockito.any()))
                 .willThrow(new AssertionError("Update friend request was called but it should not have been called!"));
 
@@ -578,7 +587,7 @@ public class UserControllerTest {
         updateDTO.setStatus(InvitationStatus.ACCEPTED);
 
         given(friendRequestService.getFriendRequestById(1L)).willReturn(request);
-        given(userService.getUserByToken("attackerToken")).willReturn(Optional.of(attacker));
+        givenSession("attackerToken", attacker);
         given(friendRequestService.updateFriendRequest(Mockito.any(), Mockito.any()))
                 .willThrow(new AssertionError("Update friend request was called but it should not have been called!"));
 
@@ -596,6 +605,9 @@ public class UserControllerTest {
     @Test
     void updateFriendRequest_notFoundFriendRequest_returnsNotFound() throws Exception {
         // Assign
+        User user = new User();
+        user.setId(1L);
+        givenSession("anyToken", user);
         given(friendRequestService.getFriendRequestById(42L))
                 .willThrow(new FriendRequestNotFoundException("Request not found"));
         given(friendRequestService.updateFriendRequest(Mockito.any(), Mockito.any()))
@@ -630,7 +642,7 @@ public class UserControllerTest {
         offlineUser.setStatus(UserStatus.OFFLINE);
         offlineUser.setToken("valid-token");
         
-        given(userService.getUserByToken("valid-token")).willReturn(Optional.of(user));
+        givenSession("valid-token", user);
         given(userService.updateUserStatus(user, UserStatus.OFFLINE)).willReturn(offlineUser);
         
         // when
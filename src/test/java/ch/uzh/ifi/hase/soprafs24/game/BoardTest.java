@@ -0,0 +1,85 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String[][] createEmptyRows() {
+        String[][] rows = new String[15][15];
+        for (int i = 0; i < 15; i++) {
+            for (int j = 0; j < 15; j++) {
+                rows[i][j] = "";
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void fromRows_toRows_roundTrip() {
+        String[][] rows = createEmptyRows();
+        rows[7][7] = "H";
+        rows[7][8] = "a";
+        rows[14][14] = "Z";
+
+        Board board = Board.fromRows(rows);
+
+        assertArrayEquals(rows, board.toRows());
+        assertEquals('H', board.charAt(7, 7));
+        assertEquals('A', board.charAt(7, 8));
+        assertEquals('a', board.tileAt(7, 8));
+        assertTrue(board.isBlank(7 * 15 + 8));
+        assertFalse(board.isBlank(7 * 15 + 7));
+        assertTrue(board.isEmpty(0, 0));
+        assertFalse(board.isOccupied(-1, 7));
+    }
+
+    @Test
+    void json_writtenAsRowsOfStrings() throws Exception {
+        String[][] rows = createEmptyRows();
+        rows[7][7] = "H";
+        Board board = Board.fromRows(rows);
+
+        String json = objectMapper.writeValueAsString(board);
+
+        assertEquals(objectMapper.writeValueAsString(rows), json);
+        assertEquals(board, objectMapper.readValue(json, Board.class));
+    }
+
+    @Test
+    void stateString_roundTrip() {
+        Board board = Board.empty().with(List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'i')));
+
+        String state = board.toStateString();
+
+        assertEquals(225, state.length());
+        assertEquals('H', state.charAt(7 * 15 + 7));
+        assertEquals('i', state.charAt(7 * 15 + 8));
+        assertEquals(board, Board.fromStateString(state));
+        assertTrue(Board.fromStateString(null).isEmpty());
+    }
+
+    @Test
+    void with_leavesOriginalUnchanged() {
+        Board board = Board.empty().with(List.of(new Placement(7, 7, 'H')));
+
+        assertTrue(Board.empty().isEmpty());
+        assertFalse(board.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> board.with(List.of(new Placement(7, 7, 'A'))));
+    }
+
+    @Test
+    void fromRows_invalidTile_throwsException() {
+        String[][] rows = createEmptyRows();
+        rows[0][0] = "AB";
+
+        assertThrows(IllegalArgumentException.class, () -> Board.fromRows(rows));
+        assertThrows(IllegalArgumentException.class, () -> Board.fromRows(new String[14][15]));
+    }
+}
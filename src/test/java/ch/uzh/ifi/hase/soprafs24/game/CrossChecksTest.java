@@ -0,0 +1,99 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import ch.uzh.ifi.hase.soprafs24.lexicon.DawgLexicon;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrossChecksTest {
+
+    private static final DawgLexicon LEXICON = DawgLexicon.of("AT", "TA", "HAT", "HATS", "AH", "HA", "TO", "OH", "SO");
+
+    private String[][] createEmptyBoard() {
+        String[][] board = new String[15][15];
+        for (String[] row : board) {
+            Arrays.fill(row, "");
+        }
+        return board;
+    }
+
+    private static int bit(char letter) {
+        return 1 << (letter - 'A');
+    }
+
+    @Test
+    void of_emptyBoard_onlyCenterIsAnchor() {
+        CrossChecks crossChecks = CrossChecks.of(Board.fromRows(createEmptyBoard()), LEXICON);
+
+        assertTrue(crossChecks.isEmpty());
+        assertTrue(crossChecks.isAnchor(CrossChecks.CENTER));
+        assertFalse(crossChecks.isAnchor(CrossChecks.CENTER + 1));
+        assertEquals(CrossChecks.ALL_LETTERS, crossChecks.crossCheck(CrossChecks.CENTER, true));
+        assertEquals(-1, crossChecks.crossScore(CrossChecks.CENTER, true));
+    }
+
+    @Test
+    void of_word_crossChecksOfNeighbours() {
+        String[][] board = createEmptyBoard();
+        board[7][7] = "H";
+        board[7][8] = "A";
+        board[7][9] = "T";
+        CrossChecks crossChecks = CrossChecks.of(Board.fromRows(board), LEXICON);
+
+        // below A only T and H form a word (AT, AH), below H only A (HA), below T only A and O (TA, TO)
+        assertEquals(bit('T') | bit('H'), crossChecks.crossCheck(8 * 15 + 8, true));
+        assertEquals(bit('A'), crossChecks.crossCheck(8 * 15 + 7, true));
+        assertEquals(bit('A') | bit('O'), crossChecks.crossCheck(8 * 15 + 9, true));
+        assertEquals(1, crossChecks.crossScore(8 * 15 + 8, true));
+        // right of HAT only S (HATS), there is no vertical word
+        assertEquals(bit('S'), crossChecks.crossCheck(7 * 15 + 10, false));
+        assertEquals(CrossChecks.ALL_LETTERS, crossChecks.crossCheck(7 * 15 + 10, true));
+        assertTrue(crossChecks.isAnchor(7 * 15 + 10));
+        assertFalse(crossChecks.isAnchor(7 * 15 + 11));
+        assertTrue(crossChecks.allows(8 * 15 + 8, 'T' - 'A' + 1, true));
+        assertFalse(crossChecks.allows(8 * 15 + 8, 'S' - 'A' + 1, true));
+    }
+
+    @Test
+    void place_incrementalUpdate_matchesFullComputation() {
+        String[][] board = createEmptyBoard();
+        CrossChecks incremental = CrossChecks.of(Board.fromRows(board), LEXICON);
+
+        List<List<Placement>> moves = List.of(
+                List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'A'), new Placement(7, 9, 'T')),
+                List.of(new Placement(8, 9, 'O')),
+                List.of(new Placement(7, 10, 'S'), new Placement(8, 10, 'O')),
+                List.of(new Placement(6, 8, 'H')));
+        for (List<Placement> move : moves) {
+            incremental.place(move);
+            for (Placement placement : move) {
+                board[placement.getRow()][placement.getCol()] = String.valueOf(placement.getLetter());
+            }
+
+            CrossChecks full = CrossChecks.of(Board.fromRows(board), LEXICON);
+            for (int square = 0; square < 15 * 15; square++) {
+                assertEquals(full.letter(square), incremental.letter(square));
+                assertEquals(full.isAnchor(square), incremental.isAnchor(square), "anchor " + square);
+                for (boolean horizontal : new boolean[]{true, false}) {
+                    assertEquals(full.crossCheck(square, horizontal), incremental.crossCheck(square, horizontal), "check " + square);
+                    assertEquals(full.crossScore(square, horizontal), incremental.crossScore(square, horizontal), "score " + square);
+                }
+            }
+        }
+    }
+
+    @Test
+    void copy_notAffectedByLaterMoves() {
+        CrossChecks crossChecks = CrossChecks.of(Board.fromRows(createEmptyBoard()), LEXICON);
+        CrossChecks copy = crossChecks.copy();
+
+        crossChecks.place(List.of(new Placement(7, 7, 'A'), new Placement(7, 8, 'T')));
+
+        assertFalse(crossChecks.isEmpty());
+        assertTrue(copy.isEmpty());
+        assertEquals(0, copy.letter(CrossChecks.CENTER));
+    }
+}
@@ -0,0 +1,121 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import ch.uzh.ifi.hase.soprafs24.constant.LetterCount;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchStateTest {
+
+    @Test
+    void stateString_newState() {
+        MatchState state = new MatchState(42);
+
+        assertEquals("2|42|42|H|*|0|0", state.toStateString());
+
+        MatchState restored = MatchState.fromStateString(state.toStateString());
+        assertEquals(42, restored.getSeed());
+        assertNull(restored.getBag());
+        assertTrue(restored.isHostTurn());
+        assertTrue(restored.getScores().isEmpty());
+        assertEquals(state, restored);
+    }
+
+    @Test
+    void stateString_roundTrip() {
+        MatchState state = new MatchState(3);
+        state.setBag(TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, state.getRandom()));
+        state.getBag().draw(14);
+        state.setHostTurn(false);
+        state.addScore(5L, 12);
+        state.addScore(7L, 0);
+        state.addScore(5L, 8);
+        state.setRack(5L, "ABC|:D");
+        state.setRack(7L, "");
+
+        MatchState restored = MatchState.fromStateString(state.toStateString());
+
+        assertEquals(state, restored);
+        assertEquals(state.hashCode(), restored.hashCode());
+        assertFalse(restored.isHostTurn());
+        assertEquals(Map.of(5L, 20, 7L, 0), restored.getScores());
+        assertEquals("ABC|:D", restored.getRack(5L));
+        assertEquals("", restored.getRack(7L));
+        assertNull(restored.getRack(9L));
+        assertEquals(84, restored.getBag().size());
+        assertEquals(state.getBag().draw(84), restored.getBag().draw(84));
+        assertEquals(state.getRandom().nextLong(), restored.getRandom().nextLong());
+    }
+
+    @Test
+    void random_sameSeed_sameDraws() {
+        List<List<Character>> first = play(new MatchState(99));
+        List<List<Character>> second = play(new MatchState(99));
+
+        assertEquals(first, second);
+        assertNotEquals(first, play(new MatchState(100)));
+    }
+
+    @Test
+    void random_restoredMidGame_continuesTheSameWay() {
+        MatchState state = new MatchState(7);
+        state.setBag(TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, state.getRandom()));
+        state.getBag().putBack(state.getBag().draw(7), state.getRandom());
+
+        MatchState restored = MatchState.fromStateString(state.toStateString());
+        state.getBag().putBack(state.getBag().draw(7), state.getRandom());
+        restored.getBag().putBack(restored.getBag().draw(7), restored.getRandom());
+
+        assertEquals(state.toStateString(), restored.toStateString());
+    }
+
+    @Test
+    void splitMix64_matchesSplittableRandom() {
+        SplitMix64 random = new SplitMix64(123);
+        SplittableRandom expected = new SplittableRandom(123);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.nextLong(), random.nextLong());
+        }
+    }
+
+    @Test
+    void equals_changedState_notEqual() {
+        MatchState state = new MatchState(1);
+        MatchState changed = MatchState.fromStateString(state.toStateString());
+
+        changed.addScore(1L, 3);
+
+        assertNotEquals(state, changed);
+    }
+
+    @Test
+    void fromStateString_invalidState_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> MatchState.fromStateString("3|1|1|H|*|0|0"));
+        assertThrows(IllegalArgumentException.class, () -> MatchState.fromStateString("1|G|AB|1|5:3|0"));
+        assertThrows(IllegalArgumentException.class, () -> MatchState.fromStateString("2|1|x|H|*|0|0"));
+        assertThrows(IllegalArgumentException.class, () -> MatchState.fromStateString("2|1|1|X|*|0|0"));
+        assertThrows(IllegalArgumentException.class, () -> MatchState.fromStateString("2|1|1|H|*|1|0"));
+        assertThrows(IllegalArgumentException.class, () -> MatchState.fromStateString("2|1|1|H|*|0|1|5:9:AB"));
+        assertThrows(IllegalArgumentException.class, () -> MatchState.fromStateString("2|1|1|H|*|0|0|extra"));
+    }
+
+    // shuffles the bag, then draws a rack and exchanges it a few times
+    private List<List<Character>> play(MatchState state) {
+        state.setBag(TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, state.getRandom()));
+        List<Character> rack = state.getBag().draw(7);
+        List<List<Character>> racks = new ArrayList<>(List.of(rack));
+        for (int i = 0; i < 5; i++) {
+            List<Character> next = state.getBag().draw(7);
+            state.getBag().putBack(rack, state.getRandom());
+            racks.add(next);
+            rack = next;
+        }
+        return racks;
+    }
+}
@@ -0,0 +1,58 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveResultTest {
+
+    @Test
+    void evaluate_firstWord_wordsWithSquaresAndScores() {
+        Board newBoard = Board.empty().with(List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'E'),
+                new Placement(7, 9, 'L'), new Placement(7, 10, 'L'), new Placement(7, 11, 'O')));
+
+        MoveResult result = MoveResult.evaluate(Board.empty(), newBoard, List.of(
+                new int[]{7, 7}, new int[]{7, 8}, new int[]{7, 9}, new int[]{7, 10}, new int[]{7, 11}));
+
+        assertEquals(List.of("HELLO"), result.getWords());
+        FormedWord hello = result.getFormedWords().get(0);
+        assertEquals(7, hello.getRow());
+        assertEquals(7, hello.getCol());
+        assertTrue(hello.isHorizontal());
+        // the O is on a double letter square
+        assertEquals(9, hello.getScore());
+        assertEquals(9, result.getScore());
+    }
+
+    @Test
+    void evaluate_sameCrossWordTwice_eachScoredAtItsOwnSquares() {
+        Board oldBoard = Board.empty().with(List.of(new Placement(6, 7, 'H'), new Placement(6, 8, 'H')));
+        // the second A is a blank
+        Board newBoard = oldBoard.with(List.of(new Placement(7, 7, 'A'), new Placement(7, 8, 'a')));
+
+        MoveResult result = MoveResult.evaluate(oldBoard, newBoard, List.of(new int[]{7, 7}, new int[]{7, 8}));
+
+        assertEquals(List.of("AA", "HA", "HA"), result.getWords());
+        List<FormedWord> words = result.getFormedWords();
+        assertEquals(1, words.get(0).getScore());
+        assertEquals(7, words.get(1).getCol());
+        assertFalse(words.get(1).isHorizontal());
+        assertEquals(5, words.get(1).getScore());
+        // the double letter square under the old H does not count again and the blank scores nothing
+        assertEquals(8, words.get(2).getCol());
+        assertEquals(4, words.get(2).getScore());
+        assertEquals(10, result.getScore());
+    }
+
+    @Test
+    void evaluate_singleTileWithoutNeighbours_noWords() {
+        Board newBoard = Board.empty().with(List.of(new Placement(7, 7, 'A')));
+
+        MoveResult result = MoveResult.evaluate(Board.empty(), newBoard, List.of(new int[]{7, 7}));
+
+        assertTrue(result.isEmpty());
+        assertEquals(0, result.getScore());
+    }
+}
@@ -0,0 +1,85 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyTest {
+
+    private int square(int row, int col) {
+        return row * 15 + col;
+    }
+
+    @Test
+    void neighbours_doNotWrapAroundRowEnds() {
+        Occupancy neighbours = Occupancy.of(square(3, 14)).neighbours();
+
+        assertEquals(Occupancy.of(square(2, 14), square(4, 14), square(3, 13)), neighbours);
+        assertFalse(neighbours.contains(square(4, 0)));
+    }
+
+    @Test
+    void neighbours_matchScanOfAdjacentSquares() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            boolean[] occupied = new boolean[225];
+            Occupancy.Builder builder = Occupancy.builder();
+            for (int square = 0; square < 225; square++) {
+                if (random.nextInt(8) == 0) {
+                    occupied[square] = true;
+                    builder.set(square);
+                }
+            }
+            Occupancy neighbours = builder.build().neighbours();
+
+            for (int row = 0; row < 15; row++) {
+                for (int col = 0; col < 15; col++) {
+                    boolean expected = (row > 0 && occupied[square(row - 1, col)])
+                            || (row < 14 && occupied[square(row + 1, col)])
+                            || (col > 0 && occupied[square(row, col - 1)])
+                            || (col < 14 && occupied[square(row, col + 1)]);
+                    assertEquals(expected, neighbours.contains(square(row, col)), row + "," + col);
+                }
+            }
+        }
+    }
+
+    @Test
+    void span_coversLineBetweenFirstAndLastSquare() {
+        assertEquals(Occupancy.of(square(7, 3), square(7, 4), square(7, 5), square(7, 6)),
+                Occupancy.of(square(7, 3), square(7, 6)).span());
+        assertEquals(Occupancy.of(square(2, 9), square(3, 9), square(4, 9), square(5, 9)),
+                Occupancy.of(square(5, 9), square(2, 9)).span());
+        // across the word boundaries of the bitboard
+        assertEquals(14 - 2 + 1, Occupancy.of(square(2, 4), square(14, 4)).span().size());
+        assertTrue(Occupancy.EMPTY.span().isEmpty());
+    }
+
+    @Test
+    void lines_detectedByMasks() {
+        assertTrue(Occupancy.of(square(14, 0), square(14, 14)).isInOneRow());
+        assertFalse(Occupancy.of(square(13, 14), square(14, 0)).isInOneRow());
+        assertTrue(Occupancy.of(square(0, 3), square(14, 3)).isInOneColumn());
+        assertFalse(Occupancy.of(square(0, 3), square(14, 4)).isInOneColumn());
+    }
+
+    @Test
+    void iteration_returnsSquaresInOrder() {
+        Occupancy occupancy = Occupancy.of(224, 0, 63, 64, 128);
+
+        assertEquals(0, occupancy.first());
+        assertEquals(224, occupancy.last());
+        assertEquals(63, occupancy.next(1));
+        assertEquals(128, occupancy.next(65));
+        assertEquals(-1, occupancy.next(225));
+        assertEquals(5, occupancy.size());
+    }
+
+    @Test
+    void builder_squareOffBoard_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> Occupancy.builder().set(225));
+        assertThrows(IllegalArgumentException.class, () -> Occupancy.builder().set(3, 15));
+    }
+}
@@ -0,0 +1,65 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import ch.uzh.ifi.hase.soprafs24.constant.BoardStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.LetterPoints;
+import ch.uzh.ifi.hase.soprafs24.constant.Premium;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RulesetTest {
+
+    @Test
+    void standard_matchesLetterPointsAndBoardStatus() {
+        Ruleset ruleset = Ruleset.STANDARD;
+
+        for (char letter = 'A'; letter <= 'Z'; letter++) {
+            int tile = Board.encode(letter);
+            assertEquals((int) LetterPoints.LETTER_POINTS.get(letter), ruleset.points(tile));
+            // the same letter played as blank
+            assertEquals(0, ruleset.points(tile | Board.BLANK));
+        }
+        for (int square = 0; square < Board.SQUARES; square++) {
+            String code = BoardStatus.getMultiplier(square / Board.SIZE, square % Board.SIZE);
+            assertEquals(Premium.fromCode(code), ruleset.premium(square));
+        }
+        assertEquals(Premium.TRIPLE_WORD, ruleset.premium(0));
+        assertEquals(3, ruleset.wordMultiplier(0));
+        assertEquals(1, ruleset.letterMultiplier(0));
+        assertEquals(2, ruleset.letterMultiplier(7 * Board.SIZE + 11));
+    }
+
+    @Test
+    void letterPoints_unknownLetter_zero() {
+        assertEquals(0, LetterPoints.getPoints('a'));
+        assertEquals(0, LetterPoints.getPoints(' '));
+        assertEquals(10, LetterPoints.getPoints('Z'));
+    }
+
+    @Test
+    void evaluate_customRuleset_usedForScoring() {
+        int[] letterPoints = new int[26];
+        Arrays.fill(letterPoints, 2);
+        Premium[] premiums = new Premium[Board.SQUARES];
+        Arrays.fill(premiums, Premium.NORMAL);
+        premiums[7 * Board.SIZE + 7] = Premium.TRIPLE_WORD;
+        Ruleset ruleset = Ruleset.of(letterPoints, premiums);
+
+        Board newBoard = Board.empty().with(List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'I')));
+        MoveResult result = MoveResult.evaluate(ruleset, Board.empty(), newBoard, List.of(new int[]{7, 7}, new int[]{7, 8}));
+
+        assertEquals(12, result.getScore());
+    }
+
+    @Test
+    void of_wrongSizes_throwsException() {
+        Premium[] premiums = new Premium[Board.SQUARES];
+        Arrays.fill(premiums, Premium.NORMAL);
+
+        assertThrows(IllegalArgumentException.class, () -> Ruleset.of(new int[25], premiums));
+        assertThrows(IllegalArgumentException.class, () -> Ruleset.of(new int[26], new Premium[15]));
+    }
+}
@@ -0,0 +1,99 @@
+package ch.uzh.ifi.hase.soprafs24.game;
+
+import ch.uzh.ifi.hase.soprafs24.constant.LetterCount;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileBagTest {
+
+    @Test
+    void shuffled_standardBag_drawsEveryTileOnce() {
+        TileBag bag = TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, new SplittableRandom(1));
+        int total = LetterCount.INITIAL_LETTER_COUNTS.values().stream().mapToInt(Integer::intValue).sum();
+
+        assertEquals(total, bag.size());
+        assertEquals(LetterCount.INITIAL_LETTER_COUNTS, bag.letterCounts());
+
+        List<Character> drawn = bag.draw(total + 5);
+
+        assertEquals(total, drawn.size());
+        assertTrue(bag.isEmpty());
+        assertTrue(bag.letterCounts().isEmpty());
+        for (Map.Entry<Character, Integer> entry : LetterCount.INITIAL_LETTER_COUNTS.entrySet()) {
+            assertEquals((long) entry.getValue(), drawn.stream().filter(letter -> letter == entry.getKey()).count());
+        }
+    }
+
+    @Test
+    void draw_oddsFollowTheTileCounts() {
+        SplittableRandom random = new SplittableRandom(7);
+        int es = 0;
+        int zs = 0;
+        for (int i = 0; i < 20000; i++) {
+            char letter = TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, random).draw(1).get(0);
+            if (letter == 'E') es++;
+            if (letter == 'Z') zs++;
+        }
+        // 12 of 98 tiles are an E, 1 is a Z
+        assertEquals(20000 * 12 / 98.0, es, 300);
+        assertEquals(20000 / 98.0, zs, 60);
+    }
+
+    @Test
+    void draw_updatesCounts() {
+        TileBag bag = TileBag.shuffled(Map.of('A', 2, 'B', 1), new SplittableRandom(3));
+
+        List<Character> drawn = bag.draw(1);
+
+        assertEquals(2, bag.size());
+        assertEquals(drawn.get(0) == 'A' ? 1 : 2, bag.count('A'));
+        assertEquals(drawn.get(0) == 'B' ? 0 : 1, bag.count('b'));
+        assertEquals(0, bag.count('Z'));
+        assertEquals(0, bag.count(' '));
+    }
+
+    @Test
+    void putBack_tilesCanBeDrawnAgain() {
+        TileBag bag = TileBag.shuffled(Map.of('A', 3, 'B', 3), new SplittableRandom(5));
+        List<Character> drawn = bag.draw(3);
+
+        bag.putBack(List.of('Q', ' ', 'q'), new SplittableRandom(5));
+
+        assertEquals(5, bag.size());
+        assertEquals(2, bag.count('Q'));
+        assertEquals(3, bag.draw(10).stream().filter(letter -> letter != 'Q').count());
+        assertEquals(3, drawn.size());
+    }
+
+    @Test
+    void putBack_fullBag_throwsException() {
+        TileBag bag = TileBag.shuffled(Map.of('A', 1), new SplittableRandom(5));
+
+        assertThrows(IllegalStateException.class, () -> bag.putBack(List.of('B'), new SplittableRandom(5)));
+    }
+
+    @Test
+    void stateString_keepsDrawingOrder() {
+        TileBag bag = TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, new SplittableRandom(11));
+        bag.draw(7);
+
+        TileBag restored = TileBag.fromStateString(bag.toStateString(), 100);
+
+        assertEquals(bag.letterCounts(), restored.letterCounts());
+        assertEquals(bag.draw(20), restored.draw(20));
+        assertThrows(IllegalArgumentException.class, () -> TileBag.fromStateString("AB1", 100));
+    }
+
+    @Test
+    void shuffled_sameSeed_sameBag() {
+        TileBag first = TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, new SplittableRandom(42));
+        TileBag second = TileBag.shuffled(LetterCount.INITIAL_LETTER_COUNTS, new SplittableRandom(42));
+
+        assertEquals(first.toStateString(), second.toStateString());
+    }
+}
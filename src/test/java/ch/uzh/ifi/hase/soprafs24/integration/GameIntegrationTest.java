@@ -1,5 +1,6 @@
 package ch.uzh.ifi.hase.soprafs24.integration;
 
+import ch.uzh.ifi.hase.soprafs24.auth.SessionTokens;
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
@@ -36,15 +37,19 @@ public class GameIntegrationTest {
     @Autowired
     private GameRepository gameRepository;
 
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    private String token;
+
     @BeforeEach // creates test user before each test
     public void setup() {
 
         User testUser = new User();
         testUser.setUsername("testUser");
-        testUser.setToken("test-token");
         testUser.setPassword("password");
         testUser.setStatus(UserStatus.ONLINE);
-        userRepository.save(testUser);
+        token = sessionTokens.issue(userRepository.save(testUser).getId());
     }
 
     @AfterEach // deletes all created users and games after the test
@@ -55,7 +60,6 @@ public class GameIntegrationTest {
 
     @Test
     public void createGame_validRequest_createsGameInDatabase() throws Exception {
-        String token = "test-token";
 
         mockMvc.perform(post("/games")
                 .header("Authorization", token)
@@ -0,0 +1,115 @@
+package ch.uzh.ifi.hase.soprafs24.integration;
+
+import ch.uzh.ifi.hase.soprafs24.controller.QueryBudget;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs a request against the test database and fails if it does more database work than the
+ * {@link QueryBudget} of its handler allows, or so much less that the budget no longer guards anything.
+ * Registered on a Spring test with @RegisterExtension, the Hibernate statistics of the application
+ * context are switched on before each test.
+ */
+public class QueryBudgetExtension implements BeforeEachCallback {
+
+    private Statistics statistics;
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        statistics = SpringExtension.getApplicationContext(context)
+                .getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    /**
+     * Runs the request and checks it against the budget of the handler, a handler with one action only
+     */
+    public void assertWithinBudget(Class<?> controller, String handler, Executable request) throws Throwable {
+        assertWithinBudget(controller, handler, "", request);
+    }
+
+    /**
+     * Runs the request and checks it against the budget the handler declares for the action
+     */
+    public void assertWithinBudget(Class<?> controller, String handler, String action, Executable request) throws Throwable {
+        QueryBudget budget = budgetOf(controller, handler, action);
+
+        statistics.clear();
+        request.execute();
+
+        List<String> exceeded = new ArrayList<>();
+        List<String> unused = new ArrayList<>();
+        check(exceeded, unused, "statements", budget.statements(), statistics.getPrepareStatementCount());
+        check(exceeded, unused, "entity loads", budget.entityLoads(), statistics.getEntityLoadCount());
+        check(exceeded, unused, "collection fetches", budget.collectionFetches(), statistics.getCollectionFetchCount());
+        check(exceeded, unused, "flushes", budget.flushes(), statistics.getFlushCount());
+        String name = controller.getSimpleName() + "." + handler + (action.isEmpty() ? "" : " " + action);
+        if (!exceeded.isEmpty()) {
+            fail(name + " is over its query budget: " + String.join(", ", exceeded));
+        }
+        if (!unused.isEmpty()) {
+            fail(name + " is well under its query budget, lower it: " + String.join(", ", unused));
+        }
+    }
+
+    /**
+     * The database work of the last request checked
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * The budget a handler declares for an action
+     */
+    public static QueryBudget budgetOf(Class<?> controller, String handler, String action) {
+        return budgetsOf(handlerOf(controller, handler)).stream()
+                .filter(budget -> budget.action().equals(action))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(controller.getSimpleName() + "." + handler
+                        + " declares no query budget" + (action.isEmpty() ? "" : " for " + action)));
+    }
+
+    public static List<QueryBudget> budgetsOf(Method handler) {
+        return Arrays.asList(handler.getAnnotationsByType(QueryBudget.class));
+    }
+
+    private static Method handlerOf(Class<?> controller, String handler) {
+        List<Method> methods = Arrays.stream(controller.getDeclaredMethods())
+                .filter(method -> method.getName().equals(handler))
+                .collect(Collectors.toList());
+        if (methods.size() != 1) {
+            throw new AssertionError("Expected one handler " + controller.getSimpleName() + "." + handler + " but found " + methods.size());
+        }
+        return methods.get(0);
+    }
+
+    // a budget may leave a quarter unused, at least one, a saving beyond that has to be locked in by lowering it
+    private static void check(List<String> exceeded, List<String> unused, String name, int budget, long actual) {
+        if (budget == QueryBudget.UNCHECKED) {
+            return;
+        }
+        if (actual > budget) {
+            exceeded.add(name + " " + actual + " > " + budget);
+        }
+        else if (budget - actual > Math.max(1, budget / 4)) {
+            unused.add(name + " " + actual + " of " + budget);
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package ch.uzh.ifi.hase.soprafs24.integration;
+
+import ch.uzh.ifi.hase.soprafs24.auth.SessionTokens;
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.MessageStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
+import ch.uzh.ifi.hase.soprafs24.controller.GameController;
+import ch.uzh.ifi.hase.soprafs24.controller.QueryBudget;
+import ch.uzh.ifi.hase.soprafs24.controller.UserController;
+import ch.uzh.ifi.hase.soprafs24.entity.FriendRequest;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.GameInvitation;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.repository.FriendRequestRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.GameInvitationRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameStateDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MessageGameStateMessageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PlacementDTO;
+import ch.uzh.ifi.hase.soprafs24.websocket.WebSocketController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs every handler of the controllers once against the test database and checks the
+ * database work against the {@link ch.uzh.ifi.hase.soprafs24.controller.QueryBudget} it declares.
+ * Alice and Bob play a game, Carol hosts a lobby, sent Alice a friend request and invited her to the lobby.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class QueryBudgetIntegrationTest {
+
+    @RegisterExtension
+    QueryBudgetExtension queries = new QueryBudgetExtension();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WebSocketController webSocketController;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Autowired
+    private FriendRequestRepository friendRequestRepository;
+
+    @Autowired
+    private GameInvitationRepository gameInvitationRepository;
+
+    @Autowired
+    private SessionTokens sessionTokens;
+
+    private User alice;
+    private User bob;
+    private User carol;
+    private Game game;
+    private Game lobby;
+    private FriendRequest friendRequest;
+    private GameInvitation gameInvitation;
+
+    @BeforeEach
+    public void setup() {
+        alice = userRepository.save(user("alice", true));
+        bob = userRepository.save(user("bob", true));
+        carol = userRepository.save(user("carol", false));
+
+        game = new Game();
+        game.setHost(alice);
+        game.addUser(alice);
+        game.addUser(bob);
+        game.setGameStatus(GameStatus.ONGOING);
+        game.setStartTime(LocalDateTime.now());
+        game.refillRack(alice.getId(), new String[0]);
+        game = gameRepository.save(game);
+
+        lobby = new Game();
+        lobby.setHost(carol);
+        lobby.addUser(carol);
+        lobby = gameRepository.save(lobby);
+
+        friendRequest = new FriendRequest();
+        friendRequest.setSender(carol);
+        friendRequest.setTarget(alice);
+        friendRequest.setMessage("");
+        friendRequest = friendRequestRepository.save(friendRequest);
+
+        gameInvitation = new GameInvitation();
+        gameInvitation.setGame(lobby);
+        gameInvitation.setSender(carol);
+        gameInvitation.setTarget(alice);
+        gameInvitation = gameInvitationRepository.save(gameInvitation);
+    }
+
+    private User user(String username, boolean inGame) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setStatus(UserStatus.ONLINE);
+        user.setInGame(inGame);
+        return user;
+    }
+
+    private String tokenOf(User user) {
+        return sessionTokens.issue(user.getId());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        gameInvitationRepository.deleteAll();
+        friendRequestRepository.deleteAll();
+        gameRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    // the actions a game state message can carry, each is dispatched to its own branch with its own budget
+    private static final List<String> GAME_STATE_ACTIONS = List.of("VALIDATE", "SUBMIT", "SKIP", "EXCHANGE",
+            "FETCH_GAME_STATE", "GAME_END", "SURRENDER", "VOTE", "NO_VOTE", "TIMER");
+
+    @Test
+    public void everyHandler_declaresQueryBudget() {
+        List<String> missing = new ArrayList<>();
+        for (Class<?> controller : List.of(UserController.class, GameController.class)) {
+            for (Method method : controller.getDeclaredMethods()) {
+                boolean handler = method.isAnnotationPresent(GetMapping.class) || method.isAnnotationPresent(PostMapping.class)
+                        || method.isAnnotationPresent(PutMapping.class) || method.isAnnotationPresent(DeleteMapping.class);
+                if (handler && QueryBudgetExtension.budgetsOf(method).isEmpty()) {
+                    missing.add(controller.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        for (Method method : WebSocketController.class.getDeclaredMethods()) {
+            if (!method.isAnnotationPresent(MessageMapping.class)) continue;
+            List<String> actions = QueryBudgetExtension.budgetsOf(method).stream()
+                    .map(QueryBudget::action)
+                    .collect(Collectors.toList());
+            for (String action : GAME_STATE_ACTIONS) {
+                if (!actions.contains(action)) {
+                    missing.add(WebSocketController.class.getSimpleName() + "." + method.getName() + " " + action);
+                }
+            }
+        }
+        assertEquals(List.of(), missing);
+    }
+
+    // ------------------ UserController ------------------
+
+    @Test
+    public void getAllUsers_withinBudget() throws Throwable {
+        queries.assertWithinBudget(UserController.class, "getAllUsers", () ->
+                mockMvc.perform(get("/users")).andExpect(status().isOk()));
+    }
+
+    @Test
+    public void updateUserStatus_withinBudget() throws Throwable {
+        queries.assertWithinBudget(UserController.class, "updateUserStatus", () ->
+                mockMvc.perform(put("/users").param("userId", String.valueOf(alice.getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"OFFLINE\"}"))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void createUser_withinBudget() throws Throwable {
+        queries.assertWithinBudget(UserController.class, "createUser", () ->
+                mockMvc.perform(post("/users/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"dave\",\"password\":\"password\"}"))
+                        .andExpect(status().isCreated()));
+    }
+
+    @Test
+    public void loginUser_withinBudget() throws Throwable {
+        queries.assertWithinBudget(UserController.class, "loginUser", () ->
+                mockMvc.perform(post("/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"alice\",\"password\":\"password\"}"))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void logoutUser_withinBudget() throws Throwable {
+        queries.assertWithinBudget(UserController.class, "logoutUser", () ->
+                mockMvc.perform(put("/users/logout").header("Authorization", tokenOf(alice)))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void getFriendRequests_withinBudget() throws Throwable {
+        queries.assertWithinBudget(UserController.class, "getFriendRequests", () ->
+                mockMvc.perform(get("/users/friendRequests").header("Authorization", tokenOf(alice)))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void createFriendRequest_withinBudget() throws Throwable {
+        queries.assertWithinBudget(UserController.class, "createFriendRequest", () ->
+                mockMvc.perform(post("/users/friendRequests").header("Authorization", tokenOf(bob))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetUsername\":\"carol\",\"message\":\"hi\"}"))
+                        .andExpect(status().isCreated()));
+    }
+
+    @Test
+    public void updateFriendRequest_withinBudget() throws Throwable {
+        queries.assertWithinBudget(UserController.class, "updateFriendRequest", () ->
+                mockMvc.perform(put("/users/friendRequests/{id}", friendRequest.getId()).header("Authorization", tokenOf(alice))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"ACCEPTED\"}"))
+                        .andExpect(status().isOk()));
+    }
+
+    // ------------------ GameController ------------------
+
+    @Test
+    public void createGame_withinBudget() throws Throwable {
+        queries.assertWithinBudget(GameController.class, "createGame", () ->
+                mockMvc.perform(post("/games").header("Authorization", tokenOf(carol)))
+                        .andExpect(status().isCreated()));
+    }
+
+    @Test
+    public void getGameById_withinBudget() throws Throwable {
+        queries.assertWithinBudget(GameController.class, "getGameById", () ->
+                mockMvc.perform(get("/games/{id}", game.getId())).andExpect(status().isOk()));
+    }
+
+    @Test
+    public void updateGame_withinBudget() throws Throwable {
+        queries.assertWithinBudget(GameController.class, "updateGame", () ->
+                mockMvc.perform(put("/games/{id}", lobby.getId()).header("Authorization", tokenOf(carol))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"gameStatus\":\"ONGOING\"}"))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void deleteGame_withinBudget() throws Throwable {
+        Game emptyGame = new Game();
+        emptyGame.setHost(carol);
+        Long emptyGameId = gameRepository.save(emptyGame).getId();
+
+        queries.assertWithinBudget(GameController.class, "deleteGame", () ->
+                mockMvc.perform(delete("/games/{id}", emptyGameId).header("Authorization", tokenOf(carol)))
+                        .andExpect(status().isNoContent()));
+    }
+
+    @Test
+    public void leaveGame_withinBudget() throws Throwable {
+        queries.assertWithinBudget(GameController.class, "leaveGame", () ->
+                mockMvc.perform(put("/games/{id}/users/{userId}/leave", game.getId(), bob.getId()).header("Authorization", tokenOf(bob)))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void getRemainingLetters_withinBudget() throws Throwable {
+        queries.assertWithinBudget(GameController.class, "getRemainingLetters", () ->
+                mockMvc.perform(get("/games/{id}/letters/{letter}", game.getId(), "E").header("Authorization", tokenOf(bob)))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void createGameInvitation_withinBudget() throws Throwable {
+        queries.assertWithinBudget(GameController.class, "createGameInvitation", () ->
+                mockMvc.perform(post("/games/invitations").header("Authorization", tokenOf(alice))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"gameId\":" + game.getId() + ",\"targetUsername\":\"carol\"}"))
+                        .andExpect(status().isCreated()));
+    }
+
+    @Test
+    public void getGameInvitations_withinBudget() throws Throwable {
+        queries.assertWithinBudget(GameController.class, "getGameInvitations", () ->
+                mockMvc.perform(get("/games/invitations/{userId}", alice.getId()).header("Authorization", tokenOf(alice)))
+                        .andExpect(status().isOk()));
+    }
+
+    @Test
+    public void updateGameInvitations_withinBudget() throws Throwable {
+        queries.assertWithinBudget(GameController.class, "updateGameInvitations", () ->
+                mockMvc.perform(put("/games/invitations/{id}", gameInvitation.getId()).header("Authorization", tokenOf(alice))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"ACCEPTED\"}"))
+                        .andExpect(status().isOk()));
+    }
+
+    // ------------------ WebSocketController ------------------
+
+    private GameStateDTO gameState(String action, Long playerId) {
+        GameStateDTO gameState = new GameStateDTO();
+        gameState.setId(game.getId());
+        gameState.setAction(action);
+        gameState.setToken("token");
+        gameState.setPlayerId(playerId);
+        gameState.setUserTiles(new String[0]);
+        gameState.setBoard(Board.empty());
+        return gameState;
+    }
+
+    private GameStateDTO firstMove(String action) {
+        GameStateDTO gameState = gameState(action, alice.getId());
+        List<PlacementDTO> placements = new ArrayList<>();
+        String word = "HELLO";
+        for (int i = 0; i < word.length(); i++) {
+            placements.add(new PlacementDTO(7, 7 + i, String.valueOf(word.charAt(i)), false));
+        }
+        gameState.setBoard(null);
+        gameState.setPlacements(placements);
+        gameState.setUserTiles(new String[]{"A", "B"});
+        return gameState;
+    }
+
+    private MessageGameStateMessageDTO handle(GameStateDTO gameState) {
+        return webSocketController.handleGameStates(String.valueOf(game.getId()), gameState).join();
+    }
+
+    private void assertHandledWithinBudget(GameStateDTO gameState) throws Throwable {
+        queries.assertWithinBudget(WebSocketController.class, "handleGameStates", gameState.getAction(), () -> {
+            MessageGameStateMessageDTO message = handle(gameState);
+            assertTrue(message == null || message.getMessageStatus() != MessageStatus.ERROR, () -> String.valueOf(message));
+        });
+    }
+
+    @Test
+    public void validate_withinBudget() throws Throwable {
+        assertHandledWithinBudget(firstMove("VALIDATE"));
+    }
+
+    @Test
+    public void submit_withinBudget() throws Throwable {
+        assertHandledWithinBudget(firstMove("SUBMIT"));
+
+        // one read of the game with its users, three reads merging the detached game (game, host, users)
+        // and one update writing the board, score, rack and turn together, in a single flush
+        assertEquals(5, queries.getStatistics().getPrepareStatementCount());
+        assertEquals(1, queries.getStatistics().getFlushCount());
+    }
+
+    @Test
+    public void skip_withinBudget() throws Throwable {
+        assertHandledWithinBudget(gameState("SKIP", alice.getId()));
+    }
+
+    @Test
+    public void exchange_withinBudget() throws Throwable {
+        GameStateDTO gameState = gameState("EXCHANGE", alice.getId());
+        gameState.setUserTiles(game.getPlayerTiles(alice.getId()));
+        assertHandledWithinBudget(gameState);
+    }
+
+    @Test
+    public void fetchGameState_tilesDrawn_withinBudget() throws Throwable {
+        assertHandledWithinBudget(gameState("FETCH_GAME_STATE", bob.getId()));
+    }
+
+    @Test
+    public void gameEnd_withinBudget() throws Throwable {
+        assertHandledWithinBudget(gameState("GAME_END", alice.getId()));
+    }
+
+    @Test
+    public void surrender_withinBudget() throws Throwable {
+        assertHandledWithinBudget(gameState("SURRENDER", bob.getId()));
+    }
+
+    @Test
+    public void vote_withinBudget() throws Throwable {
+        assertHandledWithinBudget(gameState("VOTE", alice.getId()));
+    }
+
+    @Test
+    public void noVote_withinBudget() throws Throwable {
+        assertHandledWithinBudget(gameState("NO_VOTE", bob.getId()));
+    }
+
+    @Test
+    public void timer_withinBudget() throws Throwable {
+        assertHandledWithinBudget(gameState("TIMER", alice.getId()));
+    }
+}
@@ -0,0 +1,140 @@
+package ch.uzh.ifi.hase.soprafs24.integration;
+
+import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.MessageStatus;
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameStateDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.MessageGameStateMessageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PlacementDTO;
+import ch.uzh.ifi.hase.soprafs24.service.GameRegistry;
+import ch.uzh.ifi.hase.soprafs24.websocket.WebSocketController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plays a game with the registry set up as in production: the games are kept in memory and
+ * written back in the background by the mailboxes of the games.
+ */
+@SpringBootTest(properties = {
+        "game-registry.maximum-games=100",
+        "game-registry.durability=write-behind",
+        "game-registry.flush-interval=50ms"
+})
+public class WriteBehindIntegrationTest {
+
+    @Autowired
+    private WebSocketController webSocketController;
+
+    @Autowired
+    private GameRegistry gameRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    private User alice;
+    private User bob;
+    private Game game;
+
+    @BeforeEach
+    public void setup() {
+        alice = userRepository.save(user("alice"));
+        bob = userRepository.save(user("bob"));
+
+        game = new Game();
+        game.setHost(alice);
+        game.addUser(alice);
+        game.addUser(bob);
+        game.setGameStatus(GameStatus.ONGOING);
+        game.setStartTime(LocalDateTime.now());
+        game = gameRepository.save(game);
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setStatus(UserStatus.IN_GAME);
+        user.setInGame(true);
+        return user;
+    }
+
+    @AfterEach
+    public void cleanup() {
+        gameRegistry.evict(game.getId());
+        gameRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private GameStateDTO gameState(String action, Long playerId) {
+        GameStateDTO gameState = new GameStateDTO();
+        gameState.setId(game.getId());
+        gameState.setAction(action);
+        gameState.setToken("token");
+        gameState.setPlayerId(playerId);
+        gameState.setUserTiles(new String[0]);
+        gameState.setBoard(Board.empty());
+        return gameState;
+    }
+
+    private MessageGameStateMessageDTO handle(GameStateDTO gameState) {
+        return webSocketController.handleGameStates(String.valueOf(game.getId()), gameState).join();
+    }
+
+    // the game as stored once it matches, written by the background flush
+    private Game awaitStored(Predicate<Game> written) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            Game stored = gameRepository.findById(game.getId()).orElseThrow();
+            if (written.test(stored)) {
+                return stored;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "The changes of the game were not written");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void submit_writtenInBackground_laterActionsBuildOnIt() throws InterruptedException {
+        GameStateDTO move = gameState("SUBMIT", alice.getId());
+        List<PlacementDTO> placements = new ArrayList<>();
+        String word = "HELLO";
+        for (int i = 0; i < word.length(); i++) {
+            placements.add(new PlacementDTO(7, 7 + i, String.valueOf(word.charAt(i)), false));
+        }
+        move.setBoard(null);
+        move.setPlacements(placements);
+        move.setUserTiles(new String[]{"A", "B"});
+
+        assertEquals(MessageStatus.SUCCESS, handle(move).getMessageStatus());
+
+        Game stored = awaitStored(candidate -> candidate.getBoard().charAt(7, 7) == 'H');
+        assertEquals("HELLO", new String(new char[]{stored.getBoard().charAt(7, 7), stored.getBoard().charAt(7, 8),
+                stored.getBoard().charAt(7, 9), stored.getBoard().charAt(7, 10), stored.getBoard().charAt(7, 11)}));
+        assertFalse(stored.isHostTurn());
+
+        // the version written is taken over by the game in memory, the next write does not conflict with it
+        assertEquals(MessageStatus.SUCCESS, handle(gameState("SKIP", bob.getId())).getMessageStatus());
+
+        stored = awaitStored(Game::isHostTurn);
+        assertEquals('H', stored.getBoard().charAt(7, 7));
+        assertEquals(0, gameRegistry.getDirtyCount());
+    }
+}
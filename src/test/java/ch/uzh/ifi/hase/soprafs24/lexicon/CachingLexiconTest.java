@@ -0,0 +1,95 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import ch.uzh.ifi.hase.soprafs24.constant.errors.LexiconUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingLexiconTest {
+
+    private Lexicon backend;
+    private AtomicLong time;
+    private CachingLexicon cachingLexicon;
+
+    @BeforeEach
+    void setUp() {
+        backend = mock(Lexicon.class);
+        when(backend.contains("THE")).thenReturn(true);
+        when(backend.contains("QI")).thenReturn(true);
+        when(backend.contains("XQZ")).thenReturn(false);
+
+        time = new AtomicLong();
+        cachingLexicon = new CachingLexicon(backend, 100, Duration.ofHours(24), Duration.ofMinutes(5),
+                time::get, Runnable::run);
+    }
+
+    @Test
+    void contains_repeatedWord_hitsBackendOnce() {
+        assertTrue(cachingLexicon.contains("THE"));
+        assertTrue(cachingLexicon.contains("the"));
+        assertTrue(cachingLexicon.contains("The"));
+
+        verify(backend, times(1)).contains("THE");
+        assertEquals(2, cachingLexicon.stats().hitCount());
+        assertEquals(1, cachingLexicon.stats().missCount());
+    }
+
+    @Test
+    void contains_invalidWord_isCachedNegatively() {
+        assertFalse(cachingLexicon.contains("XQZ"));
+        assertFalse(cachingLexicon.contains("XQZ"));
+
+        verify(backend, times(1)).contains("XQZ");
+    }
+
+    @Test
+    void contains_negativeEntryExpiresBeforePositiveEntry() {
+        cachingLexicon.contains("QI");
+        cachingLexicon.contains("XQZ");
+
+        time.addAndGet(Duration.ofMinutes(10).toNanos());
+        cachingLexicon.contains("QI");
+        cachingLexicon.contains("XQZ");
+
+        verify(backend, times(1)).contains("QI");
+        verify(backend, times(2)).contains("XQZ");
+    }
+
+    @Test
+    void contains_backendUnavailable_isNotCached() {
+        when(backend.contains("HELLO"))
+                .thenThrow(new LexiconUnavailableException("down"))
+                .thenReturn(true);
+
+        assertThrows(LexiconUnavailableException.class, () -> cachingLexicon.contains("HELLO"));
+        assertTrue(cachingLexicon.contains("HELLO"));
+        assertTrue(cachingLexicon.contains("HELLO"));
+
+        verify(backend, times(2)).contains("HELLO");
+    }
+
+    @Test
+    void contains_moreWordsThanMaximumSize_evicts() {
+        Lexicon everything = word -> true;
+        CachingLexicon small = new CachingLexicon(everything, 10, Duration.ofHours(1), Duration.ofHours(1),
+                time::get, Runnable::run);
+
+        for (int i = 0; i < 50; i++) {
+            small.contains("WORD" + (char) ('A' + i % 26) + (char) ('A' + i / 26));
+        }
+
+        assertTrue(small.estimatedSize() <= 10);
+        assertTrue(small.stats().evictionCount() >= 40);
+    }
+
+    @Test
+    void contains_notAWord_skipsBackend() {
+        assertFalse(cachingLexicon.contains("H3LLO"));
+        verifyNoInteractions(backend);
+    }
+}
@@ -0,0 +1,99 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DawgLexiconTest {
+
+    @Test
+    void contains_wordsOfList_returnsTrue() {
+        DawgLexicon lexicon = DawgLexicon.of("HAT", "HATS", "CAT", "CATS", "AT", "QI");
+
+        assertTrue(lexicon.contains("HAT"));
+        assertTrue(lexicon.contains("hats"));
+        assertTrue(lexicon.contains("Cat"));
+        assertTrue(lexicon.contains("AT"));
+        assertTrue(lexicon.contains("QI"));
+        assertEquals(6, lexicon.size());
+    }
+
+    @Test
+    void contains_prefixesAndUnknownWords_returnsFalse() {
+        DawgLexicon lexicon = DawgLexicon.of("HAT", "HATS", "CATS");
+
+        assertFalse(lexicon.contains("HA"));
+        assertFalse(lexicon.contains("CAT"));
+        assertFalse(lexicon.contains("HATSS"));
+        assertFalse(lexicon.contains("DOG"));
+        assertFalse(lexicon.contains(""));
+        assertFalse(lexicon.contains("H4T"));
+        assertFalse(lexicon.contains(null));
+    }
+
+    @Test
+    void contains_emptyLexicon_returnsFalse() {
+        DawgLexicon lexicon = DawgLexicon.of();
+
+        assertFalse(lexicon.contains("A"));
+        assertEquals(0, lexicon.size());
+    }
+
+    @Test
+    void fromWordList_skipsCommentsAndBlankLines() throws IOException {
+        String wordList = "# comment\nhello\n\n  world \nTATTOO\n";
+        InputStream in = new ByteArrayInputStream(wordList.getBytes(StandardCharsets.UTF_8));
+
+        DawgLexicon lexicon = DawgLexicon.fromWordList(in);
+
+        assertEquals(3, lexicon.size());
+        assertTrue(lexicon.contains("HELLO"));
+        assertTrue(lexicon.contains("WORLD"));
+        assertTrue(lexicon.contains("TATTOO"));
+        assertFalse(lexicon.contains("COMMENT"));
+    }
+
+    @Test
+    void build_sharedSuffixes_areMerged() {
+        byte[] separate = new DawgBuilder().add("WALKING").add("TALKED").build();
+        byte[] merged = new DawgBuilder().add("WALKING").add("WALKED").add("TALKING").add("TALKED").build();
+
+        // WALK- and TALK- share all their suffixes, so twice the words need fewer edges
+        assertTrue(merged.length < separate.length);
+
+        DawgLexicon lexicon = new DawgLexicon(ByteBuffer.wrap(merged));
+        assertTrue(lexicon.contains("TALKING"));
+        assertTrue(lexicon.contains("WALKED"));
+        assertFalse(lexicon.contains("WALK"));
+    }
+
+    @Test
+    void map_compiledWordList_returnsSameLexicon(@TempDir Path tempDir) throws IOException {
+        Path wordList = tempDir.resolve("words.txt");
+        Path dawg = tempDir.resolve("out/words.dawg");
+        Files.writeString(wordList, "hello\nworld\nbar\nta\nit\nto\ntattoo\n");
+
+        int compiled = LexiconCompiler.compile(wordList, dawg);
+        DawgLexicon lexicon = DawgLexicon.map(dawg);
+
+        assertEquals(7, compiled);
+        assertEquals(7, lexicon.size());
+        assertTrue(lexicon.contains("TATTOO"));
+        assertTrue(lexicon.contains("world"));
+        assertFalse(lexicon.contains("TATTOOS"));
+    }
+
+    @Test
+    void constructor_invalidData_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new DawgLexicon(ByteBuffer.allocate(64)));
+    }
+}
@@ -0,0 +1,68 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import ch.uzh.ifi.hase.soprafs24.constant.errors.LexiconUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RemoteLexiconTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private RemoteLexicon remoteLexicon;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        remoteLexicon = new RemoteLexicon(restTemplate);
+    }
+
+    @Test
+    void contains_validWord_returnsTrue() {
+        // Valid words return a list
+        when(restTemplate.getForObject(contains("hello"), eq(Object.class)))
+            .thenReturn(Collections.singletonList(new HashMap<>()));
+
+        assertTrue(remoteLexicon.contains("HELLO"));
+        verify(restTemplate).getForObject(eq(RemoteLexicon.API_URL + "hello"), eq(Object.class));
+    }
+
+    @Test
+    void contains_invalidWord_returnsFalse() {
+        // Invalid words return a map in the external API
+        when(restTemplate.getForObject(contains("xyzabc"), eq(Object.class)))
+            .thenReturn(new HashMap<>());
+
+        assertFalse(remoteLexicon.contains("xyzabc"));
+    }
+
+    @Test
+    void contains_notFound_returnsFalse() {
+        when(restTemplate.getForObject(anyString(), eq(Object.class)))
+            .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", new HttpHeaders(), new byte[0], null));
+
+        assertFalse(remoteLexicon.contains("xyzabc"));
+    }
+
+    @Test
+    void contains_apiError_throwsException() {
+        when(restTemplate.getForObject(anyString(), eq(Object.class)))
+            .thenThrow(new ResourceAccessException("timeout"));
+
+        assertThrows(LexiconUnavailableException.class, () -> remoteLexicon.contains("hello"));
+    }
+}
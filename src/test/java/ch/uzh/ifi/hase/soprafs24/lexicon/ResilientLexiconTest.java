@@ -0,0 +1,189 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import ch.uzh.ifi.hase.soprafs24.constant.errors.LexiconUnavailableException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the remote lexicon against a local stub of the dictionary API with injectable latency
+ */
+class ResilientLexiconTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private RemoteLexicon remote;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile long latencyMillis;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/entries/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(latencyMillis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String word = exchange.getRequestURI().getPath().substring("/entries/".length());
+            boolean known = word.equals("hello") || word.equals("world");
+            byte[] body = (known ? "[{\"word\":\"" + word + "\"}]" : "{\"title\":\"No Definitions Found\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(known ? 200 : 404, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        remote = new RemoteLexicon(new RestTemplateBuilder()
+                .setConnectTimeout(Duration.ofMillis(200))
+                .setReadTimeout(Duration.ofMillis(200))
+                .build(), "http://localhost:" + server.getAddress().getPort() + "/entries/");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void contains_healthyApi_answersFromApi() {
+        ResilientLexicon lexicon = new ResilientLexicon(remote,
+                new CircuitBreaker("test", 3, Duration.ofSeconds(30)), 4, null);
+
+        assertTrue(lexicon.contains("HELLO"));
+        assertFalse(lexicon.contains("XYZABC"));
+        assertEquals(2, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, lexicon.getCircuitState());
+    }
+
+    @Test
+    void contains_slowApi_opensCircuitAndUsesFallback() {
+        latencyMillis = 1000;
+        ResilientLexicon lexicon = new ResilientLexicon(remote,
+                new CircuitBreaker("test", 3, Duration.ofSeconds(30)), 4, DawgLexicon.of("HELLO"));
+
+        // the read timeout turns every call into a failure answered by the fallback
+        for (int i = 0; i < 3; i++) {
+            assertTrue(lexicon.contains("HELLO"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, lexicon.getCircuitState());
+
+        // while open the API is not called at all
+        int requestsWhenOpened = requests.get();
+        long start = System.nanoTime();
+        assertTrue(lexicon.contains("HELLO"));
+        // a word the fallback does not know is unknown, not invalid
+        assertThrows(LexiconUnavailableException.class, () -> lexicon.contains("WORLD"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+        assertEquals(requestsWhenOpened, requests.get());
+    }
+
+    @Test
+    void contains_afterOpenDuration_probeClosesCircuit() throws InterruptedException {
+        latencyMillis = 1000;
+        ResilientLexicon lexicon = new ResilientLexicon(remote,
+                new CircuitBreaker("test", 1, Duration.ofMillis(300)), 4, DawgLexicon.of());
+        assertThrows(LexiconUnavailableException.class, () -> lexicon.contains("HELLO"));
+        assertEquals(CircuitBreaker.State.OPEN, lexicon.getCircuitState());
+
+        latencyMillis = 0;
+        Thread.sleep(400);
+
+        assertTrue(lexicon.contains("HELLO"));
+        assertEquals(CircuitBreaker.State.CLOSED, lexicon.getCircuitState());
+    }
+
+    @Test
+    void contains_cachedWhileOpen_wordNotInFallbackValidOnceClosed() throws InterruptedException {
+        latencyMillis = 1000;
+        ResilientLexicon resilient = new ResilientLexicon(remote,
+                new CircuitBreaker("test", 1, Duration.ofMillis(300)), 4, DawgLexicon.of("HELLO"));
+        CachingLexicon lexicon = new CachingLexicon(resilient, 100, Duration.ofHours(24), Duration.ofHours(1));
+
+        assertThrows(LexiconUnavailableException.class, () -> lexicon.contains("WORLD"));
+        assertEquals(CircuitBreaker.State.OPEN, resilient.getCircuitState());
+        assertThrows(LexiconUnavailableException.class, () -> lexicon.contains("WORLD"));
+
+        latencyMillis = 0;
+        Thread.sleep(400);
+
+        // the outage left no negative entry behind
+        assertTrue(lexicon.contains("WORLD"));
+        assertEquals(CircuitBreaker.State.CLOSED, resilient.getCircuitState());
+    }
+
+    @Test
+    void contains_openWithoutFallback_throwsException() {
+        latencyMillis = 1000;
+        ResilientLexicon lexicon = new ResilientLexicon(remote,
+                new CircuitBreaker("test", 1, Duration.ofSeconds(30)), 4, null);
+
+        assertThrows(LexiconUnavailableException.class, () -> lexicon.contains("HELLO"));
+        assertThrows(LexiconUnavailableException.class, () -> lexicon.contains("HELLO"));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void contains_bulkheadFull_usesFallbackWithoutCallingApi() throws Exception {
+        latencyMillis = 150;
+        ResilientLexicon lexicon = new ResilientLexicon(remote,
+                new CircuitBreaker("test", 3, Duration.ofSeconds(30)), 1, DawgLexicon.of("HELLO"));
+
+        CompletableFuture<Boolean> slowCall = CompletableFuture.supplyAsync(() -> lexicon.contains("HELLO"));
+        while (lexicon.getAvailableCalls() > 0 && !slowCall.isDone()) {
+            Thread.onSpinWait();
+        }
+
+        assertTrue(lexicon.contains("HELLO"));
+        assertTrue(slowCall.get(2, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, lexicon.getCircuitState());
+    }
+
+    @Test
+    void circuitBreaker_halfOpen_allowsSingleProbe() {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 2, Duration.ofSeconds(10), clock::get);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        // a failed probe opens the circuit for another period
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+}
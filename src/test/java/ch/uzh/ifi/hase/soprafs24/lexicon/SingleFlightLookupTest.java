@@ -0,0 +1,175 @@
+package ch.uzh.ifi.hase.soprafs24.lexicon;
+
+import ch.uzh.ifi.hase.soprafs24.constant.errors.LexiconUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightLookupTest {
+
+    private ExecutorService executor;
+    private CountDownLatch release;
+    private AtomicInteger backendCalls;
+    private Lexicon slowLexicon;
+    private SingleFlightLookup wordLookup;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        release = new CountDownLatch(1);
+        backendCalls = new AtomicInteger();
+
+        // blocks until released so that lookups overlap
+        slowLexicon = word -> {
+            backendCalls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (word.equals("DOWN")) throw new LexiconUnavailableException("down");
+            return word.equals("IT") || word.equals("ON");
+        };
+        wordLookup = new SingleFlightLookup(slowLexicon, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void lookup_concurrentSameWord_sharesOneBackendCall() {
+        CompletableFuture<Boolean> first = wordLookup.lookup("IT");
+        CompletableFuture<Boolean> second = wordLookup.lookup("it");
+        CompletableFuture<Boolean> third = wordLookup.lookup("It");
+        release.countDown();
+
+        assertTrue(first.join());
+        assertTrue(second.join());
+        assertTrue(third.join());
+        assertSame(first, second);
+        assertEquals(1, backendCalls.get());
+        assertEquals(3, wordLookup.getLookupCount());
+        assertEquals(2, wordLookup.getCoalescedCount());
+    }
+
+    @Test
+    void lookup_differentWords_areNotCoalesced() {
+        CompletableFuture<Boolean> it = wordLookup.lookup("IT");
+        CompletableFuture<Boolean> re = wordLookup.lookup("RE");
+        release.countDown();
+
+        assertTrue(it.join());
+        assertFalse(re.join());
+        assertEquals(2, backendCalls.get());
+        assertEquals(0, wordLookup.getCoalescedCount());
+    }
+
+    @Test
+    void lookup_afterCompletion_asksBackendAgain() {
+        release.countDown();
+        assertTrue(wordLookup.lookup("ON").join());
+        assertTrue(wordLookup.lookup("ON").join());
+
+        assertEquals(2, backendCalls.get());
+    }
+
+    @Test
+    void lookup_backendFails_failsAllWaitersAndClearsEntry() {
+        CompletableFuture<Boolean> first = wordLookup.lookup("DOWN");
+        CompletableFuture<Boolean> second = wordLookup.lookup("DOWN");
+        release.countDown();
+
+        CompletionException exception = assertThrows(CompletionException.class, first::join);
+        assertTrue(exception.getCause() instanceof LexiconUnavailableException);
+        assertThrows(CompletionException.class, second::join);
+
+        assertThrows(CompletionException.class, () -> wordLookup.lookup("DOWN").join());
+        assertEquals(2, backendCalls.get());
+    }
+
+    @Test
+    void lookup_notAWord_completesWithoutBackend() {
+        assertFalse(wordLookup.lookup("I7").join());
+        assertEquals(0, backendCalls.get());
+    }
+
+    @Test
+    void lookup_backendThrowsError_failsFutureAndClearsEntry() {
+        Lexicon broken = word -> {
+            throw new AssertionError("broken");
+        };
+        CompletableFuture<Boolean> lookup = new SingleFlightLookup(broken, executor).lookup("IT");
+
+        CompletionException exception = assertThrows(CompletionException.class, lookup::join);
+        assertTrue(exception.getCause() instanceof AssertionError);
+    }
+
+    @Test
+    void lookup_errorDoesNotLeaveEntryInFlight() {
+        AtomicInteger calls = new AtomicInteger();
+        Lexicon failsOnce = word -> {
+            if (calls.incrementAndGet() == 1) throw new AssertionError("broken");
+            return true;
+        };
+        SingleFlightLookup lookup = new SingleFlightLookup(failsOnce, Runnable::run);
+
+        assertThrows(AssertionError.class, () -> lookup.lookup("IT"));
+
+        assertTrue(lookup.lookup("IT").join());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void lookup_localOnly_completesOnCallingThread() {
+        SingleFlightLookup lookup = SingleFlightLookup.local(DawgLexicon.of("HELLO"));
+
+        CompletableFuture<Boolean> hello = lookup.lookup("hello");
+        CompletableFuture<Boolean> unknown = lookup.lookup("XYZ");
+
+        assertTrue(hello.isDone());
+        assertTrue(hello.join());
+        assertTrue(unknown.isDone());
+        assertFalse(unknown.join());
+    }
+
+    @Test
+    void lookup_localWithRemote_onlyAsksRemoteForUnknownWords() {
+        SingleFlightLookup lookup = new SingleFlightLookup(DawgLexicon.of("HELLO"), slowLexicon, executor);
+
+        CompletableFuture<Boolean> hello = lookup.lookup("HELLO");
+        CompletableFuture<Boolean> it = lookup.lookup("IT");
+        release.countDown();
+
+        assertTrue(hello.isDone());
+        assertTrue(hello.join());
+        assertTrue(it.join());
+        assertEquals(1, backendCalls.get());
+    }
+
+    @Test
+    void bindTo_registersCounters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        wordLookup.bindTo(registry);
+
+        wordLookup.lookup("IT");
+        wordLookup.lookup("IT");
+        release.countDown();
+
+        assertEquals(2.0, registry.get("dictionary.lookups").functionCounter().count());
+        assertEquals(1.0, registry.get("dictionary.lookups.coalesced").functionCounter().count());
+    }
+}
@@ -0,0 +1,104 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.GameGetDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.mapper.DTOMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// pins the SQL statements each view of a game takes, a new lazy load shows up as a failing count
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class GameRepositoryIntegrationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    private Statistics statistics;
+    private Long gameId;
+    private Long hostId;
+
+    @BeforeEach
+    public void setup() {
+        User host = user("host");
+        User guest = user("guest");
+        User friend = user("friend");
+        host.addFriend(friend);
+        guest.addFriend(friend);
+        guest.addFriend(host);
+
+        Game game = new Game();
+        game.setHost(host);
+        game.addUser(host);
+        game.addUser(guest);
+        game.addScore(host.getId(), 12);
+        entityManager.persist(game);
+        entityManager.flush();
+        entityManager.clear();
+        gameId = game.getId();
+        hostId = host.getId();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setToken(username + "-token");
+        user.setStatus(UserStatus.ONLINE);
+        return entityManager.persist(user);
+    }
+
+    @Test
+    public void findById_lobbyView_gameAndFriendsInTwoStatements() {
+        Game game = gameRepository.findById(gameId).orElseThrow();
+        GameGetDTO gameGetDTO = DTOMapper.INSTANCE.convertEntityToGameGetDTO(game);
+
+        assertEquals(2, gameGetDTO.getUsers().size());
+        assertEquals("host", gameGetDTO.getHost().getUsername());
+        assertEquals(2, gameGetDTO.getUsers().get(1).getFriends().length);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findByIdWithUsers_liveView_oneStatement() {
+        Game game = gameRepository.findByIdWithUsers(gameId).orElseThrow();
+
+        assertEquals("host", game.getHost().getUsername());
+        assertEquals("guest", game.getUsers().get(1).getUsername());
+        assertEquals(12, game.getPlayerScore(hostId));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findForEndById_endView_oneStatement() {
+        Game game = gameRepository.findForEndById(gameId).orElseThrow();
+
+        for (User user : game.getUsers()) {
+            user.setInGame(false);
+        }
+
+        assertEquals(2, game.getUsers().size());
+        assertEquals(hostId, game.getHost().getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findById_unknownGame_empty() {
+        assertTrue(gameRepository.findById(gameId + 1).isEmpty());
+    }
+}
@@ -0,0 +1,56 @@
+package ch.uzh.ifi.hase.soprafs24.repository;
+
+import ch.uzh.ifi.hase.soprafs24.repository.SchemaIndexCheck.RequiredIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class SchemaIndexCheckIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void findMissing_schemaOfEntities_everyLookupIndexed() throws SQLException {
+        SchemaIndexCheck check = new SchemaIndexCheck(dataSource, "fail");
+
+        assertEquals(List.of(), check.findMissing());
+        check.check();
+    }
+
+    @Test
+    public void findMissing_columnsNotLeading_reported() throws SQLException {
+        // status is the last column of the friend request index, a lookup by status alone cannot use it
+        RequiredIndex byStatus = new RequiredIndex("friend_request", "status");
+        SchemaIndexCheck check = new SchemaIndexCheck(dataSource, "fail",
+                List.of(new RequiredIndex("user", "username"), byStatus));
+
+        assertEquals(List.of(byStatus), check.findMissing());
+        assertThrows(IllegalStateException.class, check::check);
+    }
+
+    @Test
+    public void check_off_notChecked() throws SQLException {
+        SchemaIndexCheck check = new SchemaIndexCheck(dataSource, "off",
+                List.of(new RequiredIndex("friend_request", "message")));
+
+        check.check();
+    }
+
+    @Test
+    public void isServedBy_leadingColumnsInAnyOrder() {
+        RequiredIndex index = new RequiredIndex("game_invitation", "game_id", "sender_id");
+
+        assertTrue(index.isServedBy(List.of("sender_id", "game_id")));
+        assertTrue(index.isServedBy(List.of("game_id", "sender_id", "status")));
+        assertFalse(index.isServedBy(List.of("game_id")));
+        assertFalse(index.isServedBy(List.of("status", "game_id", "sender_id")));
+    }
+}
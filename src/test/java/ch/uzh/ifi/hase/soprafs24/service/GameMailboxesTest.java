@@ -0,0 +1,152 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameMailboxesTest {
+
+    private GameMailboxes gameMailboxes;
+
+    @BeforeEach
+    void setup() {
+        gameMailboxes = new GameMailboxes(4);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gameMailboxes.close();
+    }
+
+    @Test
+    void call_sameGame_actionsNeverOverlap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        int[] counter = new int[1];
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            calls.add(callers.submit(() -> gameMailboxes.call(1L, () -> {
+                if (running.incrementAndGet() > 1) overlaps.incrementAndGet();
+                counter[0]++;
+                running.decrementAndGet();
+                return null;
+            })));
+        }
+        for (Future<?> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        assertEquals(0, overlaps.get());
+        assertEquals(200, counter[0]);
+        // the last call returns before its mailbox thread finds the mailbox empty and drops it
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gameMailboxes.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, gameMailboxes.getActiveCount());
+    }
+
+    @Test
+    void submit_sameGame_runsInOrder() throws InterruptedException {
+        List<Integer> order = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            int action = i;
+            gameMailboxes.submit(1L, () -> {
+                order.add(action);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.range(0, 100).boxed().toList(), order);
+    }
+
+    @Test
+    void submit_differentGames_runInParallel() throws InterruptedException {
+        // each action only finishes once the action of the other game has started
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+        for (long gameId = 1; gameId <= 2; gameId++) {
+            gameMailboxes.submit(gameId, () -> {
+                bothStarted.countDown();
+                try {
+                    if (bothStarted.await(5, TimeUnit.SECONDS)) done.countDown();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void call_fromActionOfSameGame_runsRightAway() {
+        assertEquals("inner", gameMailboxes.call(1L, () -> gameMailboxes.call(1L, () -> "inner")));
+    }
+
+    @Test
+    void hold_actionsOfGameWaitForRelease() throws Exception {
+        GameMailboxes.Hold hold = gameMailboxes.hold(1L);
+        CountDownLatch ran = new CountDownLatch(1);
+        gameMailboxes.submit(1L, ran::countDown);
+
+        assertFalse(ran.await(100, TimeUnit.MILLISECONDS));
+        // the thread holding the mailbox calls in right away, other games are not held up
+        assertEquals("inner", gameMailboxes.call(1L, () -> "inner"));
+        assertEquals("other", gameMailboxes.call(2L, () -> "other"));
+
+        hold.close();
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals("after", CompletableFuture.supplyAsync(() -> gameMailboxes.call(1L, () -> "after")).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void callAsync_returnsWithoutWaitingForTurn() throws Exception {
+        GameMailboxes.Hold hold = gameMailboxes.hold(1L);
+        CompletableFuture<String> result = CompletableFuture.supplyAsync(() -> gameMailboxes.callAsync(1L, () -> "done"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.isDone());
+
+        hold.close();
+
+        assertEquals("done", result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void call_actionThrows_exceptionThrownToCaller() {
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> gameMailboxes.call(1L, () -> { throw new IllegalStateException("not your turn"); }));
+
+        assertEquals("not your turn", thrown.getMessage());
+        assertEquals("next", gameMailboxes.call(1L, () -> "next"));
+    }
+
+    @Test
+    void submit_actionThrowsError_laterActionsStillRun() throws Exception {
+        gameMailboxes.submit(1L, () -> { throw new AssertionError("broken action"); });
+
+        CompletableFuture<String> next = CompletableFuture.supplyAsync(() -> gameMailboxes.call(1L, () -> "next"));
+
+        assertEquals("next", next.get(5, TimeUnit.SECONDS));
+    }
+}
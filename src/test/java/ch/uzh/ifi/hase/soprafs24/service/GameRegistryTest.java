@@ -0,0 +1,305 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GameRegistryTest {
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private CrossCheckService crossCheckService;
+
+    private final AtomicInteger writeTransactions = new AtomicInteger();
+    private final TransactionOperations countingTransaction = new TransactionOperations() {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            writeTransactions.incrementAndGet();
+            return action.doInTransaction(null);
+        }
+    };
+
+    private final List<Object> events = new ArrayList<>();
+
+    private GameRegistry gameRegistry;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        gameRegistry = new GameRegistry(gameRepository, null, crossCheckService, events::add,
+                TransactionOperations.withoutTransaction(), countingTransaction, GameRegistry.Durability.WRITE_BEHIND, 100, Duration.ofHours(1));
+    }
+
+    private Game game(long id) {
+        Game game = new Game();
+        game.setId(id);
+        when(gameRepository.findByIdWithUsers(id)).thenReturn(Optional.of(game));
+        return game;
+    }
+
+    @Test
+    void find_readsGameOnce() {
+        Game game = game(1L);
+
+        assertSame(game, gameRegistry.find(1L).orElseThrow());
+        assertSame(game, gameRegistry.find(1L).orElseThrow());
+
+        verify(gameRepository, times(1)).findByIdWithUsers(1L);
+        assertTrue(gameRegistry.find(2L).isEmpty());
+        assertTrue(gameRegistry.find(null).isEmpty());
+    }
+
+    @Test
+    void markDirty_writeBehind_writtenOnFlush() {
+        Game first = game(1L);
+        Game second = game(2L);
+        Game third = game(3L);
+        gameRegistry.markDirty(gameRegistry.find(1L).orElseThrow());
+        gameRegistry.markDirty(gameRegistry.find(2L).orElseThrow());
+        gameRegistry.markDirty(gameRegistry.find(3L).orElseThrow());
+        gameRegistry.markDirty(first);
+
+        assertEquals(3, gameRegistry.getDirtyCount());
+        verify(gameRepository, never()).save(any());
+
+        gameRegistry.flushAll();
+
+        verify(gameRepository).save(first);
+        verify(gameRepository).save(second);
+        verify(gameRepository).save(third);
+        assertEquals(3, writeTransactions.get());
+        assertEquals(0, gameRegistry.getDirtyCount());
+    }
+
+    @Test
+    void find_dirtyGameNotInMemory_notReadAgain() {
+        // without a cache every game not written yet is only kept with the dirty ones
+        GameRegistry uncached = new GameRegistry(gameRepository, null, crossCheckService, events::add,
+                TransactionOperations.withoutTransaction(), countingTransaction, GameRegistry.Durability.WRITE_BEHIND, 0, Duration.ofHours(1));
+        Game game = game(1L);
+        uncached.find(1L).orElseThrow().addScore(2L, 10);
+        uncached.markDirty(game);
+
+        assertSame(game, uncached.find(1L).orElseThrow());
+        assertEquals(10, uncached.find(1L).orElseThrow().getPlayerScore(2L));
+        verify(gameRepository, times(1)).findByIdWithUsers(1L);
+    }
+
+    @Test
+    void end_writesAndDropsGame() {
+        Game game = game(1L);
+        gameRegistry.markDirty(gameRegistry.find(1L).orElseThrow());
+
+        gameRegistry.end(1L);
+
+        verify(gameRepository).save(game);
+        assertEquals(0, gameRegistry.getDirtyCount());
+        gameRegistry.find(1L);
+        verify(gameRepository, times(2)).findByIdWithUsers(1L);
+    }
+
+    @Test
+    void flush_failure_keepsGameDirty() {
+        Game game = game(1L);
+        gameRegistry.markDirty(game);
+        when(gameRepository.save(game)).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> gameRegistry.flush(1L));
+
+        assertEquals(1, gameRegistry.getDirtyCount());
+    }
+
+    @Test
+    void flushAll_failingGame_othersWrittenAndFailedOneRetried() {
+        Game failing = game(1L);
+        Game good = game(2L);
+        gameRegistry.markDirty(gameRegistry.find(1L).orElseThrow());
+        gameRegistry.markDirty(gameRegistry.find(2L).orElseThrow());
+        when(gameRepository.save(failing)).thenThrow(new IllegalStateException("database down"));
+
+        gameRegistry.flushAll();
+
+        verify(gameRepository).save(good);
+        assertEquals(1, gameRegistry.getDirtyCount());
+        // the changes are kept in memory, not read over from the database
+        assertSame(failing, gameRegistry.find(1L).orElseThrow());
+        verify(gameRepository, times(1)).findByIdWithUsers(1L);
+
+        doReturn(failing).when(gameRepository).save(failing);
+        gameRegistry.flushAll();
+
+        verify(gameRepository, times(2)).save(failing);
+        assertEquals(0, gameRegistry.getDirtyCount());
+    }
+
+    @Test
+    void flush_writesInMailboxOfGame() throws InterruptedException {
+        GameMailboxes gameMailboxes = new GameMailboxes(2);
+        GameRegistry inMailboxes = new GameRegistry(gameRepository, gameMailboxes, crossCheckService, events::add,
+                TransactionOperations.withoutTransaction(), countingTransaction, GameRegistry.Durability.WRITE_BEHIND, 100, Duration.ofHours(1));
+        Game game = game(1L);
+        AtomicReference<String> writer = new AtomicReference<>();
+        when(gameRepository.save(game)).thenAnswer(invocation -> {
+            writer.set(Thread.currentThread().getName());
+            return game;
+        });
+        inMailboxes.markDirty(inMailboxes.find(1L).orElseThrow());
+
+        inMailboxes.flush(1L);
+
+        assertTrue(writer.get().startsWith("game-actions-"), writer.get());
+        assertEquals(0, inMailboxes.getDirtyCount());
+        gameMailboxes.close();
+    }
+
+    @Test
+    void markDirty_writeThrough_writtenRightAway() {
+        GameRegistry writeThrough = new GameRegistry(gameRepository, null, crossCheckService, events::add,
+                TransactionOperations.withoutTransaction(), countingTransaction, GameRegistry.Durability.WRITE_THROUGH, 100, Duration.ofHours(1));
+        Game game = game(1L);
+
+        writeThrough.markDirty(writeThrough.find(1L).orElseThrow());
+
+        verify(gameRepository).save(game);
+        assertEquals(0, writeThrough.getDirtyCount());
+    }
+
+    @Test
+    void flush_takesVersionOfSavedGame() {
+        Game game = game(1L);
+        Game stored = new Game();
+        stored.setVersion(4L);
+        when(gameRepository.save(game)).thenReturn(stored);
+        gameRegistry.markDirty(gameRegistry.find(1L).orElseThrow());
+
+        gameRegistry.flush(1L);
+
+        assertEquals(4L, game.getVersion());
+    }
+
+    @Test
+    void flush_conflict_changesDroppedAndGameReadAgain() {
+        Game game = game(1L);
+        gameRegistry.markDirty(gameRegistry.find(1L).orElseThrow());
+        clearInvocations(crossCheckService);
+        when(gameRepository.save(game)).thenThrow(new OptimisticLockingFailureException("changed elsewhere"));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> gameRegistry.flush(1L));
+
+        assertEquals(0, gameRegistry.getDirtyCount());
+        assertEquals(1, events.size());
+        assertEquals(1L, ((GameWriteConflictEvent) events.get(0)).getGameId());
+        verify(crossCheckService).evict(1L);
+        gameRegistry.find(1L);
+        verify(gameRepository, times(2)).findByIdWithUsers(1L);
+    }
+
+    @Test
+    void evict_writesUnwrittenChanges() {
+        Game game = game(1L);
+        gameRegistry.markDirty(gameRegistry.find(1L).orElseThrow());
+
+        gameRegistry.evict(1L);
+
+        verify(gameRepository).save(game);
+        assertEquals(0, gameRegistry.getDirtyCount());
+        gameRegistry.find(1L);
+        verify(gameRepository, times(2)).findByIdWithUsers(1L);
+    }
+
+    @Test
+    void update_writesUnwrittenChangesFirstAndGameReadAgain() {
+        Game game = game(1L);
+        gameRegistry.markDirty(gameRegistry.find(1L).orElseThrow());
+
+        String result = gameRegistry.update(1L, () -> {
+            verify(gameRepository).save(game);
+            return "changed";
+        });
+
+        assertEquals("changed", result);
+        assertEquals(0, gameRegistry.getDirtyCount());
+        gameRegistry.find(1L);
+        verify(gameRepository, times(2)).findByIdWithUsers(1L);
+    }
+
+    @Test
+    void update_mailboxHeldUntilTransactionEnds() throws Exception {
+        GameMailboxes gameMailboxes = new GameMailboxes(2);
+        GameRegistry inMailboxes = new GameRegistry(gameRepository, gameMailboxes, crossCheckService, events::add,
+                TransactionOperations.withoutTransaction(), countingTransaction, GameRegistry.Durability.WRITE_BEHIND, 100, Duration.ofHours(1));
+        CountDownLatch actionRan = new CountDownLatch(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            inMailboxes.update(1L, () -> null);
+            gameMailboxes.submit(1L, actionRan::countDown);
+
+            assertFalse(actionRan.await(100, TimeUnit.MILLISECONDS));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(actionRan.await(5, TimeUnit.SECONDS));
+        gameMailboxes.close();
+    }
+
+    @Test
+    void update_conflictWithUnwrittenChanges_changeNotMade() {
+        Game game = game(1L);
+        gameRegistry.markDirty(gameRegistry.find(1L).orElseThrow());
+        when(gameRepository.save(game)).thenThrow(new OptimisticLockingFailureException("changed elsewhere"));
+        AtomicInteger changes = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> gameRegistry.update(1L, changes::incrementAndGet));
+
+        assertEquals(0, changes.get());
+    }
+
+    @Test
+    void evict_dropsCrossChecks() {
+        game(1L);
+        gameRegistry.find(1L);
+        clearInvocations(crossCheckService);
+
+        gameRegistry.evict(1L);
+
+        verify(crossCheckService).evict(1L);
+    }
+
+    @Test
+    void find_readAgain_dropsCrossChecks() {
+        game(1L);
+        gameRegistry.find(1L);
+        gameRegistry.find(1L);
+
+        // only the first read comes from the database
+        verify(crossCheckService, times(1)).evict(1L);
+    }
+}
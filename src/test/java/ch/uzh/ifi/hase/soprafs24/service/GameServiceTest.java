@@ -11,9 +11,11 @@ import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -21,6 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,6 +36,9 @@ public class GameServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private GameRegistry gameRegistry;
+
     @InjectMocks
     private GameService gameService;
 
@@ -42,6 +48,8 @@ public class GameServiceTest {
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
+        // changes outside of live play are made right away
+        when(gameRegistry.update(any(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
 
         // Create test host
         testHost = new User();
@@ -155,6 +163,51 @@ public class GameServiceTest {
     verify(gameRepository, times(1)).delete(game);
 }
 
+    @Test
+    void endGame_terminatesGameAndUpdatesUsers() {
+        User guest = new User();
+        guest.setId(3L);
+        guest.setHighScore(20);
+        guest.setInGame(true);
+        testHost.setHighScore(5);
+        testHost.setInGame(true);
+        testGame.setUsers(List.of(testHost, guest));
+        testGame.addScore(testHost.getId(), 8);
+        testGame.addScore(guest.getId(), 4);
+        when(gameRepository.findForEndById(testGame.getId())).thenReturn(Optional.of(testGame));
+
+        gameService.endGame(testGame.getId(), null);
+
+        InOrder inOrder = inOrder(gameRegistry, gameRepository);
+        inOrder.verify(gameRegistry).end(testGame.getId());
+        inOrder.verify(gameRepository).saveAndFlush(testGame);
+        assertEquals(GameStatus.TERMINATED, testGame.getGameStatus());
+        assertNull(testGame.getSurrenderId());
+        assertEquals(8, testHost.getHighScore());
+        assertEquals(20, guest.getHighScore());
+        assertFalse(testHost.isInGame());
+        assertFalse(guest.isInGame());
+        verify(userRepository, times(2)).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    void endGame_surrender_recordsSurrender() {
+        when(gameRepository.findForEndById(testGame.getId())).thenReturn(Optional.of(testGame));
+
+        gameService.endGame(testGame.getId(), testHost.getId());
+
+        assertEquals(GameStatus.TERMINATED, testGame.getGameStatus());
+        assertEquals(testHost.getId(), testGame.getSurrenderId());
+    }
+
+    @Test
+    void endGame_gameNotFound_throwsException() {
+        when(gameRepository.findForEndById(testGame.getId())).thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class, () -> gameService.endGame(testGame.getId(), null));
+        verify(gameRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     void testAssignLetters() {
         // Arrange
@@ -195,6 +248,7 @@ public class GameServiceTest {
         List<Character> drawn = List.of('X', 'Y', 'Z', 'Q');
 
         when(game.drawLetters(4)).thenReturn(drawn);
+        when(game.refillRack(userId, tilesLeftInHand)).thenCallRealMethod();
 
         String[] result = gameService.assignNewLetters(game, userId, tilesLeftInHand);
 
@@ -203,7 +257,7 @@ public class GameServiceTest {
     
         verify(game).setTilesForPlayer(eq(userId), anyList());
     
-        verify(gameRepository).saveAndFlush(game);
+        verify(gameRegistry).markDirty(game);
 }
 
     @Test
@@ -221,7 +275,7 @@ public class GameServiceTest {
 
         verify(game).setTilesForPlayer(eq(userId), anyList());
     
-        verify(gameRepository).saveAndFlush(game);
+        verify(gameRegistry).markDirty(game);
 }
     @Test
     void countLettersInBag_returnsCorrectCount() {
@@ -294,6 +348,7 @@ public class GameServiceTest {
         Game result = gameService.joinGame(game, user);
 
         assertTrue(game.getUsers().contains(user));
+        verify(gameRegistry).update(eq(game.getId()), any());
         verify(gameRepository).saveAndFlush(game);
     }
 
@@ -411,18 +466,17 @@ public class GameServiceTest {
         game.setHost(host);
         game.setHostTurn(true);
 
-        when(gameRepository.findById(game.getId())).thenReturn(Optional.of(game));
-        when(gameRepository.saveAndFlush(game)).thenReturn(game);
+        when(gameRegistry.find(game.getId())).thenReturn(Optional.of(game));
 
         boolean isHostTurn = gameService.skipTurn(game.getId(), host.getId());
 
         assertFalse(isHostTurn); // Should switch turn
-        verify(gameRepository).saveAndFlush(game);
+        verify(gameRegistry).markDirty(game);
     }
 
     @Test
     void skipTurn_gameNotFound_throwsException() {
-        when(gameRepository.findById(99L)).thenReturn(Optional.empty());
+        when(gameRegistry.find(99L)).thenReturn(Optional.empty());
 
         assertThrows(GameNotFoundException.class, () -> gameService.skipTurn(99L, 1L));
     }
@@ -437,13 +491,12 @@ public class GameServiceTest {
         game.setUsers(new ArrayList<>(List.of(host, user2)));
         game.setHostTurn(true);
 
-        when(gameRepository.findByIdWithUsers(game.getId())).thenReturn(Optional.of(game));
-        when(gameRepository.saveAndFlush(game)).thenReturn(game);
+        when(gameRegistry.find(game.getId())).thenReturn(Optional.of(game));
 
         User nextUser = gameService.changeUserTurn(game);
 
         assertFalse(game.isHostTurn());
         assertEquals(user2, nextUser);
-        verify(gameRepository).saveAndFlush(game);
+        verify(gameRegistry).markDirty(game);
     }
 }
\ No newline at end of file
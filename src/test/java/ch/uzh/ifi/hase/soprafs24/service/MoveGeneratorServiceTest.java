@@ -0,0 +1,171 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.game.GeneratedMove;
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+import ch.uzh.ifi.hase.soprafs24.game.SubmitMoveCommand;
+import ch.uzh.ifi.hase.soprafs24.lexicon.DawgLexicon;
+import ch.uzh.ifi.hase.soprafs24.lexicon.SingleFlightLookup;
+import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class MoveGeneratorServiceTest {
+
+    private static final DawgLexicon LEXICON = DawgLexicon.of(
+            "AT", "TA", "AS", "ES", "EH", "HE", "HO", "OH", "LO", "LA", "SO", "OE", "EL",
+            "ACT", "CAT", "ALE", "ALES", "EAT", "EATS", "LATE", "LOT", "LOTS", "SEA", "SEAT",
+            "SLOE", "SLOT", "SOLE", "TALE", "TALES", "TEA", "TEAS", "TOE", "TOES", "TOLE",
+            "HELLO", "HELLOS");
+
+    @Mock
+    private GameRepository gameRepository;
+
+    private CrossCheckService crossCheckService;
+    private MoveGeneratorService moveGeneratorService;
+    private Game testGame;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        crossCheckService = new CrossCheckService(LEXICON, "local", false, 100, Duration.ofHours(1));
+        moveGeneratorService = new MoveGeneratorService(GameRegistry.direct(gameRepository), LEXICON, crossCheckService);
+
+        testGame = new Game();
+        testGame.setId(1L);
+        testGame.setBoard(Board.fromRows(createEmptyBoard()));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+        when(gameRepository.save(any(Game.class))).thenReturn(testGame);
+    }
+
+    private String[][] createEmptyBoard() {
+        String[][] board = new String[15][15];
+        for (String[] row : board) {
+            Arrays.fill(row, "");
+        }
+        return board;
+    }
+
+    private String[][] createBoardWithHello() {
+        String[][] board = createEmptyBoard();
+        String word = "HELLO";
+        for (int i = 0; i < word.length(); i++) {
+            board[7][5 + i] = String.valueOf(word.charAt(i));
+        }
+        return board;
+    }
+
+    @Test
+    void generateMoves_emptyBoard_allMovesCoverCenter() {
+        List<GeneratedMove> moves = moveGeneratorService.generateMoves(Board.fromRows(createEmptyBoard()), new String[]{"C", "A", "T"});
+
+        assertFalse(moves.isEmpty());
+        for (GeneratedMove move : moves) {
+            assertTrue(move.getPlacements().stream().anyMatch(p -> p.getRow() == 7 && p.getCol() == 7), move.toString());
+        }
+        assertTrue(moves.stream().anyMatch(move -> move.getMainWord().equals("CAT") && move.isHorizontal()));
+        assertTrue(moves.stream().anyMatch(move -> move.getMainWord().equals("ACT") && !move.isHorizontal()));
+    }
+
+    @Test
+    void generateMoves_sortedByScore_onlyDictionaryWords() {
+        List<GeneratedMove> moves = moveGeneratorService.generateMoves(Board.fromRows(createBoardWithHello()),
+                new String[]{"S", "O", "L", "E", "A", "T"});
+
+        assertFalse(moves.isEmpty());
+        for (int i = 1; i < moves.size(); i++) {
+            assertTrue(moves.get(i - 1).getScore() >= moves.get(i).getScore());
+        }
+        for (GeneratedMove move : moves) {
+            for (String word : move.getWords()) {
+                assertTrue(LEXICON.contains(word), word);
+            }
+        }
+        assertTrue(moves.stream().anyMatch(move -> move.getMainWord().equals("HELLOS")));
+    }
+
+    @Test
+    void generateMoves_sameScoreAsMoveSubmitService() {
+        Board board = Board.fromRows(createBoardWithHello());
+        MoveValidatorService moveValidatorService = new MoveValidatorService(GameRegistry.direct(gameRepository),
+                new SingleFlightLookup(LEXICON, Runnable::run), crossCheckService, Duration.ofSeconds(1));
+        MoveSubmitService moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), moveValidatorService, crossCheckService);
+        User host = new User();
+        host.setId(5L);
+        User guest = new User();
+        guest.setId(6L);
+        testGame.setHost(host);
+        testGame.getUsers().add(host);
+        testGame.getUsers().add(guest);
+
+        List<GeneratedMove> moves = moveGeneratorService.generateMoves(board, new String[]{"S", "O", "L", "E", "A", "T"});
+
+        assertFalse(moves.isEmpty());
+        for (GeneratedMove move : moves) {
+            Board newBoard = move.applyTo(board);
+            assertEquals(moveValidatorService.findWords(board, newBoard), move.getWords());
+
+            testGame.setBoard(board);
+            // the host keeps a full rack, so the bag does not run out over all the moves
+            SubmitMoveCommand command = SubmitMoveCommand.withBoard(1L, host.getId(), newBoard, new String[]{"A", "B", "C", "D", "E", "F", "G"});
+            assertEquals(move.getScore(), moveSubmitService.submit(command).getScore(), move.toString());
+        }
+    }
+
+    @Test
+    void generateMoves_invalidCrossWord_notGenerated() {
+        String[][] board = createBoardWithHello();
+
+        List<GeneratedMove> moves = moveGeneratorService.generateMoves(Board.fromRows(board), new String[]{"C", "T"});
+
+        // CT is no word, and C fits under no letter of HELLO
+        assertTrue(moves.stream().noneMatch(move -> move.getPlacements().stream()
+                .anyMatch(p -> p.getLetter() == 'C')));
+    }
+
+    @Test
+    void generateMoves_noDuplicateMoves() {
+        List<GeneratedMove> moves = moveGeneratorService.generateMoves(Board.fromRows(createBoardWithHello()),
+                new String[]{"S", "O", "L", "E", "A", "T"});
+
+        Set<Set<Placement>> placements = moves.stream()
+                .map(move -> Set.copyOf(move.getPlacements()))
+                .collect(Collectors.toSet());
+        assertEquals(moves.size(), placements.size());
+    }
+
+    @Test
+    void findBestMove_usesTilesOfPlayer() {
+        testGame.setBoard(Board.fromRows(createBoardWithHello()));
+        testGame.setTilesForPlayer(2L, List.of("S"));
+
+        Optional<GeneratedMove> best = moveGeneratorService.findBestMove(1L, 2L);
+
+        assertTrue(best.isPresent());
+        assertEquals("HELLOS", best.get().getMainWord());
+        assertEquals(List.of(new Placement(7, 10, 'S')), best.get().getPlacements());
+    }
+
+    @Test
+    void findBestMove_noLegalMove_returnsEmpty() {
+        testGame.setBoard(Board.fromRows(createBoardWithHello()));
+        testGame.setTilesForPlayer(2L, List.of("Q", "Z"));
+
+        assertTrue(moveGeneratorService.findBestMove(1L, 2L).isEmpty());
+    }
+}
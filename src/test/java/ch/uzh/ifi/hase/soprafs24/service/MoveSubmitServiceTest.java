@@ -1,6 +1,13 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+import ch.uzh.ifi.hase.soprafs24.game.SubmitMoveCommand;
+import ch.uzh.ifi.hase.soprafs24.game.SubmittedMove;
+import ch.uzh.ifi.hase.soprafs24.lexicon.Lexicon;
+import ch.uzh.ifi.hase.soprafs24.lexicon.SingleFlightLookup;
 import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,10 +17,12 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import ch.uzh.ifi.hase.soprafs24.constant.BoardStatus;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -25,11 +34,18 @@ class MoveSubmitServiceTest {
     @Mock
     private MoveValidatorService moveValidatorService;
 
+    @Mock
+    private Lexicon lexicon;
+
+    @Mock
+    private CrossCheckService crossCheckService;
+
     @InjectMocks
     @Spy
     private MoveSubmitService moveSubmitService;
 
     private static final int BOARD_SIZE = 15;
+    private static final String[] FULL_RACK = {"A", "B", "C", "D", "E", "F", "G"};
     private Game testGame;
 
     @BeforeEach
@@ -39,13 +55,28 @@ class MoveSubmitServiceTest {
         // Create test game with empty board
         testGame = new Game();
         testGame.setId(1L);
-        testGame.setBoard(createEmptyBoard());
+        testGame.setBoard(Board.fromRows(createEmptyBoard()));
+        addPlayers();
 
         // Set up mock repository
-        when(gameRepository.findById(1L)).thenReturn(Optional.of(testGame));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
         when(gameRepository.save(any(Game.class))).thenReturn(testGame);
     }
 
+    private MoveValidatorService createMoveValidatorService() {
+        return new MoveValidatorService(GameRegistry.direct(gameRepository), new SingleFlightLookup(lexicon, Runnable::run),
+                crossCheckService, Duration.ofSeconds(1));
+    }
+
+    // the host keeps a full rack, so no tiles are drawn
+    private SubmittedMove submitAsHost(Board newBoard) {
+        return moveSubmitService.submit(SubmitMoveCommand.withBoard(1L, 5L, newBoard, FULL_RACK));
+    }
+
+    private SubmittedMove submitAsHost(List<Placement> placements) {
+        return moveSubmitService.submit(SubmitMoveCommand.withPlacements(1L, 5L, placements, FULL_RACK));
+    }
+
     private String[][] createEmptyBoard() {
         String[][] board = new String[BOARD_SIZE][BOARD_SIZE];
         for (int i = 0; i < BOARD_SIZE; i++) {
@@ -60,11 +91,11 @@ class MoveSubmitServiceTest {
     @Test
     void TestFirstWordScore() {
         // Use the real MoveValidatorService
-        moveSubmitService = new MoveSubmitService(gameRepository, new MoveValidatorService(gameRepository));
+        moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), createMoveValidatorService(), crossCheckService);
 
         // Create an empty board for the initial state
         String[][] currentBoard = createEmptyBoard();
-        testGame.setBoard(currentBoard);
+        testGame.setBoard(Board.fromRows(currentBoard));
         gameRepository.saveAndFlush(testGame);
 
         // Create a new board with the first word "HELLO" placed horizontally
@@ -75,12 +106,12 @@ class MoveSubmitServiceTest {
         newBoard[7][10] = "L";
         newBoard[7][11] = "O";
 
-        // Execute the submitMove method
-        int score = moveSubmitService.submitMove(1L, newBoard);
+        // Submit the move
+        int score = submitAsHost(Board.fromRows(newBoard)).getScore();
 
         // Verify the words formed
         List<String> expectedWords = List.of("HELLO");
-        List<String> actualWords = new MoveValidatorService(gameRepository).findWords(currentBoard, newBoard);
+        List<String> actualWords = createMoveValidatorService().findWords(Board.fromRows(currentBoard), Board.fromRows(newBoard));
 
         System.out.println("Words formed: " + actualWords);
         assertEquals(expectedWords, actualWords);
@@ -97,7 +128,7 @@ class MoveSubmitServiceTest {
     @Test
     void testComplexMultipleWordScoreIntegration() {
         // Use the real MoveValidatorService
-        moveSubmitService = new MoveSubmitService(gameRepository, new MoveValidatorService(gameRepository));
+        moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), createMoveValidatorService(), crossCheckService);
 
         // Setup initial board with existing words
         String[][] currentBoard = createEmptyBoard();
@@ -118,7 +149,7 @@ class MoveSubmitServiceTest {
         currentBoard[10][6] = "R";
         currentBoard[10][7] = "S";
 
-        testGame.setBoard(currentBoard);
+        testGame.setBoard(Board.fromRows(currentBoard));
         gameRepository.saveAndFlush(testGame);
 
         // Create new board with added tiles
@@ -136,12 +167,12 @@ class MoveSubmitServiceTest {
         newBoard[9][9] = "O";
         newBoard[9][10] = "O";
 
-        // Execute the submitMove method
-        int score = moveSubmitService.submitMove(1L, newBoard);
+        // Submit the move
+        int score = submitAsHost(Board.fromRows(newBoard)).getScore();
 
         // Verify the words formed
         List<String> expectedWords = List.of("TATTOO", "TA", "BAR", "IT", "TO");
-        List<String> actualWords = new MoveValidatorService(gameRepository).findWords(currentBoard, newBoard);
+        List<String> actualWords = createMoveValidatorService().findWords(Board.fromRows(currentBoard), Board.fromRows(newBoard));
 
         System.out.println("Words formed: " + actualWords);
         assertEquals(expectedWords, actualWords);
@@ -156,10 +187,85 @@ class MoveSubmitServiceTest {
 
     }
     
+    @Test
+    void testPlacementsScoreLikeFullBoard() {
+        // Use the real MoveValidatorService
+        moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), createMoveValidatorService(), crossCheckService);
+
+        // HELLO sent as its tiles only, in any order
+        List<Placement> placements = List.of(new Placement(7, 11, 'O'), new Placement(7, 7, 'H'),
+                new Placement(7, 8, 'E'), new Placement(7, 9, 'L'), new Placement(7, 10, 'L'));
+
+        int score = submitAsHost(placements).getScore();
+
+        assertEquals(9, score);
+        assertEquals("HELLO", createMoveValidatorService().findWordAt(testGame.getBoard(), 7, 7, true));
+        verify(crossCheckService).onMoveAccepted(eq(1L), argThat(placed -> placed.size() == 5));
+    }
+
+    @Test
+    void submit_command_gameReadAndWrittenOnce() {
+        moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), createMoveValidatorService(), crossCheckService);
+
+        SubmittedMove submitted = moveSubmitService.submit(SubmitMoveCommand.withPlacements(1L, 5L,
+                List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'I')), new String[]{"A", "B", "C", "D", "E"}));
+
+        // board, score, rack and turn are changed with a single read and a single write of the game
+        verify(gameRepository, times(1)).findByIdWithUsers(1L);
+        verify(gameRepository, times(1)).save(testGame);
+        verifyNoMoreInteractions(gameRepository);
+
+        assertEquals('H', testGame.getBoard().tileAt(7, 7));
+        assertEquals(Map.of(5L, submitted.getScore()), testGame.getPlayerScores());
+        assertEquals(7, submitted.getRack().length);
+        assertArrayEquals(submitted.getRack(), testGame.getPlayerTiles(5L));
+        assertFalse(testGame.isHostTurn());
+        assertEquals(6L, submitted.getNextPlayerId());
+    }
+
+    @Test
+    void submit_tooManyTilesInHand_gameUnchanged() {
+        moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), createMoveValidatorService(), crossCheckService);
+        SubmitMoveCommand command = SubmitMoveCommand.withPlacements(1L, 5L,
+                List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'I')), new String[8]);
+
+        assertThrows(IllegalArgumentException.class, () -> moveSubmitService.submit(command));
+
+        verify(gameRepository, never()).save(any());
+        assertEquals(Board.fromRows(createEmptyBoard()), testGame.getBoard());
+        assertTrue(testGame.getPlayerScores().isEmpty());
+        assertTrue(testGame.isHostTurn());
+    }
+
+    private void addPlayers() {
+        User host = new User();
+        host.setId(5L);
+        User guest = new User();
+        guest.setId(6L);
+        testGame.setHost(host);
+        testGame.getUsers().add(host);
+        testGame.getUsers().add(guest);
+    }
+
+    @Test
+    void testBlankTileScoresNothing() {
+        // Use the real MoveValidatorService
+        moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), createMoveValidatorService(), crossCheckService);
+
+        // HELLO with a blank as the E: 4 + 0 + 1 + 1 + 2 for the O on a double letter square
+        List<Placement> placements = List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'e'),
+                new Placement(7, 9, 'L'), new Placement(7, 10, 'L'), new Placement(7, 11, 'O'));
+
+        int score = submitAsHost(placements).getScore();
+
+        assertEquals(8, score);
+        assertEquals('e', testGame.getBoard().tileAt(7, 8));
+    }
+
     @Test
     void testWordNotStartingNewLetterIntegration() {
         // Use the real MoveValidatorService
-        moveSubmitService = new MoveSubmitService(gameRepository, new MoveValidatorService(gameRepository));
+        moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), createMoveValidatorService(), crossCheckService);
 
         // Setup initial board with existing words
         String[][] currentBoard = createEmptyBoard();
@@ -169,7 +275,7 @@ class MoveSubmitServiceTest {
         currentBoard[8][7] = "A";
         currentBoard[9][7] = "T";
 
-        testGame.setBoard(currentBoard);
+        testGame.setBoard(Board.fromRows(currentBoard));
         gameRepository.saveAndFlush(testGame);
 
         // Create new board with added tiles
@@ -183,12 +289,12 @@ class MoveSubmitServiceTest {
         // Add new tiles for TATTOO horizontally and forming other perpendicular words
         newBoard[10][7] = "S";
 
-        // Execute the submitMove method
-        int score = moveSubmitService.submitMove(1L, newBoard);
+        // Submit the move
+        int score = submitAsHost(Board.fromRows(newBoard)).getScore();
 
         // Verify the words formed
         List<String> expectedWords = List.of("CATS");
-        List<String> actualWords = new MoveValidatorService(gameRepository).findWords(currentBoard, newBoard);
+        List<String> actualWords = createMoveValidatorService().findWords(Board.fromRows(currentBoard), Board.fromRows(newBoard));
 
         System.out.println("Words formed: " + actualWords);
         assertEquals(expectedWords, actualWords);
@@ -206,7 +312,7 @@ class MoveSubmitServiceTest {
     @Test
     void testWordMultiplierOnlyOnce(){
         // Use the real MoveValidatorService
-        moveSubmitService = new MoveSubmitService(gameRepository, new MoveValidatorService(gameRepository));
+        moveSubmitService = new MoveSubmitService(GameRegistry.direct(gameRepository), createMoveValidatorService(), crossCheckService);
 
         // Setup initial board with existing words
         String[][] currentBoard = createEmptyBoard();
@@ -233,7 +339,7 @@ class MoveSubmitServiceTest {
         currentBoard[10][5] = "A";
         currentBoard[10][6] = "R";
 
-        testGame.setBoard(currentBoard);
+        testGame.setBoard(Board.fromRows(currentBoard));
         gameRepository.saveAndFlush(testGame);
 
         // Create new board with added tiles
@@ -247,12 +353,12 @@ class MoveSubmitServiceTest {
         // Add new tiles for TATTOO horizontally and forming other perpendicular words
         newBoard[10][7] = "S";
 
-        // Execute the submitMove method
-        int score = moveSubmitService.submitMove(1L, newBoard);
+        // Submit the move
+        int score = submitAsHost(Board.fromRows(newBoard)).getScore();
 
         // Verify the words formed
         List<String> expectedWords = List.of("BARS", "CATS");
-        List<String> actualWords = new MoveValidatorService(gameRepository).findWords(currentBoard, newBoard);
+        List<String> actualWords = createMoveValidatorService().findWords(Board.fromRows(currentBoard), Board.fromRows(newBoard));
 
         System.out.println("Words formed: " + actualWords);
         assertEquals(expectedWords, actualWords);
@@ -1,6 +1,7 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
 import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -52,7 +53,7 @@ class MoveValidatorServiceIntegrationTest {
         firstMove[7][11] = "O";
         
         // Test
-        List<String> words = moveValidatorService.validateMoveAndExtractWords(testGame.getId(), firstMove);
+        List<String> words = moveValidatorService.validateMoveAndExtractWords(testGame.getId(), Board.fromRows(firstMove)).getWords();
         
         // Verify
         assertEquals(1, words.size());
@@ -72,7 +73,7 @@ class MoveValidatorServiceIntegrationTest {
         
         // Test and assert
         assertThrows(ResponseStatusException.class, () -> 
-            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), invalidMove)
+            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), Board.fromRows(invalidMove))
         );
     }
 
@@ -90,7 +91,7 @@ class MoveValidatorServiceIntegrationTest {
         firstMove[7][9] = "L";
         firstMove[7][10] = "L";
         firstMove[7][11] = "O";
-        testGame.setBoard(firstMove);
+        testGame.setBoard(Board.fromRows(firstMove));
         gameRepository.saveAndFlush(testGame);
         
         // Second move forming perpendicular word
@@ -106,16 +107,16 @@ class MoveValidatorServiceIntegrationTest {
         secondMove[7][9] = "L";
         secondMove[7][10] = "L";
         secondMove[7][11] = "O";
-        // Add 'P' to form "LP" with the 'L'
-        secondMove[8][9] = "P"; 
+        // Add 'A' to form "LA" with the 'L'
+        secondMove[8][9] = "A";
         
         // Test
-        List<String> words = moveValidatorService.validateMoveAndExtractWords(testGame.getId(), secondMove);
+        List<String> words = moveValidatorService.validateMoveAndExtractWords(testGame.getId(), Board.fromRows(secondMove)).getWords();
         
-        // Verify at least one word is found (should be "LP")
+        // Verify at least one word is found (should be "LA")
         assertFalse(words.isEmpty());
-        // The perpendicular word should be "LP"
-        assertTrue(words.contains("LP"));
+        // The perpendicular word should be "LA"
+        assertTrue(words.contains("LA"));
     }
 
     @Test
@@ -130,7 +131,7 @@ class MoveValidatorServiceIntegrationTest {
         initialBoard[7][7] = "H";
         initialBoard[8][7] = "A";
         initialBoard[9][7] = "T";
-        testGame.setBoard(initialBoard);
+        testGame.setBoard(Board.fromRows(initialBoard));
         gameRepository.saveAndFlush(testGame);
 
         // Attempt to place new tiles that don't connect to existing tiles
@@ -143,7 +144,7 @@ class MoveValidatorServiceIntegrationTest {
 
         // Test and assert
         assertThrows(ResponseStatusException.class, () ->
-            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), newBoard)
+            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), Board.fromRows(newBoard))
         );
     }
 
@@ -159,7 +160,7 @@ class MoveValidatorServiceIntegrationTest {
         initialBoard[7][7] = "H";
         initialBoard[8][7] = "A";
         initialBoard[9][7] = "T";
-        testGame.setBoard(initialBoard);
+        testGame.setBoard(Board.fromRows(initialBoard));
         gameRepository.saveAndFlush(testGame);
 
         // Attempt to place new tiles that don't connect to each other
@@ -172,7 +173,7 @@ class MoveValidatorServiceIntegrationTest {
 
         // Test and assert
         assertThrows(ResponseStatusException.class, () ->
-            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), newBoard)
+            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), Board.fromRows(newBoard))
         );
     }
 
@@ -188,7 +189,7 @@ class MoveValidatorServiceIntegrationTest {
         initialBoard[7][7] = "H";
         initialBoard[8][7] = "A";
         initialBoard[9][7] = "T";
-        testGame.setBoard(initialBoard);
+        testGame.setBoard(Board.fromRows(initialBoard));
         gameRepository.saveAndFlush(testGame);
 
         // Attempt to place new tiles that are not in a straight line
@@ -201,7 +202,7 @@ class MoveValidatorServiceIntegrationTest {
 
         // Test and assert
         assertThrows(ResponseStatusException.class, () ->
-            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), newBoard)
+            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), Board.fromRows(newBoard))
         );
     }
 
@@ -224,7 +225,7 @@ class MoveValidatorServiceIntegrationTest {
 
         // Test and assert
         assertThrows(ResponseStatusException.class, () ->
-            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), newBoard)
+            moveValidatorService.validateMoveAndExtractWords(testGame.getId(), Board.fromRows(newBoard))
         );
     }
 
@@ -247,7 +248,7 @@ class MoveValidatorServiceIntegrationTest {
         initialBoard[10][5] = "A";
         initialBoard[10][6] = "R";
         initialBoard[10][7] = "S";
-        testGame.setBoard(initialBoard);
+        testGame.setBoard(Board.fromRows(initialBoard));
         gameRepository.saveAndFlush(testGame);
 
         // Place new tiles to form multiple words
@@ -262,7 +263,7 @@ class MoveValidatorServiceIntegrationTest {
         newBoard[9][10] = "O";
 
         // Test
-        List<String> words = moveValidatorService.validateMoveAndExtractWords(testGame.getId(), newBoard);
+        List<String> words = moveValidatorService.validateMoveAndExtractWords(testGame.getId(), Board.fromRows(newBoard)).getWords();
 
         // Verify
         assertEquals(5, words.size());
@@ -1,16 +1,27 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
+import ch.uzh.ifi.hase.soprafs24.constant.errors.LexiconUnavailableException;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+import ch.uzh.ifi.hase.soprafs24.lexicon.CircuitBreaker;
+import ch.uzh.ifi.hase.soprafs24.lexicon.DawgLexicon;
+import ch.uzh.ifi.hase.soprafs24.lexicon.Lexicon;
+import ch.uzh.ifi.hase.soprafs24.lexicon.ResilientLexicon;
+import ch.uzh.ifi.hase.soprafs24.lexicon.SingleFlightLookup;
 import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -22,9 +33,9 @@ class MoveValidatorServiceTest {
     private GameRepository gameRepository;
     
     @Mock
-    private RestTemplate restTemplate;
+    private Lexicon lexicon;
 
-    @InjectMocks
+    private CrossCheckService crossCheckService;
     private MoveValidatorService moveValidatorService;
 
     private Game testGame;
@@ -34,6 +45,10 @@ class MoveValidatorServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // no words known to the cross-checks, every word goes to the mocked dictionary
+        crossCheckService = new CrossCheckService(DawgLexicon.of(), "local", true, 100, Duration.ofHours(1));
+        moveValidatorService = new MoveValidatorService(GameRegistry.direct(gameRepository), new SingleFlightLookup(lexicon, Runnable::run),
+                crossCheckService, Duration.ofSeconds(1));
         
         // Create test game
         testGame = new Game();
@@ -58,9 +73,6 @@ class MoveValidatorServiceTest {
         boardWithHAT[7][8] = "A";
         boardWithHAT[7][9] = "T";
         
-        // Mocked RestTemplate
-        ReflectionTestUtils.setField(moveValidatorService, "restTemplate", restTemplate);
-        
         // Mock valid dictionary responses to test the isValidWord method in the service
         mockDictionaryForWord("hat", true);
         mockDictionaryForWord("hello", true);
@@ -68,15 +80,11 @@ class MoveValidatorServiceTest {
     }
     
     private void mockDictionaryForWord(String word, boolean isValid) {
-        Object response = isValid ? 
-            Collections.singletonList(new HashMap<>()) : // Valid word returns a list
-            new HashMap<>(); // Invalid word returns a map (in the external API)
-        when(restTemplate.getForObject(contains(word.toLowerCase()), eq(Object.class)))
-            .thenReturn(response);
+        when(lexicon.contains(word.toUpperCase())).thenReturn(isValid);
     }
     
 
-    // Tests for dictionary (word) validation with external API
+    // Tests for dictionary (word) validation with the lexicon
     
     @Test
     void isValidWord_validWord_returnsTrue() {
@@ -88,7 +96,7 @@ class MoveValidatorServiceTest {
         
         // Then
         assertTrue(result);
-        verify(restTemplate).getForObject(contains("hello"), eq(Object.class));
+        verify(lexicon).contains("HELLO");
     }
     
     @Test
@@ -103,8 +111,222 @@ class MoveValidatorServiceTest {
         // Then
         assertFalse(result);
     }
+
+    @Test
+    void isValidWord_dictionaryUnavailable_throwsServiceUnavailable() {
+        // Given
+        when(lexicon.contains("HELLO")).thenThrow(new LexiconUnavailableException("Dictionary API error"));
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> moveValidatorService.isValidWord("hello"));
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void validateMoveAndExtractWords_circuitOpen_serviceUnavailableNotInvalidWord() {
+        // Given: the dictionary API failed once, the breaker is open and there is no fallback
+        CircuitBreaker circuitBreaker = new CircuitBreaker("dictionary-api", 1, Duration.ofMinutes(1));
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Lexicon remote = mock(Lexicon.class);
+        MoveValidatorService validator = new MoveValidatorService(GameRegistry.direct(gameRepository),
+                new SingleFlightLookup(new ResilientLexicon(remote, circuitBreaker, 4, null), Runnable::run),
+                crossCheckService, Duration.ofSeconds(1));
+        testGame.setBoard(Board.fromRows(boardWithH));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> validator.validateMoveAndExtractWords(1L, Board.fromRows(boardWithHAT)));
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertFalse(exception.getReason().contains("Invalid word"));
+        verifyNoInteractions(remote);
+    }
     
 
+    // Tests for validateMoveAndExtractWords
+
+    @Test
+    void validateMoveAndExtractWords_allWordsValid_returnsWords() {
+        // Given
+        testGame.setBoard(Board.fromRows(boardWithH));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+        mockDictionaryForWord("HAT", true);
+
+        // When
+        List<String> words = moveValidatorService.validateMoveAndExtractWords(1L, Board.fromRows(boardWithHAT)).getWords();
+
+        // Then
+        assertEquals(List.of("HAT"), words);
+    }
+
+    @Test
+    void validateMoveAndExtractWords_invalidCrossWord_throwsBadRequest() {
+        // Given: HAT on the board, new tiles form XTO with the cross words HX, AT and TO
+        String[][] newBoard = copy(boardWithHAT);
+        newBoard[8][7] = "X";
+        newBoard[8][8] = "T";
+        newBoard[8][9] = "O";
+        testGame.setBoard(Board.fromRows(copy(boardWithHAT)));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+        when(lexicon.contains(anyString())).thenReturn(true);
+        when(lexicon.contains("HX")).thenReturn(false);
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> moveValidatorService.validateMoveAndExtractWords(1L, Board.fromRows(newBoard)));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertTrue(exception.getReason().contains("Invalid word: HX"));
+    }
+
+    @Test
+    void validateMoveAndExtractWords_crossWordsInCrossChecks_notLookedUp() {
+        // Given: HAT on the board, new tiles form XTO with the cross words HX, AT and TO
+        MoveValidatorService validator = new MoveValidatorService(GameRegistry.direct(gameRepository), new SingleFlightLookup(lexicon, Runnable::run),
+                new CrossCheckService(DawgLexicon.of("AT", "TO"), "local", true, 100, Duration.ofHours(1)), Duration.ofSeconds(1));
+        String[][] newBoard = copy(boardWithHAT);
+        newBoard[8][7] = "X";
+        newBoard[8][8] = "T";
+        newBoard[8][9] = "O";
+        testGame.setBoard(Board.fromRows(copy(boardWithHAT)));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+        when(lexicon.contains(anyString())).thenReturn(true);
+
+        // When
+        List<String> words = validator.validateMoveAndExtractWords(1L, Board.fromRows(newBoard)).getWords();
+
+        // Then
+        assertEquals(List.of("XTO", "HX", "AT", "TO"), words);
+        verify(lexicon).contains("XTO");
+        verify(lexicon).contains("HX");
+        verify(lexicon, never()).contains("AT");
+        verify(lexicon, never()).contains("TO");
+    }
+
+    @Test
+    void validateMoveAndExtractWords_staleCrossChecks_everyWordLookedUp() {
+        // Given: cross-checks built while H was on the board, the game has AT only, so X forms no cross word
+        CrossCheckService staleChecks = new CrossCheckService(DawgLexicon.of("AT", "TO", "HX"), "local", false, 100, Duration.ofHours(1));
+        testGame.setBoard(Board.fromRows(copy(boardWithHAT)));
+        staleChecks.forGame(testGame);
+        String[][] boardWithAT = copy(boardWithHAT);
+        boardWithAT[7][7] = "";
+        testGame.setBoard(Board.fromRows(boardWithAT));
+        MoveValidatorService validator = new MoveValidatorService(GameRegistry.direct(gameRepository), new SingleFlightLookup(lexicon, Runnable::run),
+                staleChecks, Duration.ofSeconds(1));
+        String[][] newBoard = copy(boardWithAT);
+        newBoard[8][7] = "X";
+        newBoard[8][8] = "T";
+        newBoard[8][9] = "O";
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+        when(lexicon.contains(anyString())).thenReturn(true);
+
+        // When
+        List<String> words = validator.validateMoveAndExtractWords(1L, Board.fromRows(newBoard)).getWords();
+
+        // Then: the main word is not taken for the cross word of X
+        assertEquals(List.of("XTO", "AT", "TO"), words);
+        verify(lexicon).contains("XTO");
+        verify(lexicon).contains("AT");
+        verify(lexicon).contains("TO");
+    }
+
+    @Test
+    void validateMoveAndExtractWords_onlyBundledLexicon_rejectsCrossWordWithoutLookup() {
+        // Given: no remote fallback, so the cross-checks decide alone
+        MoveValidatorService validator = new MoveValidatorService(GameRegistry.direct(gameRepository), new SingleFlightLookup(lexicon, Runnable::run),
+                new CrossCheckService(DawgLexicon.of("AT", "TO", "XTO"), "local", false, 100, Duration.ofHours(1)), Duration.ofSeconds(1));
+        String[][] newBoard = copy(boardWithHAT);
+        newBoard[8][7] = "X";
+        newBoard[8][8] = "T";
+        newBoard[8][9] = "O";
+        testGame.setBoard(Board.fromRows(copy(boardWithHAT)));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> validator.validateMoveAndExtractWords(1L, Board.fromRows(newBoard)));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertTrue(exception.getReason().contains("Invalid word: HX"));
+        verify(lexicon, never()).contains(anyString());
+    }
+
+    @Test
+    void validateMoveAndExtractWords_slowDictionary_timesOut() {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        MoveValidatorService slowValidator = new MoveValidatorService(GameRegistry.direct(gameRepository), new SingleFlightLookup(lexicon, executor),
+                crossCheckService, Duration.ofMillis(100));
+        testGame.setBoard(Board.fromRows(boardWithH));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+        when(lexicon.contains("HAT")).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return true;
+        });
+
+        try {
+            // When
+            long start = System.nanoTime();
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> slowValidator.validateMoveAndExtractWords(1L, Board.fromRows(boardWithHAT)));
+
+            // Then
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 2000);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void validateMoveAndExtractWords_placements_sameWordsAsFullBoard() {
+        // Given: HAT on the board, XTO sent as its tiles only
+        testGame.setBoard(Board.fromRows(boardWithHAT));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+        when(lexicon.contains(anyString())).thenReturn(true);
+
+        // When
+        List<String> words = moveValidatorService.validateMoveAndExtractWords(1L,
+            List.of(new Placement(8, 9, 'O'), new Placement(8, 7, 'X'), new Placement(8, 8, 'T'))).getWords();
+
+        // Then
+        assertEquals(List.of("XTO", "HX", "AT", "TO"), words);
+        assertTrue(testGame.getBoard().isEmpty(8, 7));
+    }
+
+    @Test
+    void validateMoveAndExtractWords_placementOnOccupiedSquare_throwsBadRequest() {
+        // Given
+        testGame.setBoard(Board.fromRows(boardWithHAT));
+        when(gameRepository.findByIdWithUsers(1L)).thenReturn(Optional.of(testGame));
+
+        // When
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> moveValidatorService.validateMoveAndExtractWords(1L, List.of(new Placement(7, 8, 'S'))));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify(lexicon, never()).contains(anyString());
+    }
+
+    private String[][] copy(String[][] board) {
+        String[][] copy = new String[15][];
+        for (int i = 0; i < 15; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+
     // Tests for word finding
     
     @Test
@@ -129,7 +351,7 @@ class MoveValidatorServiceTest {
         newBoard[7][9] = "T";
         
         // When
-        List<String> words = ReflectionTestUtils.invokeMethod(moveValidatorService, "findWords", oldBoard, newBoard);
+        List<String> words = ReflectionTestUtils.invokeMethod(moveValidatorService, "findWords", Board.fromRows(oldBoard), Board.fromRows(newBoard));
         
         // Then
         assertEquals(1, words.size());
@@ -161,7 +383,7 @@ class MoveValidatorServiceTest {
         // When/Then
         assertThrows(IllegalArgumentException.class, () ->
             ReflectionTestUtils.invokeMethod(moveValidatorService, "validatePlacement", 
-                emptyBoard, positionsNotAtCenter, newBoard));
+                Board.fromRows(emptyBoard), positionsNotAtCenter, Board.fromRows(newBoard)));
     }
     
     @Test
@@ -197,9 +419,36 @@ class MoveValidatorServiceTest {
         // When/Then
         assertThrows(IllegalArgumentException.class, () ->
             ReflectionTestUtils.invokeMethod(moveValidatorService, "validatePlacement", 
-                emptyBoard, positions, newBoard));
+                Board.fromRows(emptyBoard), positions, Board.fromRows(newBoard)));
     }
-    
+
+    @Test
+    void validatePlacement_gapBetweenNewTiles_throwsException() {
+        // Given
+        Board board = Board.fromRows(boardWithH);
+        Board newBoard = board.with(List.of(new Placement(7, 5, 'A'), new Placement(7, 8, 'A'), new Placement(7, 9, 'T')));
+        List<int[]> positions = Arrays.asList(new int[]{7, 5}, new int[]{7, 8}, new int[]{7, 9});
+
+        // When/Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+            ReflectionTestUtils.invokeMethod(moveValidatorService, "validatePlacement",
+                board, positions, newBoard));
+        assertEquals("New tiles must not leave gaps", exception.getMessage());
+    }
+
+    @Test
+    void validatePlacement_gapFilledByExistingTile_noException() {
+        // Given
+        Board board = Board.fromRows(boardWithH);
+        Board newBoard = board.with(List.of(new Placement(7, 6, 'S'), new Placement(7, 8, 'E')));
+        List<int[]> positions = Arrays.asList(new int[]{7, 6}, new int[]{7, 8});
+
+        // When/Then
+        assertDoesNotThrow(() ->
+            ReflectionTestUtils.invokeMethod(moveValidatorService, "validatePlacement",
+                board, positions, newBoard));
+    }
+
     @Test
     void validatePlacement_emptyBoardWithHorizontalWordThroughCenter_noException() {
         // Given
@@ -233,7 +482,7 @@ class MoveValidatorServiceTest {
         // When/Then
         assertDoesNotThrow(() ->
             ReflectionTestUtils.invokeMethod(moveValidatorService, "validatePlacement", 
-                emptyBoard, positions, newBoard));
+                Board.fromRows(emptyBoard), positions, Board.fromRows(newBoard)));
     }
     
     // Tests for directional checks
@@ -290,7 +539,7 @@ class MoveValidatorServiceTest {
         
         // When
         String word = ReflectionTestUtils.invokeMethod(moveValidatorService, "findWordAt", 
-            board, 7, 9, true);
+            Board.fromRows(board), 7, 9, true);
         
         // Then
         assertEquals("HELLO", word);
@@ -313,7 +562,7 @@ class MoveValidatorServiceTest {
         
         // When
         String word = ReflectionTestUtils.invokeMethod(moveValidatorService, "findWordAt", 
-            board, 7, 7, false);
+            Board.fromRows(board), 7, 7, false);
         
         // Then
         assertEquals("WORLD", word);
@@ -0,0 +1,58 @@
+package ch.uzh.ifi.hase.soprafs24.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+    private final OptimisticRetry optimisticRetry = new OptimisticRetry(3, Duration.ofMillis(1));
+
+    @Test
+    void run_conflictOnce_runsAgain() {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger dropped = new AtomicInteger();
+
+        String result = optimisticRetry.run(() -> {
+            if (attempts.incrementAndGet() == 1) throw new OptimisticLockingFailureException("changed");
+            return "done";
+        }, dropped::incrementAndGet);
+
+        assertEquals("done", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1, dropped.get());
+        assertEquals(1, optimisticRetry.getRetriedCount());
+        assertEquals(0, optimisticRetry.getExhaustedCount());
+    }
+
+    @Test
+    void run_conflictEveryTime_throwsAfterLastAttempt() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> optimisticRetry.run(() -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("changed");
+        }, () -> {}));
+
+        assertEquals(3, attempts.get());
+        assertEquals(2, optimisticRetry.getRetriedCount());
+        assertEquals(1, optimisticRetry.getExhaustedCount());
+    }
+
+    @Test
+    void run_otherException_notRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> optimisticRetry.run(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("not your turn");
+        }, () -> {}));
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, optimisticRetry.getRetriedCount());
+    }
+}
@@ -1,5 +1,6 @@
 package ch.uzh.ifi.hase.soprafs24.service;
 
+import ch.uzh.ifi.hase.soprafs24.auth.SessionTokens;
 import ch.uzh.ifi.hase.soprafs24.constant.UserStatus;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
 import ch.uzh.ifi.hase.soprafs24.repository.UserRepository;
@@ -9,8 +10,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class UserServiceTest {
@@ -18,6 +22,9 @@ public class UserServiceTest {
   @Mock
   private UserRepository userRepository;
 
+  @Spy
+  private SessionTokens sessionTokens = new SessionTokens("a-secret-of-at-least-thirty-two-bytes", Duration.ofHours(1));
+
   @InjectMocks
   private UserService userService;
 
@@ -161,8 +168,31 @@ public class UserServiceTest {
 
   @Test
   public void getUserByToken_returnsUser() {
-      Mockito.when(userRepository.findByToken("token")).thenReturn(java.util.Optional.of(testUser));
-      assertTrue(userService.getUserByToken("token").isPresent());
+      Mockito.when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
+      assertEquals(testUser, userService.getUserByToken(sessionTokens.issue(1L)).orElseThrow());
+  }
+
+  @Test
+  public void getUserByToken_invalidToken_noLookup() {
+      assertTrue(userService.getUserByToken("token").isEmpty());
+      Mockito.verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  public void getSessionByToken_returnsUserIdWithoutLookup() {
+      assertEquals(1L, userService.getSessionByToken(sessionTokens.issue(1L)).orElseThrow().getUserId());
+      assertTrue(userService.getSessionByToken("token").isEmpty());
+      Mockito.verifyNoInteractions(userRepository);
+  }
+
+  @Test
+  public void revokeToken_tokenNotAcceptedAnymore() {
+      Mockito.when(userRepository.findById(1L)).thenReturn(java.util.Optional.of(testUser));
+      String token = sessionTokens.issue(1L);
+
+      userService.revokeToken(token);
+
+      assertTrue(userService.getUserByToken(token).isEmpty());
   }
 
   @Test
@@ -5,10 +5,18 @@ import ch.uzh.ifi.hase.soprafs24.constant.MoveType;
 import ch.uzh.ifi.hase.soprafs24.constant.errors.GameNotFoundException;
 import ch.uzh.ifi.hase.soprafs24.entity.Game;
 import ch.uzh.ifi.hase.soprafs24.entity.User;
+import ch.uzh.ifi.hase.soprafs24.game.Board;
+import ch.uzh.ifi.hase.soprafs24.game.FormedWord;
+import ch.uzh.ifi.hase.soprafs24.game.MoveResult;
+import ch.uzh.ifi.hase.soprafs24.game.Placement;
+import ch.uzh.ifi.hase.soprafs24.game.SubmitMoveCommand;
+import ch.uzh.ifi.hase.soprafs24.game.SubmittedMove;
 import ch.uzh.ifi.hase.soprafs24.repository.GameRepository;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.GameStateDTO;
 import ch.uzh.ifi.hase.soprafs24.rest.dto.MessageGameStateMessageDTO;
+import ch.uzh.ifi.hase.soprafs24.rest.dto.PlacementDTO;
 import ch.uzh.ifi.hase.soprafs24.service.GameService;
+import ch.uzh.ifi.hase.soprafs24.service.GameWriteConflictEvent;
 import ch.uzh.ifi.hase.soprafs24.service.MoveSubmitService;
 import ch.uzh.ifi.hase.soprafs24.service.MoveValidatorService;
 import ch.uzh.ifi.hase.soprafs24.constant.GameStatus;
@@ -21,6 +29,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -69,6 +79,9 @@ public class WebSocketControllerTest {
     @Autowired
     private WebSocketController webSocketController;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @MockBean
     private MoveSubmitService moveSubmitService;
 
@@ -210,7 +223,7 @@ public class WebSocketControllerTest {
         gameState.setId(1L);
 
         // Act
-        MessageGameStateMessageDTO msg = webSocketController.handleGameStates("1", gameState);
+        MessageGameStateMessageDTO msg = webSocketController.handleGameStates("1", gameState).join();
 
         // Assert
         assertNotNull(msg);
@@ -225,7 +238,7 @@ public class WebSocketControllerTest {
         GameStateDTO gameState = initializeGameStateDTO();
 
         // Act
-        MessageGameStateMessageDTO msg = webSocketController.handleGameStates("10", gameState);
+        MessageGameStateMessageDTO msg = webSocketController.handleGameStates("10", gameState).join();
 
         // Assert
         assertNotNull(msg);
@@ -254,15 +267,14 @@ public class WebSocketControllerTest {
         gameState.setType(MoveType.UNKNOWN);
         gameState.setUserTiles(new String[]{});
         gameState.setToken("test-token");
-        gameState.setBoard(new String[15][15]);
+        gameState.setBoard(Board.empty());
 
-        when(gameService.getGameById(game.getId())).thenReturn(Optional.of(game));
         when(gameRepository.findByIdWithUsers(game.getId())).thenReturn(Optional.of(game));
         when(gameService.assignNewLetters(any(), anyLong(), any())).thenReturn(new String[]{"A", "B", "C", "D", "E", "F", "G"});
 
 
         // Act
-        MessageGameStateMessageDTO result = webSocketController.handleGameStates(game.getId().toString(), gameState);
+        MessageGameStateMessageDTO result = webSocketController.handleGameStates(game.getId().toString(), gameState).join();
 
         // Assert
         Assertions.assertNotNull(result);
@@ -282,12 +294,12 @@ public class WebSocketControllerTest {
         gameState.setType(MoveType.UNKNOWN);
         gameState.setUserTiles(new String[]{});
         gameState.setToken("test-token");
-        gameState.setBoard(new String[15][15]);
+        gameState.setBoard(Board.empty());
 
-        when(gameService.getGameById(gameId)).thenReturn(Optional.empty());
+        when(gameRepository.findByIdWithUsers(gameId)).thenReturn(Optional.empty());
 
         // Act
-        MessageGameStateMessageDTO result = webSocketController.handleGameStates(gameId.toString(), gameState);
+        MessageGameStateMessageDTO result = webSocketController.handleGameStates(gameId.toString(), gameState).join();
 
         // Assert
         assertNotNull(result);
@@ -317,10 +329,10 @@ public class WebSocketControllerTest {
         game.addScore(host.getId(), 10);
         game.addScore(guest.getId(), 20);
         game.initializeEmptyBoard();
-        String[][] board = game.getBoard();
+        String[][] board = game.getBoard().toRows();
         board[0][0] = "Y";
         board[14][14] = "Z";
-        game.setBoard(board);
+        game.setBoard(Board.fromRows(board));
 
         GameStateDTO gameStateDto = new GameStateDTO(){
             {
@@ -330,16 +342,15 @@ public class WebSocketControllerTest {
                 setType(MoveType.UNKNOWN);
                 setToken("test-token");
                 setUserTiles(new String[]{});
-                setBoard(new String[15][15]);
+                setBoard(Board.empty());
             }
         };
 
-        when(gameService.getGameById(game.getId())).thenReturn(Optional.of(game));
         when(gameRepository.findByIdWithUsers(game.getId())).thenReturn(Optional.of(game));
         when(gameService.assignNewLetters(any(),  anyLong(), any())).thenThrow(new IllegalArgumentException("Should not be called"));
 
         // Act
-        MessageGameStateMessageDTO result = webSocketController.handleGameStates(game.getId().toString(), gameStateDto);
+        MessageGameStateMessageDTO result = webSocketController.handleGameStates(game.getId().toString(), gameStateDto).join();
 
         // Assert
         assertNotNull(result);
@@ -349,7 +360,7 @@ public class WebSocketControllerTest {
         assertNotNull(result.getGameState().getUserTiles());
         assertEquals(7, result.getGameState().getUserTiles().length);
         assertTrue(Arrays.stream(result.getGameState().getUserTiles()).allMatch(tile -> tile.equals("A")));
-        assertTrue(Arrays.deepEquals(board, result.getGameState().getBoard()));
+        assertTrue(Arrays.deepEquals(board, result.getGameState().getBoard().toRows()));
         assertEquals(game.getPlayerScores(), result.getGameState().getPlayerScores());
     }
 
@@ -379,15 +390,15 @@ public class WebSocketControllerTest {
         board[7][9] = "L";
         board[7][10] = "L";
         board[7][11] = "O";
-        gameState.setBoard(board);
+        gameState.setBoard(Board.fromRows(board));
 
         //when
-        when(moveValidatorService.validateMoveAndExtractWords(eq(gameId), any()))
+        when(moveValidatorService.validateMoveAndExtractWords(eq(gameId), any(Board.class)))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Game not found"));
 
 
         MessageGameStateMessageDTO result = webSocketController.handleGameStates(
-                gameId.toString(), gameState);
+                gameId.toString(), gameState).join();
 
 
         assertNull(result);
@@ -455,86 +466,90 @@ public class WebSocketControllerTest {
         board[7][9] = "L";
         board[7][10] = "L";
         board[7][11] = "O";
-        gameState.setBoard(board);
+        gameState.setBoard(Board.fromRows(board));
 
         // Mock services
         int expectedScore = 10;
-        when(moveSubmitService.submitMove(eq(gameId), any())).thenReturn(expectedScore);
-        
-        // Create mock game object with player scores
-        Game mockGame = Mockito.mock(Game.class);
         Map<Long, Integer> playerScores = new HashMap<>();
         playerScores.put(playerId, expectedScore);
-        when(mockGame.getPlayerScores()).thenReturn(playerScores);
-        when(gameRepository.findById(gameId)).thenReturn(Optional.of(mockGame));
-        when(gameService.assignNewLetters(any(), anyLong(), any())).thenReturn(new String[]{"A", "B", "C", "D", "E", "F", "G"});
-        when(gameService.changeUserTurn(any())).thenReturn(player);
+        when(moveSubmitService.submit(any(SubmitMoveCommand.class)))
+                .thenReturn(new SubmittedMove(new MoveResult(List.of(), List.of(new FormedWord("HELLO", 7, 7, true, expectedScore))),
+                        Board.fromRows(board), new String[]{"A", "B", "C", "D", "E", "F", "G"}, playerScores, player.getId()));
         // When
         MessageGameStateMessageDTO result = webSocketController.handleGameStates(
-                gameId.toString(), gameState);
+                gameId.toString(), gameState).join();
 
         // Then
         assertNotNull(result);
         assertEquals(gameId, result.getGameId());
         assertEquals(MessageStatus.SUCCESS, result.getMessageStatus());
         assertEquals("Move submitted, scored " + expectedScore + " points", result.getMessage());
-        
-        // Verify player score was updated
-        verify(mockGame).addScore(playerId, expectedScore);
-        verify(gameRepository).save(mockGame);
+        assertEquals(playerScores, result.getGameState().getPlayerScores());
+        assertArrayEquals(new String[]{"A", "B", "C", "D", "E", "F", "G"}, result.getGameState().getUserTiles());
+        assertEquals(player.getId(), result.getGameState().getPlayerId());
+
+        // The move is handed over as a single command
+        ArgumentCaptor<SubmitMoveCommand> command = ArgumentCaptor.forClass(SubmitMoveCommand.class);
+        verify(moveSubmitService).submit(command.capture());
+        assertEquals(gameId, command.getValue().getGameId());
+        assertEquals(playerId, command.getValue().getPlayerId());
+        assertFalse(command.getValue().hasPlacements());
+        assertEquals(Board.fromRows(board), command.getValue().getBoard());
+        verify(gameService, never()).assignNewLetters(any(), anyLong(), any());
+        verify(gameService, never()).changeUserTurn(any());
     }
 
     @Test
-    void handleGameStates_gameEnd_setsGameTerminatedAndUpdatesUsers() {
+    void testSubmitMove_placements_appliedToServerBoard() {
+        // Given
         Long gameId = 1L;
         Long playerId = 123L;
 
+        User player = new User();
+        player.setId(2L);
+
         GameStateDTO gameState = new GameStateDTO();
         gameState.setId(gameId);
         gameState.setPlayerId(playerId);
-        gameState.setAction("GAME_END");
+        gameState.setAction("SUBMIT");
         gameState.setToken("test-token");
-        gameState.setUserTiles(new String[]{"A", "B", "C", "D", "E"});
-        
-        String[][] board = new String[15][15];
-        for (int i = 0; i < 15; i++) {
-            for (int j = 0; j < 15; j++) {
-                board[i][j] = "";
-            }
-        }
-        board[7][7] = "H";
-        board[7][8] = "E";
-        board[7][9] = "L";
-        board[7][10] = "L";
-        board[7][11] = "O";
-        gameState.setBoard(board);
+        gameState.setUserTiles(new String[]{"A", "B", "C", "D", "E", "", ""});
+        gameState.setPlacements(List.of(new PlacementDTO(7, 7, "H", false), new PlacementDTO(7, 8, "i", true)));
 
+        Board boardAfterMove = Board.empty().with(List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'i')));
+        when(moveSubmitService.submit(any(SubmitMoveCommand.class)))
+                .thenReturn(new SubmittedMove(new MoveResult(List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'i')),
+                        List.of(new FormedWord("HI", 7, 7, true, 4))),
+                        boardAfterMove, new String[]{"A", "B", "C", "D", "E", "F", "G"}, new HashMap<>(), player.getId()));
 
-        User user1 = new User();
-        user1.setId(10L);
-        user1.setHighScore(5);
-        user1.setInGame(true);
-    
-        User user2 = new User();
-        user2.setId(20L);
-        user2.setHighScore(3);
-        user2.setInGame(true);
+        // When
+        MessageGameStateMessageDTO result = webSocketController.handleGameStates(gameId.toString(), gameState).join();
 
+        // Then
+        assertEquals(MessageStatus.SUCCESS, result.getMessageStatus());
+        ArgumentCaptor<SubmitMoveCommand> command = ArgumentCaptor.forClass(SubmitMoveCommand.class);
+        verify(moveSubmitService).submit(command.capture());
+        assertTrue(command.getValue().hasPlacements());
+        assertEquals(List.of(new Placement(7, 7, 'H'), new Placement(7, 8, 'i')), command.getValue().getPlacements());
+        assertEquals(boardAfterMove, result.getGameState().getBoard());
+    }
 
-        Game game = new Game();
-        game.setId(gameId);
-        game.setUsers(List.of(user1, user2));
-        game.addScore(10L, 8);
-        game.addScore(20L, 4);
-        when(gameRepository.findById(gameId)).thenReturn(Optional.of(game));
-        when(gameRepository.findByIdWithUsers(gameId)).thenReturn(Optional.of(game));
+    @Test
+    void handleGameStates_gameEnd_endsGameAndSendsMessage() {
+        Long gameId = 1L;
+        Long playerId = 123L;
 
-        webSocketController.handleGameStates(gameId.toString(), gameState);
+        GameStateDTO gameState = new GameStateDTO();
+        gameState.setId(gameId);
+        gameState.setPlayerId(playerId);
+        gameState.setAction("GAME_END");
+        gameState.setToken("test-token");
+        gameState.setUserTiles(new String[]{"A", "B", "C", "D", "E"});
+        gameState.setBoard(Board.empty());
 
-        assertEquals(GameStatus.TERMINATED, game.getGameStatus());
-        verify(gameRepository).saveAndFlush(game);
-        verify(userRepository, times(2)).saveAndFlush(any(User.class));
+        webSocketController.handleGameStates(gameId.toString(), gameState).join();
 
+        verify(gameService).endGame(gameId, null);
         verify(messagingTemplate).convertAndSend(
             eq("/topic/game_states/" + gameId),
             any(MessageGameStateMessageDTO.class)
@@ -552,48 +567,52 @@ public class WebSocketControllerTest {
         gameState.setAction("SURRENDER");
         gameState.setToken("test-token");
         gameState.setUserTiles(new String[]{"A", "B", "C", "D", "E"});
-        
-        String[][] board = new String[15][15];
-        for (int i = 0; i < 15; i++) {
-            for (int j = 0; j < 15; j++) {
-                board[i][j] = "";
-            }
-        }
-        board[7][7] = "H";
-        board[7][8] = "E";
-        board[7][9] = "L";
-        board[7][10] = "L";
-        board[7][11] = "O";
-        gameState.setBoard(board);
-
-        User user1 = new User();
-        user1.setId(10L);
-        user1.setHighScore(5);
-        user1.setInGame(true);
-    
-        User user2 = new User();
-        user2.setId(20L);
-        user2.setHighScore(3);
-        user2.setInGame(true);
+        gameState.setBoard(Board.empty());
 
-        Game game = new Game();
-        game.setId(gameId);
-        game.setUsers(List.of(user1, user2));
-        game.addScore(10L, 8);
-        game.addScore(20L, 4);
-        when(gameRepository.findById(gameId)).thenReturn(Optional.of(game));
-        when(gameRepository.findByIdWithUsers(gameId)).thenReturn(Optional.of(game));
+        webSocketController.handleGameStates(gameId.toString(), gameState).join();
 
+        verify(gameService).endGame(gameId, playerId);
+        ArgumentCaptor<MessageGameStateMessageDTO> message = ArgumentCaptor.forClass(MessageGameStateMessageDTO.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/game_states/" + gameId), message.capture());
+        assertEquals(playerId, message.getValue().getGameState().getSurrenderedPlayerId());
+    }
 
-        webSocketController.handleGameStates(gameId.toString(), gameState);
+    @Test
+    void handleGameStates_conflictThenSuccess_sendsMessagesOnce() {
+        Long gameId = 1L;
 
-        assertEquals(GameStatus.TERMINATED, game.getGameStatus());
-    
-        verify(gameRepository).saveAndFlush(game);
-        verify(messagingTemplate).convertAndSend(
-            eq("/topic/game_states/" + gameId),
-            any(MessageGameStateMessageDTO.class)
-        );
+        GameStateDTO gameState = new GameStateDTO();
+        gameState.setId(gameId);
+        gameState.setPlayerId(123L);
+        gameState.setAction("GAME_END");
+        gameState.setToken("test-token");
+        gameState.setUserTiles(new String[]{"A", "B", "C", "D", "E"});
+        gameState.setBoard(Board.empty());
+        doThrow(new OptimisticLockingFailureException("changed")).doNothing().when(gameService).endGame(gameId, null);
+
+        webSocketController.handleGameStates(gameId.toString(), gameState).join();
+
+        verify(gameService, times(2)).endGame(gameId, null);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/game_states/" + gameId), any(MessageGameStateMessageDTO.class));
+    }
+
+    @Test
+    void handleGameStates_conflictOnEveryAttempt_sendsNothing() {
+        Long gameId = 1L;
+
+        GameStateDTO gameState = new GameStateDTO();
+        gameState.setId(gameId);
+        gameState.setPlayerId(123L);
+        gameState.setAction("GAME_END");
+        gameState.setToken("test-token");
+        gameState.setUserTiles(new String[]{"A", "B", "C", "D", "E"});
+        gameState.setBoard(Board.empty());
+        doThrow(new OptimisticLockingFailureException("changed")).when(gameService).endGame(gameId, null);
+
+        MessageGameStateMessageDTO result = webSocketController.handleGameStates(gameId.toString(), gameState).join();
+
+        assertEquals(MessageStatus.CONFLICT, result.getMessageStatus());
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
     }
 
     @Test
@@ -617,7 +636,7 @@ public class WebSocketControllerTest {
         when(gameRepository.findByIdWithUsers(game.getId())).thenReturn(Optional.of(game));
 
         // Act
-        MessageGameStateMessageDTO msg = webSocketController.handleGameStates("1", gameState);
+        MessageGameStateMessageDTO msg = webSocketController.handleGameStates("1", gameState).join();
 
         // Assert
         assertNotNull(msg);
@@ -642,7 +661,7 @@ public class WebSocketControllerTest {
 
         when(gameService.skipTurn(gameId, 123L)).thenThrow(new GameNotFoundException("Game not found"));
         // Act
-        MessageGameStateMessageDTO result = webSocketController.handleGameStates(gameId.toString(), gameState);
+        MessageGameStateMessageDTO result = webSocketController.handleGameStates(gameId.toString(), gameState).join();
 
         // Assert
         assertNotNull(result);
@@ -664,7 +683,7 @@ public class WebSocketControllerTest {
         when(gameRepository.findByIdWithUsers(gameId)).thenReturn(Optional.of(game));
 
         // Act
-        MessageGameStateMessageDTO result = webSocketController.handleGameStates(gameId.toString(), gameState);
+        MessageGameStateMessageDTO result = webSocketController.handleGameStates(gameId.toString(), gameState).join();
 
         // Assert
         assertNotNull(result);
@@ -672,13 +691,25 @@ public class WebSocketControllerTest {
         assertTrue(result.getMessage().contains("Unexpected error"));
     }
 
+    @Test
+    void writeConflict_sendsConflictToAllPlayers() {
+        // Act
+        eventPublisher.publishEvent(new GameWriteConflictEvent(1L));
+
+        // Assert
+        ArgumentCaptor<MessageGameStateMessageDTO> messageCaptor = ArgumentCaptor.forClass(MessageGameStateMessageDTO.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/game_states/1"), messageCaptor.capture());
+        assertEquals(1L, messageCaptor.getValue().getGameId());
+        assertEquals(MessageStatus.CONFLICT, messageCaptor.getValue().getMessageStatus());
+    }
+
     GameStateDTO initializeGameStateDTO() {
         GameStateDTO gameState = new GameStateDTO();
         gameState.setId(1L);
         gameState.setAction("FETCH_GAME_STATE");
         gameState.setUserTiles(new String[]{});
         gameState.setToken("test-token");
-        gameState.setBoard(new String[15][15]);
+        gameState.setBoard(Board.empty());
         return gameState;
     }
 